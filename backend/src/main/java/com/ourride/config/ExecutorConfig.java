@@ -0,0 +1,32 @@
+package com.ourride.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class ExecutorConfig {
+    
+    /**
+     * Bounded pool for fanning out fare computations (fare matrices, trip
+     * trace reduction), kept apart from the common pool so request bursts
+     * cannot starve other parallel work
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool pricingPool(@Value("${pricing.pool.parallelism:4}") int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+    
+    /**
+     * Threads that write queued ride events to SSE connections; each
+     * subscriber is drained by at most one of them at a time
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService rideEventSenderPool(@Value("${push.sender-threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+}
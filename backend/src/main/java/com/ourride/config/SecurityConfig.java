@@ -44,6 +44,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/complete-profile").authenticated()
                 // Public ride endpoints
                 .requestMatchers("/api/rides/estimate-price").permitAll()
+                .requestMatchers("/api/rides/estimate-prices").permitAll()
                 // Other public endpoints
                 .requestMatchers("/api/public/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
@@ -0,0 +1,110 @@
+package com.ourride.controller;
+
+import com.ourride.dto.request.DriverLocationBatchRequest;
+import com.ourride.dto.request.DriverLocationRequest;
+import com.ourride.dto.response.RideResponse;
+import com.ourride.service.DriverRideService;
+import com.ourride.service.geofence.AirportQueueService;
+import com.ourride.service.tracking.DriverLocation;
+import com.ourride.service.tracking.DriverLocationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/drivers")
+@RequiredArgsConstructor
+public class DriverController {
+    
+    private final DriverLocationService driverLocationService;
+    private final DriverRideService driverRideService;
+    private final AirportQueueService airportQueueService;
+    
+    /**
+     * Report current driver location
+     * POST /api/drivers/location
+     */
+    @PostMapping("/location")
+    public ResponseEntity<Void> updateLocation(
+            @Valid @RequestBody DriverLocationRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        Long driverId = driverLocationService.resolveDriverId(userId);
+        driverLocationService.record(toLocation(driverId, request, System.currentTimeMillis()));
+        return ResponseEntity.accepted().build();
+    }
+    
+    /**
+     * Report several buffered driver locations at once
+     * POST /api/drivers/location/batch
+     */
+    @PostMapping("/location/batch")
+    public ResponseEntity<Map<String, Integer>> updateLocations(
+            @Valid @RequestBody DriverLocationBatchRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        Long driverId = driverLocationService.resolveDriverId(userId);
+        long now = System.currentTimeMillis();
+        List<DriverLocation> locations = request.getLocations().stream()
+            .map(location -> toLocation(driverId, location, now))
+            .collect(Collectors.toList());
+        driverLocationService.recordAll(locations);
+        return ResponseEntity.accepted().body(Map.of("accepted", locations.size()));
+    }
+    
+    /**
+     * Start an assigned ride once the passenger is on board
+     * POST /api/drivers/rides/{id}/start
+     */
+    @PostMapping("/rides/{id}/start")
+    public ResponseEntity<RideResponse> startRide(
+            @PathVariable Long id,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        Long driverId = driverLocationService.resolveDriverId(userId);
+        return ResponseEntity.ok(driverRideService.startRide(driverId, id));
+    }
+    
+    /**
+     * Complete a ride; the final fare is computed from the recorded trip trace
+     * POST /api/drivers/rides/{id}/complete
+     */
+    @PostMapping("/rides/{id}/complete")
+    public ResponseEntity<RideResponse> completeRide(
+            @PathVariable Long id,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        Long driverId = driverLocationService.resolveDriverId(userId);
+        return ResponseEntity.ok(driverRideService.completeRide(driverId, id));
+    }
+    
+    /**
+     * The driver's place in the airport queue they are waiting in
+     * GET /api/drivers/airport-queue
+     */
+    @GetMapping("/airport-queue")
+    public ResponseEntity<AirportQueueService.Position> getAirportQueuePosition(Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        Long driverId = driverLocationService.resolveDriverId(userId);
+        AirportQueueService.Position position = airportQueueService.positionOf(driverId);
+        return position != null ? ResponseEntity.ok(position) : ResponseEntity.noContent().build();
+    }
+    
+    private DriverLocation toLocation(Long driverId, DriverLocationRequest request, long now) {
+        return new DriverLocation(
+            driverId,
+            request.getLatitude(),
+            request.getLongitude(),
+            request.getHeading() != null ? request.getHeading() : 0f,
+            request.getSpeed() != null ? request.getSpeed() : 0f,
+            request.getAccuracy() != null ? request.getAccuracy() : 0f,
+            request.getTimestamp() != null ? request.getTimestamp() : now
+        );
+    }
+}
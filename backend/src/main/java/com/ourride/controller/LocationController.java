@@ -2,9 +2,11 @@ package com.ourride.controller;
 
 import com.ourride.dto.request.LocationSearchRequest;
 import com.ourride.dto.request.SaveAddressRequest;
+import com.ourride.dto.response.GeofenceResponse;
 import com.ourride.dto.response.LocationResponse;
 import com.ourride.dto.response.SavedAddressResponse;
 import com.ourride.service.LocationService;
+import com.ourride.service.geofence.GeofenceService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/locations")
@@ -20,6 +23,7 @@ import java.util.Map;
 public class LocationController {
     
     private final LocationService locationService;
+    private final GeofenceService geofenceService;
     
     /**
      * Search locations
@@ -81,5 +85,23 @@ public class LocationController {
         locationService.deleteSavedAddress(userId, id);
         return ResponseEntity.ok(Map.of("message", "Address deleted successfully"));
     }
+    
+    /**
+     * Zones (airports, no-pickup and restricted areas) containing a point
+     * GET /api/locations/zones?latitude=..&longitude=..
+     */
+    @GetMapping("/zones")
+    public ResponseEntity<List<GeofenceResponse>> getZones(
+            @RequestParam double latitude,
+            @RequestParam double longitude) {
+        List<GeofenceResponse> zones = geofenceService.zonesAt(latitude, longitude).stream()
+            .map(zone -> GeofenceResponse.builder()
+                .id(zone.id())
+                .name(zone.name())
+                .kind(zone.kind().name())
+                .build())
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(zones);
+    }
 }
 
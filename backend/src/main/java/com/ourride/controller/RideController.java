@@ -1,17 +1,25 @@
 package com.ourride.controller;
 
 import com.ourride.dto.request.BookRideRequest;
+import com.ourride.dto.request.FareMatrixRequest;
 import com.ourride.dto.request.PriceEstimateRequest;
+import com.ourride.dto.response.CursorPageResponse;
+import com.ourride.dto.response.FareMatrixResponse;
 import com.ourride.dto.response.PriceEstimateResponse;
 import com.ourride.dto.response.RideResponse;
+import com.ourride.service.ExportService;
 import com.ourride.service.RideService;
+import com.ourride.service.push.RideEventHub;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -22,6 +30,8 @@ import java.util.Map;
 public class RideController {
     
     private final RideService rideService;
+    private final ExportService exportService;
+    private final RideEventHub rideEventHub;
     
     /**
      * Estimate price for a ride
@@ -34,6 +44,17 @@ public class RideController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Estimate fares for all ride types to several destinations at once
+     * POST /api/rides/estimate-prices
+     */
+    @PostMapping("/estimate-prices")
+    public ResponseEntity<FareMatrixResponse> estimateFareMatrix(
+            @Valid @RequestBody FareMatrixRequest request) {
+        FareMatrixResponse response = rideService.estimateFareMatrix(request);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Book a ride
      * POST /api/rides/book
@@ -76,6 +97,37 @@ public class RideController {
         return ResponseEntity.ok(history);
     }
     
+    /**
+     * Get ride history by cursor (no page counting, constant cost per page)
+     * GET /api/rides/history/cursor?cursor=&size=20
+     */
+    @GetMapping("/history/cursor")
+    public ResponseEntity<CursorPageResponse<RideResponse>> getRideHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        CursorPageResponse<RideResponse> history = rideService.getRideHistoryPage(
+            userId, cursor, Math.min(Math.max(size, 1), 100), status);
+        return ResponseEntity.ok(history);
+    }
+    
+    /**
+     * Download the full ride history as NDJSON or CSV
+     * GET /api/rides/export?format=ndjson
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRides(
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        ExportService.Format exportFormat = ExportService.parseFormat(format);
+        return ResponseEntity.ok()
+            .headers(ExportService.headersFor("rides", exportFormat))
+            .body(exportService.exportRides(userId, exportFormat));
+    }
+    
     /**
      * Get ongoing/active rides
      * GET /api/rides/ongoing
@@ -100,6 +152,20 @@ public class RideController {
         return ResponseEntity.ok(scheduledRides);
     }
     
+    /**
+     * Stream live updates for a ride: a "ride" event per status change and
+     * "position" events for the assigned driver
+     * GET /api/rides/{id}/events
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRideEvents(
+            @PathVariable Long id,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        RideResponse snapshot = rideService.getRide(userId, id);
+        return rideEventHub.subscribe(snapshot);
+    }
+    
     /**
      * Cancel a ride
      * POST /api/rides/{id}/cancel
@@ -1,13 +1,16 @@
 package com.ourride.controller;
 
 import com.ourride.dto.request.TopUpRequest;
+import com.ourride.dto.response.CursorPageResponse;
 import com.ourride.dto.response.WalletTransactionResponse;
+import com.ourride.service.ExportService;
 import com.ourride.service.WalletService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -18,6 +21,7 @@ import java.util.Map;
 public class WalletController {
     
     private final WalletService walletService;
+    private final ExportService exportService;
     
     /**
      * Top up wallet
@@ -46,6 +50,36 @@ public class WalletController {
         return ResponseEntity.ok(transactions);
     }
     
+    /**
+     * Get transaction history by cursor (no page counting, constant cost per page)
+     * GET /api/wallet/transactions/cursor?cursor=&size=20
+     */
+    @GetMapping("/transactions/cursor")
+    public ResponseEntity<CursorPageResponse<WalletTransactionResponse>> getTransactionPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        CursorPageResponse<WalletTransactionResponse> transactions = walletService.getTransactionPage(
+            userId, cursor, Math.min(Math.max(size, 1), 100));
+        return ResponseEntity.ok(transactions);
+    }
+    
+    /**
+     * Download all wallet transactions as NDJSON or CSV
+     * GET /api/wallet/export?format=csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        ExportService.Format exportFormat = ExportService.parseFormat(format);
+        return ResponseEntity.ok()
+            .headers(ExportService.headersFor("wallet-transactions", exportFormat))
+            .body(exportService.exportWalletTransactions(userId, exportFormat));
+    }
+    
     /**
      * Get top-up history only
      * GET /api/wallet/top-ups
@@ -35,8 +35,8 @@ public class BookRideRequest {
     @NotBlank(message = "Ride type is required")
     private String rideType; // CAR, CAR_XL, CAR_PLUS
     
-    @NotNull(message = "Price is required")
-    private BigDecimal price;
+    @NotBlank(message = "Price quote is required")
+    private String quoteToken; // From /api/rides/estimate-price; fixes the price
     
     private LocalDateTime scheduledDateTime; // Optional: for scheduled rides
 }
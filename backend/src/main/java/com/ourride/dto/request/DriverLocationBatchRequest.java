@@ -0,0 +1,20 @@
+package com.ourride.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLocationBatchRequest {
+    
+    @NotEmpty(message = "At least one location is required")
+    @Size(max = 500, message = "At most 500 locations per batch")
+    private List<@Valid DriverLocationRequest> locations;
+}
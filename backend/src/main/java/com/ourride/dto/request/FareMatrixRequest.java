@@ -0,0 +1,46 @@
+package com.ourride.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareMatrixRequest {
+    
+    @NotNull(message = "Pickup latitude is required")
+    private BigDecimal pickupLatitude;
+    
+    @NotNull(message = "Pickup longitude is required")
+    private BigDecimal pickupLongitude;
+    
+    @NotEmpty(message = "At least one destination is required")
+    @Size(max = 25, message = "At most 25 destinations per request")
+    private List<@Valid Destination> destinations;
+    
+    @Size(max = 5, message = "At most 5 ride types per request")
+    private List<@NotBlank String> rideTypes; // Optional: defaults to every ride type
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Destination {
+        
+        @NotNull(message = "Destination latitude is required")
+        private BigDecimal latitude;
+        
+        @NotNull(message = "Destination longitude is required")
+        private BigDecimal longitude;
+        
+        private String label; // Optional: echoed back, e.g. a saved address name
+    }
+}
@@ -0,0 +1,44 @@
+package com.ourride.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareMatrixResponse {
+    
+    private BigDecimal pickupLatitude;
+    private BigDecimal pickupLongitude;
+    private BigDecimal surgeMultiplier;
+    private Long surgeEpoch;
+    private List<DestinationFares> destinations;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DestinationFares {
+        private BigDecimal latitude;
+        private BigDecimal longitude;
+        private String label;
+        private BigDecimal distanceKm;
+        private Integer estimatedDurationMinutes;
+        private List<Fare> fares;
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fare {
+        private String rideType;
+        private BigDecimal price;
+    }
+}
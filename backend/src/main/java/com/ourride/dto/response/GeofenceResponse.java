@@ -0,0 +1,17 @@
+package com.ourride.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceResponse {
+    
+    private Long id;
+    private String name;
+    private String kind; // AIRPORT, NO_PICKUP, RESTRICTED
+}
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PriceEstimateResponse {
@@ -17,5 +17,8 @@ public class PriceEstimateResponse {
     private BigDecimal distanceKm;
     private Integer estimatedDurationMinutes;
     private String rideType;
+    private BigDecimal surgeMultiplier;
+    private Long surgeEpoch;
+    private String quoteToken; // Signed quote to pass to /api/rides/book
 }
 
@@ -62,6 +62,10 @@ public class Ride {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
     
+    @Column(name = "surge_multiplier", nullable = false, precision = 4, scale = 2)
+    @Builder.Default
+    private BigDecimal surgeMultiplier = BigDecimal.ONE;
+    
     @Column(name = "distance_km", precision = 10, scale = 2)
     private BigDecimal distanceKm;
     
@@ -1,14 +1,18 @@
 package com.ourride.repository;
 
 import com.ourride.model.entity.Ride;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,10 +27,36 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     
     Page<Ride> findByUserIdAndStatusOrderByCreatedAtDesc(Long userId, Ride.RideStatus status, Pageable pageable);
     
+    Slice<Ride> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+    
+    Slice<Ride> findByUserIdAndStatusOrderByCreatedAtDescIdDesc(Long userId, Ride.RideStatus status, Pageable pageable);
+    
+    /**
+     * Rides strictly after the (createdAt, id) cursor, newest first; no count query
+     */
+    @Query("SELECT r FROM Ride r WHERE r.userId = :userId " +
+           "AND r.createdAt <= :createdAt AND (r.createdAt < :createdAt OR r.id < :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<Ride> findByUserIdBefore(@Param("userId") Long userId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+    
+    @Query("SELECT r FROM Ride r WHERE r.userId = :userId AND r.status = :status " +
+           "AND r.createdAt <= :createdAt AND (r.createdAt < :createdAt OR r.id < :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<Ride> findByUserIdAndStatusBefore(@Param("userId") Long userId,
+                                            @Param("status") Ride.RideStatus status,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
     List<Ride> findByDriverIdAndStatusOrderByCreatedAtDesc(Long driverId, Ride.RideStatus status);
     
     Optional<Ride> findByIdAndUserId(Long id, Long userId);
     
+    Optional<Ride> findByIdAndDriverId(Long id, Long driverId);
+    
     @Query("SELECT r FROM Ride r WHERE r.userId = :userId AND r.status IN :statuses ORDER BY r.createdAt DESC")
     List<Ride> findByUserIdAndStatusIn(@Param("userId") Long userId, @Param("statuses") List<Ride.RideStatus> statuses);
     
@@ -37,6 +67,39 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     
     List<Ride> findByStatusAndScheduledDateTimeLessThanEqual(Ride.RideStatus status, LocalDateTime dateTime);
     
+    @Query("SELECT r.id AS id, r.scheduledDateTime AS scheduledDateTime FROM Ride r " +
+           "WHERE r.scheduledDateTime IS NOT NULL AND r.status = :status AND r.driverId IS NULL")
+    List<ScheduledRideView> findUnassignedScheduledRides(@Param("status") Ride.RideStatus status);
+    
     List<Ride> findByUserIdAndScheduledDateTimeIsNotNullOrderByScheduledDateTimeAsc(Long userId);
+    
+    @Query("SELECT r.id FROM Ride r " +
+           "WHERE r.scheduledDateTime IS NULL AND r.status = :status AND r.driverId IS NULL ORDER BY r.createdAt")
+    List<Long> findUnassignedImmediateRideIds(@Param("status") Ride.RideStatus status);
+    
+    /**
+     * Load a ride and hold its row lock until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Ride r WHERE r.id = :id")
+    Optional<Ride> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * Load a driver's ride and hold its row lock until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Ride r WHERE r.id = :id AND r.driverId = :driverId")
+    Optional<Ride> findByIdAndDriverIdForUpdate(@Param("id") Long id, @Param("driverId") Long driverId);
+    
+    /**
+     * Load rides and hold their row locks until the transaction ends; locked in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Ride r WHERE r.id IN :ids ORDER BY r.id")
+    List<Ride> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    interface ScheduledRideView {
+        Long getId();
+        LocalDateTime getScheduledDateTime();
+    }
 }
-
@@ -3,9 +3,13 @@ package com.ourride.repository;
 import com.ourride.model.entity.WalletTransaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,6 +17,19 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     
     Page<WalletTransaction> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
+    Slice<WalletTransaction> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+    
+    /**
+     * Transactions strictly after the (createdAt, id) cursor, newest first; no count query
+     */
+    @Query("SELECT t FROM WalletTransaction t WHERE t.userId = :userId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    Slice<WalletTransaction> findByUserIdBefore(@Param("userId") Long userId,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+    
     List<WalletTransaction> findByUserIdAndTransactionTypeOrderByCreatedAtDesc(
         Long userId, 
         WalletTransaction.TransactionType transactionType
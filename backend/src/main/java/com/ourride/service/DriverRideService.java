@@ -0,0 +1,118 @@
+package com.ourride.service;
+
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import com.ourride.service.dispatch.DispatchService;
+import com.ourride.service.pricing.FareTariff;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.service.trace.TraceDistanceReducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Ride lifecycle steps performed by the assigned driver
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverRideService {
+    
+    private static final Set<Ride.RideStatus> STARTABLE = EnumSet.of(
+        Ride.RideStatus.DRIVER_ASSIGNED,
+        Ride.RideStatus.DRIVER_EN_ROUTE,
+        Ride.RideStatus.ARRIVED
+    );
+    
+    private final RideRepository rideRepository;
+    private final DispatchService dispatchService;
+    private final FareTariff fareTariff;
+    private final TraceDistanceReducer traceDistanceReducer;
+    private final RideResponseMapper rideResponseMapper;
+    private final RideUpdateNotifier rideUpdateNotifier;
+    
+    @Value("${trace.min-kept-points:10}")
+    private int minKeptPoints;
+    
+    @Value("${trace.min-coverage:0.5}")
+    private double minCoverage;
+    
+    /**
+     * Passenger picked up; the trip trace from here on is billed
+     */
+    @Transactional
+    public RideResponse startRide(Long driverId, Long rideId) {
+        // Locked like cancelRide, so a concurrent cancel commits first and the status check below sees it
+        Ride ride = rideRepository.findByIdAndDriverIdForUpdate(rideId, driverId)
+            .orElseThrow(() -> new RuntimeException("Ride not found"));
+        
+        if (!STARTABLE.contains(ride.getStatus())) {
+            throw new RuntimeException("Ride cannot be started in status " + ride.getStatus());
+        }
+        
+        ride.setStatus(Ride.RideStatus.IN_PROGRESS);
+        ride.setStartedAt(LocalDateTime.now());
+        ride = rideRepository.save(ride);
+        log.info("Ride {} started by driver {}", rideId, driverId);
+        rideUpdateNotifier.rideChanged(ride);
+        
+        return rideResponseMapper.toResponse(ride);
+    }
+    
+    /**
+     * Drop-off: measure the driven distance from the recorded trace and
+     * reprice with the tariff and the surge multiplier quoted at booking
+     */
+    @Transactional
+    public RideResponse completeRide(Long driverId, Long rideId) {
+        // Locked like cancelRide, so a concurrent cancel commits first and the status check below sees it
+        Ride ride = rideRepository.findByIdAndDriverIdForUpdate(rideId, driverId)
+            .orElseThrow(() -> new RuntimeException("Ride not found"));
+        
+        if (ride.getStatus() != Ride.RideStatus.IN_PROGRESS) {
+            throw new RuntimeException("Ride cannot be completed in status " + ride.getStatus());
+        }
+        
+        LocalDateTime completedAt = LocalDateTime.now();
+        LocalDateTime startedAt = ride.getStartedAt() != null ? ride.getStartedAt() : ride.getCreatedAt();
+        TraceDistanceReducer.Measurement measurement = traceDistanceReducer.measure(
+            rideId, toEpochMillis(startedAt), toEpochMillis(completedAt));
+        
+        // A sparse trace, or one covering too little of the ride, would underprice it; the booked estimate stands
+        long rideSeconds = Duration.between(startedAt, completedAt).getSeconds();
+        if (measurement.keptPoints() >= minKeptPoints
+                && measurement.durationSeconds() >= minCoverage * rideSeconds) {
+            BigDecimal distanceKm = BigDecimal.valueOf(measurement.distanceKm()).setScale(2, RoundingMode.HALF_UP);
+            ride.setDistanceKm(distanceKm);
+            ride.setPrice(fareTariff.price(distanceKm, ride.getRideType().name(),
+                ride.getSurgeMultiplier().doubleValue()));
+        }
+        log.info("Ride {} completed: {} km over {} s, {} samples kept, {} dropped",
+            rideId, ride.getDistanceKm(), measurement.durationSeconds(),
+            measurement.keptPoints(), measurement.droppedPoints());
+        
+        ride.setStatus(Ride.RideStatus.COMPLETED);
+        ride.setCompletedAt(completedAt);
+        dispatchService.releaseDriver(driverId);
+        
+        ride = rideRepository.save(ride);
+        rideUpdateNotifier.rideChanged(ride);
+        
+        return rideResponseMapper.toResponse(ride);
+    }
+    
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,282 @@
+package com.ourride.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams a user's full ride or wallet history as NDJSON or CSV.
+ *
+ * Rows are read through a forward-only JDBC cursor with a bounded fetch size
+ * and written straight to the response, so memory stays flat regardless of
+ * history length. The read-only transaction (and its connection) is opened
+ * inside the streaming callback and lives only as long as the stream.
+ */
+@Service
+@Slf4j
+public class ExportService {
+    
+    public enum Format { NDJSON, CSV }
+    
+    /**
+     * Parse a format query parameter
+     */
+    public static Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid export format: " + format);
+        }
+    }
+    
+    /**
+     * Response headers for an export download
+     */
+    public static HttpHeaders headersFor(String baseName, Format format) {
+        HttpHeaders headers = new HttpHeaders();
+        if (format == Format.CSV) {
+            headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+            headers.setContentDisposition(ContentDisposition.attachment().filename(baseName + ".csv").build());
+        } else {
+            headers.setContentType(MediaType.APPLICATION_NDJSON);
+            headers.setContentDisposition(ContentDisposition.attachment().filename(baseName + ".ndjson").build());
+        }
+        return headers;
+    }
+    
+    private static final Column[] RIDE_COLUMNS = {
+        new Column("id", "id"),
+        new Column("status", "status"),
+        new Column("ride_type", "rideType"),
+        new Column("pickup_address", "pickupAddress"),
+        new Column("destination_address", "destinationAddress"),
+        new Column("price", "price"),
+        new Column("distance_km", "distanceKm"),
+        new Column("estimated_duration_minutes", "estimatedDurationMinutes"),
+        new Column("scheduled_datetime", "scheduledDateTime"),
+        new Column("started_at", "startedAt"),
+        new Column("completed_at", "completedAt"),
+        new Column("cancelled_at", "cancelledAt"),
+        new Column("created_at", "createdAt")
+    };
+    
+    private static final Column[] WALLET_COLUMNS = {
+        new Column("id", "id"),
+        new Column("transaction_type", "transactionType"),
+        new Column("amount", "amount"),
+        new Column("payment_method", "paymentMethod"),
+        new Column("status", "status"),
+        new Column("transaction_id", "transactionId"),
+        new Column("description", "description"),
+        new Column("created_at", "createdAt")
+    };
+    
+    private static final String RIDES_SQL = selectFor(RIDE_COLUMNS, "rides");
+    private static final String WALLET_SQL = selectFor(WALLET_COLUMNS, "wallet_transactions");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${export.fetch-size:500}") int fetchSize) {
+        // Dedicated template so the fetch size only applies to exports.
+        // PostgreSQL honours it (a server-side cursor) only inside a transaction.
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Export all rides for a user, newest first
+     */
+    public StreamingResponseBody exportRides(Long userId, Format format) {
+        return out -> stream(RIDES_SQL, RIDE_COLUMNS, userId, format, out);
+    }
+    
+    /**
+     * Export all wallet transactions for a user, newest first
+     */
+    public StreamingResponseBody exportWalletTransactions(Long userId, Format format) {
+        return out -> stream(WALLET_SQL, WALLET_COLUMNS, userId, format, out);
+    }
+    
+    private void stream(String sql, Column[] columns, Long userId, Format format, OutputStream out) throws IOException {
+        RowSink sink = format == Format.CSV ? new CsvSink(out) : new NdjsonSink(objectMapper, out);
+        sink.start(columns);
+        
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                long[] count = {0};
+                jdbcTemplate.query(sql, rs -> {
+                    try {
+                        sink.row(rs, columns);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                }, userId);
+                return count[0];
+            });
+            log.info("Exported {} rows for user: {}", rows, userId);
+        } catch (UncheckedIOException e) {
+            // Client went away mid-download; the transaction has already been rolled back
+            throw e.getCause();
+        }
+        
+        sink.finish();
+    }
+    
+    private static String selectFor(Column[] columns, String table) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns[i].sqlName());
+        }
+        return sql.append(" FROM ").append(table)
+            .append(" WHERE user_id = ? ORDER BY created_at DESC, id DESC")
+            .toString();
+    }
+    
+    private record Column(String sqlName, String fieldName) {
+    }
+    
+    private interface RowSink {
+        void start(Column[] columns) throws IOException;
+        
+        void row(ResultSet rs, Column[] columns) throws IOException, SQLException;
+        
+        void finish() throws IOException;
+    }
+    
+    /**
+     * One JSON object per line, written with a streaming generator
+     */
+    private static final class NdjsonSink implements RowSink {
+        
+        private final JsonGenerator generator;
+        private boolean empty = true;
+        
+        NdjsonSink(ObjectMapper objectMapper, OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+        
+        @Override
+        public void start(Column[] columns) {
+        }
+        
+        @Override
+        public void row(ResultSet rs, Column[] columns) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i].fieldName());
+                Object value = rs.getObject(i + 1);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            empty = false;
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+    
+    /**
+     * RFC 4180 CSV with a header row
+     */
+    private static final class CsvSink implements RowSink {
+        
+        private final Writer writer;
+        
+        CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public void start(Column[] columns) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns[i].fieldName());
+            }
+            writer.write("\r\n");
+        }
+        
+        @Override
+        public void row(ResultSet rs, Column[] columns) throws IOException, SQLException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    writer.write(timestamp.toLocalDateTime().toString());
+                } else if (value != null) {
+                    writeEscaped(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+        
+        private void writeEscaped(String value) throws IOException {
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.ourride.service;
+
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Driver;
+import com.ourride.model.entity.Ride;
+import com.ourride.model.entity.User;
+import com.ourride.repository.DriverRepository;
+import com.ourride.repository.UserRepository;
+import com.ourride.service.tracking.DriverLocation;
+import com.ourride.service.tracking.DriverLocationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps Ride entities to RideResponse DTOs with their assigned driver
+ */
+@Component
+@RequiredArgsConstructor
+public class RideResponseMapper {
+    
+    private final DriverRepository driverRepository;
+    private final UserRepository userRepository;
+    private final DriverLocationService driverLocationService;
+    
+    public RideResponse toResponse(Ride ride) {
+        return toResponses(List.of(ride)).get(0);
+    }
+    
+    /**
+     * Map a page of rides, loading all assigned drivers and their users
+     * with one IN query each instead of two lookups per ride
+     */
+    public List<RideResponse> toResponses(List<Ride> rides) {
+        Set<Long> driverIds = rides.stream()
+            .map(Ride::getDriverId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        
+        Map<Long, Driver> drivers = Map.of();
+        Map<Long, User> driverUsers = Map.of();
+        if (!driverIds.isEmpty()) {
+            drivers = driverRepository.findAllById(driverIds).stream()
+                .collect(Collectors.toMap(Driver::getId, Function.identity()));
+            Set<Long> userIds = drivers.values().stream()
+                .map(Driver::getUserId)
+                .collect(Collectors.toSet());
+            driverUsers = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        }
+        
+        List<RideResponse> responses = new ArrayList<>(rides.size());
+        for (Ride ride : rides) {
+            Driver driver = ride.getDriverId() != null ? drivers.get(ride.getDriverId()) : null;
+            User driverUser = driver != null ? driverUsers.get(driver.getUserId()) : null;
+            responses.add(toRideResponse(ride, driver, driverUser));
+        }
+        return responses;
+    }
+    
+    /**
+     * Map rides for a cache: the driver's position changes with every ping,
+     * so it is left out and joined on read by {@link #withLivePositions(List)}
+     */
+    public List<RideResponse> toCacheableResponses(List<Ride> rides) {
+        List<RideResponse> responses = toResponses(rides);
+        for (RideResponse response : responses) {
+            if (response.getDriver() != null) {
+                response.getDriver().setCurrentLatitude(null);
+                response.getDriver().setCurrentLongitude(null);
+            }
+        }
+        return responses;
+    }
+    
+    /**
+     * Copies of the given responses with each assigned driver's current
+     * position: the newest ping this node has seen, otherwise the last
+     * position flushed to the drivers table (one IN query for all of them)
+     */
+    public List<RideResponse> withLivePositions(List<RideResponse> rides) {
+        Map<Long, BigDecimal[]> positions = new HashMap<>();
+        Set<Long> unseen = new HashSet<>();
+        for (RideResponse ride : rides) {
+            if (ride.getDriver() == null) {
+                continue;
+            }
+            Long driverId = ride.getDriver().getId();
+            DriverLocation latest = driverLocationService.getLatest(driverId);
+            if (latest != null) {
+                positions.put(driverId, new BigDecimal[]{
+                    BigDecimal.valueOf(latest.latitude()), BigDecimal.valueOf(latest.longitude())});
+            } else {
+                unseen.add(driverId);
+            }
+        }
+        if (!unseen.isEmpty()) {
+            for (Driver driver : driverRepository.findAllById(unseen)) {
+                positions.put(driver.getId(), new BigDecimal[]{driver.getCurrentLatitude(), driver.getCurrentLongitude()});
+            }
+        }
+        
+        List<RideResponse> joined = new ArrayList<>(rides.size());
+        for (RideResponse ride : rides) {
+            BigDecimal[] position = ride.getDriver() != null ? positions.get(ride.getDriver().getId()) : null;
+            if (position == null) {
+                joined.add(ride);
+                continue;
+            }
+            joined.add(ride.toBuilder()
+                .driver(ride.getDriver().toBuilder()
+                    .currentLatitude(position[0])
+                    .currentLongitude(position[1])
+                    .build())
+                .build());
+        }
+        return joined;
+    }
+    
+    private RideResponse toRideResponse(Ride ride, Driver driver, User driverUser) {
+        RideResponse.RideResponseBuilder builder = RideResponse.builder()
+            .id(ride.getId())
+            .userId(ride.getUserId())
+            .driverId(ride.getDriverId())
+            .pickupLatitude(ride.getPickupLatitude())
+            .pickupLongitude(ride.getPickupLongitude())
+            .pickupAddress(ride.getPickupAddress())
+            .destinationLatitude(ride.getDestinationLatitude())
+            .destinationLongitude(ride.getDestinationLongitude())
+            .destinationAddress(ride.getDestinationAddress())
+            .rideType(ride.getRideType().name())
+            .status(ride.getStatus().name())
+            .price(ride.getPrice())
+            .distanceKm(ride.getDistanceKm())
+            .estimatedDurationMinutes(ride.getEstimatedDurationMinutes())
+            .scheduledDateTime(ride.getScheduledDateTime())
+            .startedAt(ride.getStartedAt())
+            .completedAt(ride.getCompletedAt())
+            .cancelledAt(ride.getCancelledAt())
+            .cancellationReason(ride.getCancellationReason())
+            .createdAt(ride.getCreatedAt())
+            .updatedAt(ride.getUpdatedAt());
+        
+        if (driver != null) {
+            builder.driver(RideResponse.DriverInfo.builder()
+                .id(driver.getId())
+                .name(driverUser != null ? driverUser.getFullName() : "Driver")
+                .phoneNumber(driverUser != null ? driverUser.getPhoneNumber() : null)
+                .rating(driver.getRating())
+                .vehicleType(driver.getVehicleType())
+                .vehicleNumber(driver.getVehicleNumber())
+                .currentLatitude(driver.getCurrentLatitude())
+                .currentLongitude(driver.getCurrentLongitude())
+                .build());
+        }
+        
+        return builder.build();
+    }
+}
@@ -1,26 +1,48 @@
 package com.ourride.service;
 
 import com.ourride.dto.request.BookRideRequest;
+import com.ourride.dto.request.FareMatrixRequest;
 import com.ourride.dto.request.PriceEstimateRequest;
+import com.ourride.dto.response.CursorPageResponse;
+import com.ourride.dto.response.FareMatrixResponse;
 import com.ourride.dto.response.PriceEstimateResponse;
 import com.ourride.dto.response.RideResponse;
-import com.ourride.model.entity.Driver;
 import com.ourride.model.entity.Ride;
 import com.ourride.model.entity.User;
-import com.ourride.repository.DriverRepository;
 import com.ourride.repository.RideRepository;
 import com.ourride.repository.UserRepository;
+import com.ourride.service.cache.ActiveRideCache;
+import com.ourride.service.dispatch.DispatchService;
+import com.ourride.service.dispatch.ScheduledRideDispatcher;
+import com.ourride.service.geofence.GeofenceService;
+import com.ourride.service.pricing.FareTariff;
+import com.ourride.service.pricing.PriceEstimateCache;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.service.pricing.QuoteTokenService;
+import com.ourride.service.pricing.SurgePricingEngine;
+import com.ourride.service.pricing.SurgeSnapshot;
+import com.ourride.service.routing.RoutingEngine;
+import com.ourride.util.GeoMath;
+import com.ourride.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,43 +51,156 @@ import java.util.stream.Collectors;
 public class RideService {
     
     private final RideRepository rideRepository;
-    private final DriverRepository driverRepository;
     private final UserRepository userRepository;
-    
-    // Base prices per km for different ride types
-    private static final BigDecimal BASE_PRICE_CAR = new BigDecimal("1.50");
-    private static final BigDecimal BASE_PRICE_CAR_XL = new BigDecimal("2.00");
-    private static final BigDecimal BASE_PRICE_CAR_PLUS = new BigDecimal("2.25");
-    private static final BigDecimal MINIMUM_FARE = new BigDecimal("5.00");
+    private final DispatchService dispatchService;
+    private final ScheduledRideDispatcher scheduledRideDispatcher;
+    private final RoutingEngine routingEngine;
+    private final SurgePricingEngine surgePricingEngine;
+    private final PriceEstimateCache priceEstimateCache;
+    private final QuoteTokenService quoteTokenService;
+    private final ForkJoinPool pricingPool;
+    private final FareTariff fareTariff;
+    private final ActiveRideCache activeRideCache;
+    private final RideResponseMapper rideResponseMapper;
+    private final RideUpdateNotifier rideUpdateNotifier;
+    private final GeofenceService geofenceService;
     
     /**
      * Estimate price for a ride
      */
-    @Transactional(readOnly = true)
     public PriceEstimateResponse estimatePrice(PriceEstimateRequest request) {
-        log.info("Estimating price for ride type: {}", request.getRideType());
-        
-        // Calculate distance using Haversine formula
-        BigDecimal distanceKm = calculateDistance(
-            request.getPickupLatitude(),
-            request.getPickupLongitude(),
-            request.getDestinationLatitude(),
-            request.getDestinationLongitude()
+        log.debug("Estimating price for ride type: {}", request.getRideType());
+        if (!fareTariff.supports(request.getRideType())) {
+            throw new RuntimeException("Invalid ride type: " + request.getRideType());
+        }
+        
+        // Read the snapshot once so the cache key, the price and the reported epoch agree
+        SurgeSnapshot surge = surgePricingEngine.currentSnapshot();
+        PriceEstimateCache.EstimateKey key = priceEstimateCache.keyFor(
+            request.getPickupLatitude().doubleValue(),
+            request.getPickupLongitude().doubleValue(),
+            request.getDestinationLatitude().doubleValue(),
+            request.getDestinationLongitude().doubleValue(),
+            request.getRideType(),
+            surge
         );
         
-        // Calculate estimated duration (assuming average speed of 30 km/h in city)
-        int estimatedDurationMinutes = distanceKm
-            .divide(new BigDecimal("0.5"), 0, RoundingMode.HALF_UP)
-            .intValue();
+        // A hit may come from an earlier epoch with the same multiplier for this cell
+        PriceEstimateResponse estimate = priceEstimateCache.get(key, this::computeEstimate)
+            .toBuilder()
+            .surgeEpoch(surge.epoch())
+            .build();
         
-        // Calculate price based on ride type
-        BigDecimal price = calculatePrice(distanceKm, request.getRideType());
+        // The cached estimate is shared across requests; the quote binds this request's exact coordinates
+        String quoteToken = quoteTokenService.issue(
+            request.getPickupLatitude().doubleValue(),
+            request.getPickupLongitude().doubleValue(),
+            request.getDestinationLatitude().doubleValue(),
+            request.getDestinationLongitude().doubleValue(),
+            Ride.RideType.valueOf(key.rideType()),
+            estimate.getPrice(),
+            estimate.getDistanceKm(),
+            estimate.getEstimatedDurationMinutes(),
+            estimate.getSurgeEpoch(),
+            estimate.getSurgeMultiplier()
+        );
+        return estimate.toBuilder().quoteToken(quoteToken).build();
+    }
+    
+    private PriceEstimateResponse computeEstimate(PriceEstimateCache.EstimateKey key) {
+        double pickupLat = priceEstimateCache.cellCenter(key.pickupLat());
+        double pickupLng = priceEstimateCache.cellCenter(key.pickupLng());
+        
+        TripEstimate trip = estimateTrip(
+            pickupLat,
+            pickupLng,
+            priceEstimateCache.cellCenter(key.destinationLat()),
+            priceEstimateCache.cellCenter(key.destinationLng())
+        );
+        
+        // Calculate price based on ride type and the pickup cell's surge
+        BigDecimal price = fareTariff.price(trip.distanceKm(), key.rideType(), key.surgeMultiplier());
         
         return PriceEstimateResponse.builder()
             .price(price)
-            .distanceKm(distanceKm.setScale(2, RoundingMode.HALF_UP))
-            .estimatedDurationMinutes(estimatedDurationMinutes)
-            .rideType(request.getRideType())
+            .distanceKm(trip.distanceKm().setScale(2, RoundingMode.HALF_UP))
+            .estimatedDurationMinutes(trip.durationMinutes())
+            .rideType(key.rideType())
+            .surgeMultiplier(BigDecimal.valueOf(key.surgeMultiplier()))
+            .build();
+    }
+    
+    /**
+     * Fares for every requested ride type from one pickup to several destinations.
+     * Each pickup/destination pair is routed once, and pairs run in parallel.
+     */
+    public FareMatrixResponse estimateFareMatrix(FareMatrixRequest request) {
+        List<String> rideTypes;
+        if (request.getRideTypes() == null || request.getRideTypes().isEmpty()) {
+            rideTypes = Arrays.stream(Ride.RideType.values()).map(Enum::name).collect(Collectors.toList());
+        } else {
+            rideTypes = request.getRideTypes().stream().map(String::toUpperCase).distinct().collect(Collectors.toList());
+            // Checked before fanning out, since this endpoint is open to unauthenticated callers
+            for (String rideType : rideTypes) {
+                if (!fareTariff.supports(rideType)) {
+                    throw new RuntimeException("Invalid ride type: " + rideType);
+                }
+            }
+        }
+        
+        double pickupLat = request.getPickupLatitude().doubleValue();
+        double pickupLng = request.getPickupLongitude().doubleValue();
+        SurgeSnapshot surge = surgePricingEngine.currentSnapshot();
+        double surgeMultiplier = surge.multiplierAt(pickupLat, pickupLng);
+        
+        List<Callable<FareMatrixResponse.DestinationFares>> tasks = request.getDestinations().stream()
+            .map(destination -> (Callable<FareMatrixResponse.DestinationFares>) () ->
+                destinationFares(pickupLat, pickupLng, destination, rideTypes, surgeMultiplier))
+            .collect(Collectors.toList());
+        
+        List<FareMatrixResponse.DestinationFares> destinations = new ArrayList<>(tasks.size());
+        for (Future<FareMatrixResponse.DestinationFares> future : pricingPool.invokeAll(tasks)) {
+            try {
+                destinations.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Fare estimation interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Fare estimation failed: " + e.getCause().getMessage());
+            }
+        }
+        
+        return FareMatrixResponse.builder()
+            .pickupLatitude(request.getPickupLatitude())
+            .pickupLongitude(request.getPickupLongitude())
+            .surgeMultiplier(BigDecimal.valueOf(surgeMultiplier))
+            .surgeEpoch(surge.epoch())
+            .destinations(destinations)
+            .build();
+    }
+    
+    private FareMatrixResponse.DestinationFares destinationFares(double pickupLat, double pickupLng,
+                                                                 FareMatrixRequest.Destination destination,
+                                                                 List<String> rideTypes,
+                                                                 double surgeMultiplier) {
+        TripEstimate trip = estimateTrip(pickupLat, pickupLng,
+            destination.getLatitude().doubleValue(), destination.getLongitude().doubleValue());
+        
+        List<FareMatrixResponse.Fare> fares = new ArrayList<>(rideTypes.size());
+        for (String rideType : rideTypes) {
+            fares.add(FareMatrixResponse.Fare.builder()
+                .rideType(rideType)
+                .price(fareTariff.price(trip.distanceKm(), rideType, surgeMultiplier))
+                .build());
+        }
+        
+        return FareMatrixResponse.DestinationFares.builder()
+            .latitude(destination.getLatitude())
+            .longitude(destination.getLongitude())
+            .label(destination.getLabel())
+            .distanceKm(trip.distanceKm())
+            .estimatedDurationMinutes(trip.durationMinutes())
+            .fares(fares)
             .build();
     }
     
@@ -88,6 +223,25 @@ public class RideService {
             throw new RuntimeException("Invalid ride type: " + request.getRideType());
         }
         
+        // Price, distance and duration come from the signed quote, not from the client or a recomputation
+        QuoteTokenService.Quote quote = quoteTokenService.verify(request.getQuoteToken());
+        if (quote.rideType() != rideType || !quote.covers(
+                request.getPickupLatitude().doubleValue(),
+                request.getPickupLongitude().doubleValue(),
+                request.getDestinationLatitude().doubleValue(),
+                request.getDestinationLongitude().doubleValue())) {
+            throw new RuntimeException("Price quote does not match this ride");
+        }
+        
+        geofenceService.checkRide(
+            request.getPickupLatitude().doubleValue(),
+            request.getPickupLongitude().doubleValue(),
+            request.getDestinationLatitude().doubleValue(),
+            request.getDestinationLongitude().doubleValue());
+        
+        surgePricingEngine.recordRequest(
+            request.getPickupLatitude().doubleValue(), request.getPickupLongitude().doubleValue());
+        
         // Create ride
         Ride ride = Ride.builder()
             .userId(userId)
@@ -99,33 +253,24 @@ public class RideService {
             .destinationAddress(request.getDestinationAddress())
             .rideType(rideType)
             .status(Ride.RideStatus.PENDING)
-            .price(request.getPrice())
+            .price(quote.price())
+            .surgeMultiplier(quote.surgeMultiplier())
+            .distanceKm(quote.distanceKm())
+            .estimatedDurationMinutes(quote.durationMinutes())
             .scheduledDateTime(request.getScheduledDateTime())
             .build();
         
-        // Calculate distance
-        BigDecimal distanceKm = calculateDistance(
-            request.getPickupLatitude(),
-            request.getPickupLongitude(),
-            request.getDestinationLatitude(),
-            request.getDestinationLongitude()
-        );
-        ride.setDistanceKm(distanceKm);
-        
-        // Calculate estimated duration
-        int estimatedDurationMinutes = distanceKm
-            .divide(new BigDecimal("0.5"), 0, RoundingMode.HALF_UP)
-            .intValue();
-        ride.setEstimatedDurationMinutes(estimatedDurationMinutes);
+        ride = rideRepository.save(ride);
+        log.info("Ride booked with ID: {}", ride.getId());
+        rideUpdateNotifier.rideChanged(ride);
         
-        // If not scheduled, try to assign driver immediately
+        // If not scheduled, hand the ride to dispatch immediately
         if (request.getScheduledDateTime() == null) {
-            assignDriver(ride);
+            dispatchService.dispatch(ride);
+        } else {
+            scheduledRideDispatcher.schedule(ride);
         }
         
-        ride = rideRepository.save(ride);
-        log.info("Ride booked with ID: {}", ride.getId());
-        
         return mapToRideResponse(ride);
     }
     
@@ -162,18 +307,63 @@ public class RideService {
             rides = rideRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
         }
         
-        return rides.getContent().stream()
-            .map(this::mapToRideResponse)
-            .collect(Collectors.toList());
+        return mapToRideResponses(rides.getContent());
+    }
+    
+    /**
+     * Get one page of ride history after an opaque cursor (null for the first page)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<RideResponse> getRideHistoryPage(Long userId, String cursor, int size, String status) {
+        log.info("Getting ride history page for user: {}, status: {}", userId, status);
+        
+        Ride.RideStatus rideStatus = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                rideStatus = Ride.RideStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid status: {}, returning all rides", status);
+            }
+        }
+        
+        Pageable limit = PageRequest.of(0, size);
+        KeysetCursor after = cursor != null && !cursor.isEmpty() ? KeysetCursor.decode(cursor) : null;
+        
+        Slice<Ride> rides;
+        if (after == null) {
+            rides = rideStatus != null
+                ? rideRepository.findByUserIdAndStatusOrderByCreatedAtDescIdDesc(userId, rideStatus, limit)
+                : rideRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+        } else {
+            rides = rideStatus != null
+                ? rideRepository.findByUserIdAndStatusBefore(userId, rideStatus, after.createdAt(), after.id(), limit)
+                : rideRepository.findByUserIdBefore(userId, after.createdAt(), after.id(), limit);
+        }
+        
+        String nextCursor = null;
+        if (rides.hasNext()) {
+            Ride last = rides.getContent().get(rides.getNumberOfElements() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return CursorPageResponse.<RideResponse>builder()
+            .items(mapToRideResponses(rides.getContent()))
+            .nextCursor(nextCursor)
+            .hasMore(rides.hasNext())
+            .build();
     }
     
     /**
      * Get ongoing/active rides for a user
      * Ongoing rides are: PENDING, DRIVER_ASSIGNED, DRIVER_EN_ROUTE, ARRIVED, IN_PROGRESS
+     * Served from the active-ride cache, with driver positions joined on every read
      */
-    @Transactional(readOnly = true)
     public List<RideResponse> getOngoingRides(Long userId) {
-        log.info("Getting ongoing rides for user: {}", userId);
+        return rideResponseMapper.withLivePositions(activeRideCache.get(userId, () -> loadOngoingRides(userId)));
+    }
+    
+    private List<RideResponse> loadOngoingRides(Long userId) {
+        log.info("Loading ongoing rides for user: {}", userId);
         
         List<Ride.RideStatus> ongoingStatuses = List.of(
             Ride.RideStatus.PENDING,
@@ -185,10 +375,8 @@ public class RideService {
         
         List<Ride> rides = rideRepository.findByUserIdAndStatusIn(userId, ongoingStatuses);
         
-        return rides.stream()
-            .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
-            .map(this::mapToRideResponse)
-            .collect(Collectors.toList());
+        // Already ordered newest first by the query
+        return rideResponseMapper.toCacheableResponses(rides);
     }
     
     /**
@@ -208,9 +396,7 @@ public class RideService {
             .filter(ride -> ride.getStatus() != Ride.RideStatus.CANCELLED)
             .collect(Collectors.toList());
         
-        return rides.stream()
-            .map(this::mapToRideResponse)
-            .collect(Collectors.toList());
+        return mapToRideResponses(rides);
     }
     
     /**
@@ -220,7 +406,10 @@ public class RideService {
     public RideResponse cancelRide(Long userId, Long rideId, String reason) {
         log.info("Cancelling ride {} for user: {}", rideId, userId);
         
-        Ride ride = rideRepository.findByIdAndUserId(rideId, userId)
+        // Lock the row so a dispatch worker matching it concurrently finishes first
+        // and the driver it assigned is released below
+        Ride ride = rideRepository.findByIdForUpdate(rideId)
+            .filter(found -> found.getUserId().equals(userId))
             .orElseThrow(() -> new RuntimeException("Ride not found"));
         
         if (ride.getStatus() == Ride.RideStatus.COMPLETED) {
@@ -237,154 +426,46 @@ public class RideService {
         
         // If driver was assigned, make them available again
         if (ride.getDriverId() != null) {
-            driverRepository.findById(ride.getDriverId()).ifPresent(driver -> {
-                driver.setIsAvailable(true);
-                driverRepository.save(driver);
-            });
+            dispatchService.releaseDriver(ride.getDriverId());
         }
         
         ride = rideRepository.save(ride);
         log.info("Ride cancelled successfully");
+        rideUpdateNotifier.rideChanged(ride);
         
         return mapToRideResponse(ride);
     }
     
     /**
-     * Assign a driver to a ride
+     * Road distance and duration from the routing engine, or a straight-line
+     * estimate at 30 km/h when no road graph is available
      */
-    private void assignDriver(Ride ride) {
-        log.info("Assigning driver for ride type: {}", ride.getRideType());
-        
-        List<Driver> availableDrivers;
-        
-        // Find nearest available driver matching vehicle type
-        String vehicleType = ride.getRideType().name();
-        availableDrivers = driverRepository.findNearestAvailableDriversByVehicleType(
-            ride.getPickupLatitude(),
-            ride.getPickupLongitude(),
-            vehicleType
-        );
-        
-        // If no driver with exact vehicle type, find any available driver
-        if (availableDrivers.isEmpty()) {
-            availableDrivers = driverRepository.findNearestAvailableDrivers(
-                ride.getPickupLatitude(),
-                ride.getPickupLongitude()
+    private TripEstimate estimateTrip(double fromLat, double fromLng, double toLat, double toLng) {
+        RoutingEngine.Route route = routingEngine.route(fromLat, fromLng, toLat, toLng);
+        if (route != null) {
+            return new TripEstimate(
+                BigDecimal.valueOf(Math.round(route.distanceKm() * 100), 2),
+                (int) Math.round(route.durationSeconds() / 60.0)
             );
         }
         
-        if (!availableDrivers.isEmpty()) {
-            Driver driver = availableDrivers.get(0);
-            ride.setDriverId(driver.getId());
-            ride.setStatus(Ride.RideStatus.DRIVER_ASSIGNED);
-            
-            // Mark driver as unavailable
-            driver.setIsAvailable(false);
-            driverRepository.save(driver);
-            
-            log.info("Driver {} assigned to ride {}", driver.getId(), ride.getId());
-        } else {
-            log.warn("No available drivers found for ride {}", ride.getId());
-        }
+        // Distance in hundredths of a km, rounded once; 30 km/h is 2 minutes per km
+        long distanceCentiKm = Math.round(GeoMath.haversineKm(fromLat, fromLng, toLat, toLng) * 100);
+        int estimatedDurationMinutes = (int) ((distanceCentiKm * 2 + 50) / 100);
+        return new TripEstimate(BigDecimal.valueOf(distanceCentiKm, 2), estimatedDurationMinutes);
     }
     
     /**
-     * Calculate distance between two points using Haversine formula
+     * Map Ride entity to RideResponse DTO
      */
-    private BigDecimal calculateDistance(BigDecimal lat1, BigDecimal lng1, 
-                                       BigDecimal lat2, BigDecimal lng2) {
-        final int EARTH_RADIUS_KM = 6371;
-        
-        double lat1Rad = Math.toRadians(lat1.doubleValue());
-        double lat2Rad = Math.toRadians(lat2.doubleValue());
-        double deltaLat = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
-        double deltaLng = Math.toRadians(lng2.doubleValue() - lng1.doubleValue());
-        
-        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
-                   Math.cos(lat1Rad) * Math.cos(lat2Rad) *
-                   Math.sin(deltaLng / 2) * Math.sin(deltaLng / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = EARTH_RADIUS_KM * c;
-        
-        return BigDecimal.valueOf(distance).setScale(2, RoundingMode.HALF_UP);
+    private RideResponse mapToRideResponse(Ride ride) {
+        return rideResponseMapper.toResponse(ride);
     }
     
-    /**
-     * Calculate price based on distance and ride type
-     */
-    private BigDecimal calculatePrice(BigDecimal distanceKm, String rideType) {
-        BigDecimal basePrice;
-        
-        switch (rideType.toUpperCase()) {
-            case "CAR":
-                basePrice = BASE_PRICE_CAR;
-                break;
-            case "CAR_XL":
-                basePrice = BASE_PRICE_CAR_XL;
-                break;
-            case "CAR_PLUS":
-                basePrice = BASE_PRICE_CAR_PLUS;
-                break;
-            default:
-                basePrice = BASE_PRICE_CAR;
-        }
-        
-        BigDecimal price = distanceKm.multiply(basePrice);
-        
-        // Apply minimum fare
-        if (price.compareTo(MINIMUM_FARE) < 0) {
-            price = MINIMUM_FARE;
-        }
-        
-        return price.setScale(2, RoundingMode.HALF_UP);
+    private List<RideResponse> mapToRideResponses(List<Ride> rides) {
+        return rideResponseMapper.toResponses(rides);
     }
     
-    /**
-     * Map Ride entity to RideResponse DTO
-     */
-    private RideResponse mapToRideResponse(Ride ride) {
-        RideResponse.RideResponseBuilder builder = RideResponse.builder()
-            .id(ride.getId())
-            .userId(ride.getUserId())
-            .driverId(ride.getDriverId())
-            .pickupLatitude(ride.getPickupLatitude())
-            .pickupLongitude(ride.getPickupLongitude())
-            .pickupAddress(ride.getPickupAddress())
-            .destinationLatitude(ride.getDestinationLatitude())
-            .destinationLongitude(ride.getDestinationLongitude())
-            .destinationAddress(ride.getDestinationAddress())
-            .rideType(ride.getRideType().name())
-            .status(ride.getStatus().name())
-            .price(ride.getPrice())
-            .distanceKm(ride.getDistanceKm())
-            .estimatedDurationMinutes(ride.getEstimatedDurationMinutes())
-            .scheduledDateTime(ride.getScheduledDateTime())
-            .startedAt(ride.getStartedAt())
-            .completedAt(ride.getCompletedAt())
-            .cancelledAt(ride.getCancelledAt())
-            .cancellationReason(ride.getCancellationReason())
-            .createdAt(ride.getCreatedAt())
-            .updatedAt(ride.getUpdatedAt());
-        
-        // If driver is assigned, fetch driver info
-        if (ride.getDriverId() != null) {
-            driverRepository.findById(ride.getDriverId()).ifPresent(driver -> {
-                User driverUser = userRepository.findById(driver.getUserId()).orElse(null);
-                builder.driver(RideResponse.DriverInfo.builder()
-                    .id(driver.getId())
-                    .name(driverUser != null ? driverUser.getFullName() : "Driver")
-                    .phoneNumber(driverUser != null ? driverUser.getPhoneNumber() : null)
-                    .rating(driver.getRating())
-                    .vehicleType(driver.getVehicleType())
-                    .vehicleNumber(driver.getVehicleNumber())
-                    .currentLatitude(driver.getCurrentLatitude())
-                    .currentLongitude(driver.getCurrentLongitude())
-                    .build());
-            });
-        }
-        
-        return builder.build();
+    private record TripEstimate(BigDecimal distanceKm, int durationMinutes) {
     }
 }
-
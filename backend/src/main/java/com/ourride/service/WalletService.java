@@ -1,16 +1,19 @@
 package com.ourride.service;
 
 import com.ourride.dto.request.TopUpRequest;
+import com.ourride.dto.response.CursorPageResponse;
 import com.ourride.dto.response.WalletTransactionResponse;
 import com.ourride.model.entity.User;
 import com.ourride.model.entity.WalletTransaction;
 import com.ourride.repository.UserRepository;
 import com.ourride.repository.WalletTransactionRepository;
+import com.ourride.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -96,6 +99,36 @@ public class WalletService {
             .collect(Collectors.toList());
     }
     
+    /**
+     * Get one page of wallet transactions after an opaque cursor (null for the first page)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<WalletTransactionResponse> getTransactionPage(Long userId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size);
+        
+        Slice<WalletTransaction> transactions;
+        if (cursor == null || cursor.isEmpty()) {
+            transactions = walletTransactionRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            transactions = walletTransactionRepository.findByUserIdBefore(userId, after.createdAt(), after.id(), limit);
+        }
+        
+        String nextCursor = null;
+        if (transactions.hasNext()) {
+            WalletTransaction last = transactions.getContent().get(transactions.getNumberOfElements() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return CursorPageResponse.<WalletTransactionResponse>builder()
+            .items(transactions.getContent().stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList()))
+            .nextCursor(nextCursor)
+            .hasMore(transactions.hasNext())
+            .build();
+    }
+    
     /**
      * Get top-up transactions only
      */
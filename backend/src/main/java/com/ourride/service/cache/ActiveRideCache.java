@@ -0,0 +1,201 @@
+package com.ourride.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ourride.dto.response.RideResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Two-level cache of each user's ongoing rides.
+ *
+ * L1 is a per-node Caffeine map and L2 a shared Redis key, so the polling
+ * path normally runs no SQL. Every ride status transition calls
+ * {@link #invalidate(Long)}, which drops both levels after commit and tells
+ * other nodes over pub/sub to drop their L1 copy.
+ *
+ * A load that raced with an invalidation must not cache the state it read
+ * before the transition. For L2 each user has a version key in Redis that
+ * every invalidation increments; a loader reads it first and writes only if
+ * it is unchanged, checked and written in one script so any node's
+ * invalidation wins. For L1 a striped node-local generation counter, bumped
+ * by the pub/sub message as well, does the same.
+ *
+ * Cached responses leave out the driver's live position, which callers join
+ * on read.
+ */
+@Component
+@Slf4j
+public class ActiveRideCache {
+    
+    private static final String KEY_PREFIX = "rides:active:";
+    private static final String VERSION_KEY_PREFIX = "rides:active:version:";
+    private static final String INVALIDATION_CHANNEL = "rides:active:invalidate";
+    // KEYS: version, rides; ARGV: version read before loading, rides JSON, TTL seconds
+    private static final RedisScript<Long> WRITE_IF_CURRENT = new DefaultRedisScript<>(
+        "if (redis.call('GET', KEYS[1]) or '0') == ARGV[1] then "
+            + "redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3]) return 1 end return 0",
+        Long.class);
+    // KEYS: version, rides; ARGV: version TTL seconds
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+        "local v = redis.call('INCR', KEYS[1]) redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "redis.call('DEL', KEYS[2]) return v",
+        Long.class);
+    private static final int GENERATION_STRIPES = 1024;
+    private static final TypeReference<List<RideResponse>> RIDE_LIST = new TypeReference<>() {
+    };
+    
+    private final Cache<Long, List<RideResponse>> local;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration remoteTtl;
+    private final Duration versionTtl;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    
+    public ActiveRideCache(RedisTemplate<String, String> redisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${rides.active-cache.max-size:100000}") long maxSize,
+                           @Value("${rides.active-cache.local-ttl-seconds:30}") long localTtlSeconds,
+                           @Value("${rides.active-cache.remote-ttl-seconds:120}") long remoteTtlSeconds,
+                           @Value("${rides.active-cache.version-ttl-seconds:86400}") long versionTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.remoteTtl = Duration.ofSeconds(remoteTtlSeconds);
+        this.versionTtl = Duration.ofSeconds(versionTtlSeconds);
+        this.local = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "active-rides");
+        
+        listenerContainer.addMessageListener((message, pattern) -> {
+            Long userId = Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8));
+            bumpGeneration(userId);
+            local.invalidate(userId);
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+    
+    /**
+     * Ongoing rides for a user from L1, then L2, then the loader
+     */
+    public List<RideResponse> get(Long userId, Supplier<List<RideResponse>> loader) {
+        List<RideResponse> rides = local.getIfPresent(userId);
+        if (rides != null) {
+            return rides;
+        }
+        
+        long generation = generationOf(userId);
+        
+        rides = readRemote(userId);
+        if (rides == null) {
+            String version = readVersion(userId);
+            rides = List.copyOf(loader.get());
+            if (version != null) {
+                writeRemote(userId, rides, version);
+            }
+        }
+        
+        if (generationOf(userId) == generation) {
+            local.put(userId, rides);
+        }
+        return rides;
+    }
+    
+    /**
+     * Drop a user's cached rides once the current transaction commits
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+    
+    private void evict(Long userId) {
+        bumpGeneration(userId);
+        local.invalidate(userId);
+        try {
+            redisTemplate.execute(INVALIDATE, List.of(VERSION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                String.valueOf(versionTtl.toSeconds()));
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, userId.toString());
+        } catch (DataAccessException e) {
+            log.warn("Could not invalidate active rides for user {} in Redis: {}", userId, e.getMessage());
+        }
+    }
+    
+    private List<RideResponse> readRemote(Long userId) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            return json != null ? objectMapper.readValue(json, RIDE_LIST) : null;
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not read active rides for user {} from Redis: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * The user's L2 version, "0" before the first invalidation; null when Redis is unreachable
+     */
+    private String readVersion(Long userId) {
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+            return version != null ? version : "0";
+        } catch (DataAccessException e) {
+            log.warn("Could not read active rides version for user {} from Redis: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Store the loaded rides unless some node invalidated the user since {@code version} was read
+     */
+    private void writeRemote(Long userId, List<RideResponse> rides, String version) {
+        try {
+            redisTemplate.execute(WRITE_IF_CURRENT, List.of(VERSION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                version, objectMapper.writeValueAsString(rides), String.valueOf(remoteTtl.toSeconds()));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not write active rides for user {} to Redis: {}", userId, e.getMessage());
+        }
+    }
+    
+    private long generationOf(Long userId) {
+        return generations.get(stripe(userId));
+    }
+    
+    private void bumpGeneration(Long userId) {
+        generations.incrementAndGet(stripe(userId));
+    }
+    
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+}
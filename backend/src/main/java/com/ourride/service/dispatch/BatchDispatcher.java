@@ -0,0 +1,165 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import com.ourride.service.push.RideUpdateNotifier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Window-based dispatcher used when {@code dispatch.mode=BATCH}.
+ *
+ * Rides queued during a window are matched together: every ride is scored
+ * against the nearby drivers of all rides in the batch and the assignment
+ * with the lowest total pickup distance wins. Rides are loaded and saved
+ * once per window rather than once per ride, and their rows stay locked
+ * until the window commits so a concurrent cancellation is not overwritten.
+ * A window that rolls back puts its rides back in the queue.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BatchDispatcher {
+    
+    // Prefer a matching vehicle unless another type is this much closer
+    private static final double VEHICLE_MISMATCH_PENALTY_KM = 5.0;
+    
+    private final RideRepository rideRepository;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final DriverReservationService driverReservationService;
+    private final RematchQueue rematchQueue;
+    private final RideUpdateNotifier rideUpdateNotifier;
+    
+    private final Queue<Long> pendingRideIds = new ConcurrentLinkedQueue<>();
+    
+    @Value("${dispatch.batch.max-size:200}")
+    private int maxBatchSize;
+    
+    @Value("${dispatch.search-radius-km:10}")
+    private double searchRadiusKm;
+    
+    @Value("${dispatch.candidate-limit:5}")
+    private int candidateLimit;
+    
+    /**
+     * Queue a committed PENDING ride for the next dispatch window
+     */
+    public void enqueue(Long rideId) {
+        pendingRideIds.add(rideId);
+    }
+    
+    public int getQueueDepth() {
+        return pendingRideIds.size();
+    }
+    
+    /**
+     * Match all rides collected since the last window
+     */
+    @Scheduled(fixedDelayString = "${dispatch.batch.window-ms:1500}")
+    @Transactional
+    public void dispatchWindow() {
+        if (pendingRideIds.isEmpty()) {
+            return;
+        }
+        
+        List<Long> rideIds = new ArrayList<>();
+        Long rideId;
+        while (rideIds.size() < maxBatchSize && (rideId = pendingRideIds.poll()) != null) {
+            rideIds.add(rideId);
+        }
+        // The ids are only in memory; if the window rolls back they wait for the next one
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.warn("Batch dispatch window rolled back, re-queueing {} rides", rideIds.size());
+                    pendingRideIds.addAll(rideIds);
+                }
+            }
+        });
+        
+        List<Ride> rides = rideRepository.findAllByIdForUpdate(rideIds).stream()
+            .filter(ride -> ride.getStatus() == Ride.RideStatus.PENDING && ride.getDriverId() == null)
+            .collect(Collectors.toList());
+        if (rides.isEmpty()) {
+            return;
+        }
+        
+        // Gather candidate drivers per ride; columns are the union across the batch
+        Map<Long, Integer> driverColumns = new LinkedHashMap<>();
+        List<Map<Long, Double>> rideCosts = new ArrayList<>(rides.size());
+        for (Ride ride : rides) {
+            rideCosts.add(candidateCosts(ride, driverColumns));
+        }
+        
+        double[][] cost = new double[rides.size()][driverColumns.size()];
+        for (int i = 0; i < rides.size(); i++) {
+            Arrays.fill(cost[i], HungarianAssignment.INFEASIBLE);
+            for (Map.Entry<Long, Double> entry : rideCosts.get(i).entrySet()) {
+                cost[i][driverColumns.get(entry.getKey())] = entry.getValue();
+            }
+        }
+        
+        int[] assignment = HungarianAssignment.solve(cost);
+        List<Long> columnDriverIds = new ArrayList<>(driverColumns.keySet());
+        
+        List<Ride> matchedRides = new ArrayList<>();
+        for (int i = 0; i < rides.size(); i++) {
+            Ride ride = rides.get(i);
+            // A greedy booking may have claimed the driver since the matrix was built
+            Long driverId = assignment[i] >= 0 ? columnDriverIds.get(assignment[i]) : null;
+            if (driverId == null || !driverReservationService.tryReserve(driverId)) {
+                log.warn("No available drivers found for ride {}, queueing for re-match", ride.getId());
+                rematchQueue.enqueue(ride);
+                continue;
+            }
+            
+            ride.setDriverId(driverId);
+            ride.setStatus(Ride.RideStatus.DRIVER_ASSIGNED);
+            rideUpdateNotifier.rideChanged(ride);
+            matchedRides.add(ride);
+        }
+        
+        rideRepository.saveAll(matchedRides);
+        log.info("Batch dispatch matched {} of {} rides against {} candidate drivers",
+            matchedRides.size(), rides.size(), driverColumns.size());
+    }
+    
+    private Map<Long, Double> candidateCosts(Ride ride, Map<Long, Integer> driverColumns) {
+        double pickupLat = ride.getPickupLatitude().doubleValue();
+        double pickupLng = ride.getPickupLongitude().doubleValue();
+        String vehicleType = ride.getRideType().name();
+        
+        Map<Long, Double> costs = new HashMap<>();
+        for (DriverSpatialIndex.Candidate candidate : driverSpatialIndex.findNearest(
+                pickupLat, pickupLng, null, candidateLimit * 2, searchRadiusKm)) {
+            double penalty = vehicleType.equals(candidate.vehicleType()) ? 0 : VEHICLE_MISMATCH_PENALTY_KM;
+            costs.put(candidate.driverId(), candidate.distanceKm() + penalty);
+        }
+        for (DriverSpatialIndex.Candidate candidate : driverSpatialIndex.findNearest(
+                pickupLat, pickupLng, vehicleType, candidateLimit, searchRadiusKm)) {
+            costs.put(candidate.driverId(), candidate.distanceKm());
+        }
+        
+        for (Long driverId : costs.keySet()) {
+            driverColumns.putIfAbsent(driverId, driverColumns.size());
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ourride.service.dispatch;
+
+/**
+ * How newly booked rides are matched to drivers
+ */
+public enum DispatchMode {
+    /** Assign the nearest driver inside the booking transaction, one ride at a time */
+    GREEDY,
+    /** Collect rides for a short window and solve a global assignment for the batch */
+    BATCH
+}
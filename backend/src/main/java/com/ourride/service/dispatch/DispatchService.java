@@ -0,0 +1,161 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.service.routing.RoutingEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchService {
+    
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final DriverReservationService driverReservationService;
+    private final RematchQueue rematchQueue;
+    private final RoutingEngine routingEngine;
+    private final BatchDispatcher batchDispatcher;
+    private final RideUpdateNotifier rideUpdateNotifier;
+    private final DispatchWorkerPool dispatchWorkerPool;
+    
+    @Value("${dispatch.mode:GREEDY}")
+    private DispatchMode mode;
+    
+    @Value("${dispatch.search-radius-km:10}")
+    private double searchRadiusKm;
+    
+    @Value("${dispatch.candidate-limit:5}")
+    private int candidateLimit;
+    
+    /**
+     * Hand a freshly saved ride to the configured dispatch mode. Matching
+     * never runs in the caller's transaction; the ride is queued once it
+     * commits.
+     */
+    public void dispatch(Ride ride) {
+        if (mode == DispatchMode.BATCH) {
+            Long rideId = ride.getId();
+            // Only queue once the ride row is visible to the dispatcher's own transaction
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        batchDispatcher.enqueue(rideId);
+                    }
+                });
+            } else {
+                batchDispatcher.enqueue(rideId);
+            }
+            log.info("Ride {} queued for batch dispatch", rideId);
+        } else {
+            dispatchWorkerPool.submit(ride.getId());
+            log.info("Ride {} queued for dispatch", ride.getId());
+        }
+    }
+    
+    /**
+     * Hand a committed PENDING ride found on startup to the configured dispatch mode
+     */
+    public void redispatch(Long rideId) {
+        if (mode == DispatchMode.BATCH) {
+            batchDispatcher.enqueue(rideId);
+        } else {
+            dispatchWorkerPool.submit(rideId);
+        }
+    }
+    
+    /**
+     * Assign the nearest available driver to a ride
+     */
+    public void assignDriver(Ride ride) {
+        log.info("Assigning driver for ride type: {}", ride.getRideType());
+        
+        double pickupLat = ride.getPickupLatitude().doubleValue();
+        double pickupLng = ride.getPickupLongitude().doubleValue();
+        
+        // Find nearest available drivers matching vehicle type
+        String vehicleType = ride.getRideType().name();
+        List<DriverSpatialIndex.Candidate> candidates = driverSpatialIndex.findNearest(
+            pickupLat, pickupLng, vehicleType, candidateLimit, searchRadiusKm);
+        
+        // If no driver with exact vehicle type, find any available driver
+        if (candidates.isEmpty()) {
+            candidates = driverSpatialIndex.findNearest(
+                pickupLat, pickupLng, null, candidateLimit, searchRadiusKm);
+        }
+        
+        candidates = rankByTravelTime(candidates, pickupLat, pickupLng);
+        
+        for (DriverSpatialIndex.Candidate candidate : candidates) {
+            // Losing the race for a driver just means trying the next nearest one
+            if (!driverReservationService.tryReserve(candidate.driverId())) {
+                continue;
+            }
+            
+            ride.setDriverId(candidate.driverId());
+            ride.setStatus(Ride.RideStatus.DRIVER_ASSIGNED);
+            rideUpdateNotifier.rideChanged(ride);
+            
+            log.info("Driver {} assigned to ride {} ({} km away)", candidate.driverId(), ride.getId(),
+                String.format("%.2f", candidate.distanceKm()));
+            return;
+        }
+        
+        log.warn("No available drivers found for ride {}, queueing for re-match", ride.getId());
+        rematchQueue.enqueue(ride);
+    }
+    
+    /**
+     * Reorder straight-line candidates by road travel time to the pickup.
+     * Keeps the index order when no road graph is loaded.
+     */
+    private List<DriverSpatialIndex.Candidate> rankByTravelTime(List<DriverSpatialIndex.Candidate> candidates,
+                                                                double pickupLat, double pickupLng) {
+        if (candidates.size() < 2 || !routingEngine.isAvailable()) {
+            return candidates;
+        }
+        double[] lat = new double[candidates.size()];
+        double[] lng = new double[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            lat[i] = candidates.get(i).latitude();
+            lng[i] = candidates.get(i).longitude();
+        }
+        double[] seconds = routingEngine.travelSecondsTo(pickupLat, pickupLng, lat, lng);
+        if (seconds == null) {
+            return candidates;
+        }
+        
+        List<Integer> order = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            order.add(i);
+        }
+        // Unreachable drivers (NaN) go last, in their original distance order
+        order.sort(Comparator.comparingDouble(i -> Double.isNaN(seconds[i]) ? Double.MAX_VALUE : seconds[i]));
+        
+        List<DriverSpatialIndex.Candidate> ranked = new ArrayList<>(candidates.size());
+        for (int i : order) {
+            ranked.add(candidates.get(i));
+        }
+        return ranked;
+    }
+    
+    /**
+     * Make a driver available again (e.g. after a cancellation)
+     */
+    public void releaseDriver(Long driverId) {
+        driverReservationService.release(driverId);
+    }
+    
+    public DispatchMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,176 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches booked rides off the request thread.
+ *
+ * Booking commits the ride as PENDING and hands its id over here once the
+ * transaction commits; a fixed set of worker threads takes ids from a
+ * bounded in-memory queue and runs the greedy match, each in its own short
+ * transaction. The result reaches the rider through the usual ride update
+ * push. The PENDING rows themselves are the durable backlog: ids lost with
+ * the process are reloaded on startup, and the row is locked while it is
+ * matched so two nodes recovering the same ride cannot both assign it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchWorkerPool {
+    
+    private final RideRepository rideRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final RematchQueue rematchQueue;
+    // DispatchService hands rides to this pool and workers call back into it
+    private final ObjectProvider<DispatchService> dispatchService;
+    
+    @Value("${dispatch.async.workers:4}")
+    private int workerCount;
+    
+    @Value("${dispatch.async.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    private BlockingQueue<QueuedRide> queue;
+    private final Set<Long> queuedRideIds = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+    
+    private TransactionTemplate transactionTemplate;
+    private Timer queueWait;
+    private Timer matchTime;
+    
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("dispatch.async.queue.depth", queuedRideIds, Set::size);
+        queueWait = Timer.builder("dispatch.async.queue.wait")
+            .description("Time a booked ride waits before a dispatch worker picks it up")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        matchTime = Timer.builder("dispatch.async.match")
+            .description("Time a dispatch worker spends matching one ride")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "dispatch-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+    
+    /**
+     * Re-queue rides that were committed but never matched, e.g. because the
+     * process stopped before they were dispatched; in batch mode they go to
+     * the next batch window instead of these workers
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingRides() {
+        List<Long> rideIds = rideRepository.findUnassignedImmediateRideIds(Ride.RideStatus.PENDING);
+        DispatchService dispatch = dispatchService.getObject();
+        for (Long rideId : rideIds) {
+            dispatch.redispatch(rideId);
+        }
+        log.info("Recovered {} pending rides for {} dispatch", rideIds.size(), dispatch.getMode());
+    }
+    
+    /**
+     * Queue a ride for matching once the caller's transaction commits
+     */
+    public void submit(Long rideId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(rideId);
+                }
+            });
+        } else {
+            offer(rideId);
+        }
+    }
+    
+    public int getQueueDepth() {
+        return queuedRideIds.size();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+    
+    private void offer(Long rideId) {
+        if (!queuedRideIds.add(rideId)) {
+            return;
+        }
+        if (!queue.offer(new QueuedRide(rideId, System.nanoTime()))) {
+            queuedRideIds.remove(rideId);
+            // Still PENDING in the table; the re-match queue retries it with backoff
+            log.warn("Dispatch queue full, deferring ride {} to re-match", rideId);
+            rideRepository.findById(rideId).ifPresent(rematchQueue::enqueue);
+        }
+    }
+    
+    private void runWorker() {
+        while (running) {
+            QueuedRide queued;
+            try {
+                queued = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queuedRideIds.remove(queued.rideId());
+            queueWait.record(Duration.ofNanos(System.nanoTime() - queued.queuedAt()));
+            
+            try {
+                matchTime.record(() -> transactionTemplate.executeWithoutResult(status -> match(queued.rideId())));
+            } catch (RuntimeException e) {
+                log.error("Dispatch of ride {} failed: {}", queued.rideId(), e.getMessage());
+            }
+        }
+    }
+    
+    private void match(Long rideId) {
+        Ride ride = rideRepository.findByIdForUpdate(rideId).orElse(null);
+        if (ride == null || ride.getStatus() != Ride.RideStatus.PENDING || ride.getDriverId() != null) {
+            // Cancelled or matched elsewhere while queued
+            return;
+        }
+        dispatchService.getObject().assignDriver(ride);
+        if (ride.getDriverId() != null) {
+            rideRepository.save(ride);
+        }
+    }
+    
+    private record QueuedRide(Long rideId, long queuedAt) {
+    }
+}
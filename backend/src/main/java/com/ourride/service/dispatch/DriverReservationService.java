@@ -0,0 +1,76 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.repository.DriverRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Claims and releases drivers without row locks.
+ *
+ * A reservation first wins the in-memory slot in {@link DriverSpatialIndex}
+ * and is then confirmed by a conditional UPDATE, which only succeeds while
+ * the row is still available. Either step failing means another booking got
+ * the driver first, and the caller simply moves on to its next candidate.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverReservationService {
+    
+    private final DriverRepository driverRepository;
+    private final DriverSpatialIndex driverSpatialIndex;
+    
+    /**
+     * Try to reserve a driver inside the caller's transaction
+     */
+    @Transactional
+    public boolean tryReserve(Long driverId) {
+        if (!driverSpatialIndex.tryReserve(driverId)) {
+            return false;
+        }
+        
+        int reserved;
+        try {
+            reserved = driverRepository.reserveIfAvailable(driverId);
+        } catch (RuntimeException e) {
+            // Nothing was confirmed, so the slot must not stay closed (e.g. lock timeout, lost connection)
+            driverSpatialIndex.setAvailable(driverId, true);
+            throw e;
+        }
+        if (reserved == 0) {
+            // Table says the driver is already taken; leave the slot closed
+            log.debug("Driver {} was reserved in memory but is unavailable in the database", driverId);
+            return false;
+        }
+        
+        // If the booking rolls back, the row is available again, so the slot must be too
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    driverSpatialIndex.setAvailable(driverId, true);
+                }
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * Make a driver available again (e.g. after a cancellation)
+     */
+    @Transactional
+    public void release(Long driverId) {
+        driverRepository.markAvailable(driverId);
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                driverSpatialIndex.setAvailable(driverId, true);
+            }
+        });
+    }
+}
@@ -0,0 +1,278 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Driver;
+import com.ourride.repository.DriverRepository;
+import com.ourride.util.GeoMath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory grid index over driver positions.
+ *
+ * Drivers are bucketed per vehicle type into fixed-size lat/lng cells, so a
+ * nearest-driver lookup only visits the cells around the pickup point instead
+ * of scanning and sorting the whole fleet in SQL.
+ *
+ * Each driver also owns an availability slot that survives position updates.
+ * Dispatch claims a driver by compare-and-set on that slot, so concurrent
+ * bookings racing for the same driver are decided in memory before either
+ * touches the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DriverSpatialIndex {
+
+    // ~1.1 km along a meridian; small enough that a city block ring stays cheap
+    static final double CELL_SIZE_DEGREES = 0.01;
+
+    private final DriverRepository driverRepository;
+
+    private final Map<Long, IndexedDriver> drivers = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, Set<Long>>> cellsByVehicleType = new ConcurrentHashMap<>();
+
+    /**
+     * Load available drivers with a known position once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAvailableDrivers() {
+        List<Driver> available = driverRepository.findByIsAvailableTrue();
+        int loaded = 0;
+        for (Driver driver : available) {
+            if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+                upsert(driver.getId(), driver.getVehicleType(),
+                    driver.getCurrentLatitude().doubleValue(),
+                    driver.getCurrentLongitude().doubleValue(),
+                    true);
+                loaded++;
+            }
+        }
+        log.info("Driver spatial index loaded with {} available drivers", loaded);
+    }
+
+    /**
+     * Insert or move a driver in the index
+     */
+    public void upsert(Long driverId, String vehicleType, double latitude, double longitude, boolean available) {
+        long cell = cellKey(latitude, longitude);
+        drivers.compute(driverId, (id, previous) -> {
+            if (previous != null && (previous.cell != cell || !previous.vehicleType.equals(vehicleType))) {
+                removeFromCell(previous.vehicleType, previous.cell, id);
+            }
+            if (previous == null || previous.cell != cell || !previous.vehicleType.equals(vehicleType)) {
+                cellsByVehicleType
+                    .computeIfAbsent(vehicleType, type -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet())
+                    .add(id);
+            }
+            AtomicBoolean slot = previous != null ? previous.available : new AtomicBoolean();
+            slot.set(available);
+            return new IndexedDriver(id, vehicleType, latitude, longitude, cell, slot);
+        });
+    }
+
+    /**
+     * Update a driver's position, keeping its vehicle type and availability.
+     * Returns false when the driver is not tracked by the index.
+     */
+    public boolean updatePosition(Long driverId, double latitude, double longitude) {
+        long cell = cellKey(latitude, longitude);
+        IndexedDriver updated = drivers.computeIfPresent(driverId, (id, current) -> {
+            if (current.cell != cell) {
+                removeFromCell(current.vehicleType, current.cell, id);
+                cellsByVehicleType
+                    .computeIfAbsent(current.vehicleType, type -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet())
+                    .add(id);
+            }
+            return new IndexedDriver(id, current.vehicleType, latitude, longitude, cell, current.available);
+        });
+        return updated != null;
+    }
+
+    /**
+     * Overwrite a driver's availability without touching its position
+     */
+    public void setAvailable(Long driverId, boolean available) {
+        IndexedDriver current = drivers.get(driverId);
+        if (current != null) {
+            current.available.set(available);
+        }
+    }
+
+    /**
+     * Whether the driver is tracked and currently available
+     */
+    public boolean isAvailable(Long driverId) {
+        IndexedDriver current = drivers.get(driverId);
+        return current != null && current.available.get();
+    }
+    
+    /**
+     * Atomically claim an available driver. Only one caller can win a given
+     * driver until it is released again.
+     */
+    public boolean tryReserve(Long driverId) {
+        IndexedDriver current = drivers.get(driverId);
+        return current != null && current.available.compareAndSet(true, false);
+    }
+
+    /**
+     * Drop a driver from the index entirely (e.g. driver went offline)
+     */
+    public void remove(Long driverId) {
+        drivers.computeIfPresent(driverId, (id, current) -> {
+            removeFromCell(current.vehicleType, current.cell, id);
+            return null;
+        });
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    /**
+     * Visit the position of every available driver
+     */
+    public void forEachAvailable(PositionVisitor visitor) {
+        for (IndexedDriver driver : drivers.values()) {
+            if (driver.available.get()) {
+                visitor.visit(driver.latitude, driver.longitude);
+            }
+        }
+    }
+
+    /**
+     * Find up to {@code limit} nearest available drivers within {@code radiusKm}.
+     * A null vehicle type matches any vehicle.
+     */
+    public List<Candidate> findNearest(double latitude, double longitude, String vehicleType,
+                                       int limit, double radiusKm) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        List<Map<Long, Set<Long>>> grids = gridsFor(vehicleType);
+        if (grids.isEmpty()) {
+            return List.of();
+        }
+
+        int centerLat = cellIndex(latitude);
+        int centerLng = cellIndex(longitude);
+
+        // Narrowest cell dimension in km bounds how far each ring is guaranteed to be
+        double cellKm = CELL_SIZE_DEGREES * GeoMath.KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        int maxRing = (int) Math.ceil(radiusKm / cellKm) + 1;
+
+        List<Candidate> found = new ArrayList<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (Map<Long, Set<Long>> grid : grids) {
+                collectRing(grid, centerLat, centerLng, ring, latitude, longitude, radiusKm, found);
+            }
+
+            // Anything in the next ring is at least ring * cellKm away
+            if (found.size() >= limit) {
+                found.sort(Comparator.comparingDouble(Candidate::distanceKm));
+                if (found.get(limit - 1).distanceKm() <= ring * cellKm) {
+                    break;
+                }
+            }
+        }
+
+        found.sort(Comparator.comparingDouble(Candidate::distanceKm));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Find every available driver within {@code radiusKm}, nearest first
+     */
+    public List<Candidate> findWithinRadius(double latitude, double longitude, String vehicleType, double radiusKm) {
+        return findNearest(latitude, longitude, vehicleType, Integer.MAX_VALUE, radiusKm);
+    }
+
+    private void collectRing(Map<Long, Set<Long>> grid, int centerLat, int centerLng, int ring,
+                             double latitude, double longitude, double radiusKm, List<Candidate> found) {
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            boolean edgeRow = Math.abs(dLat) == ring;
+            for (int dLng = -ring; dLng <= ring; dLng++) {
+                // Only the perimeter of the square belongs to this ring
+                if (!edgeRow && Math.abs(dLng) != ring) {
+                    continue;
+                }
+                Set<Long> ids = grid.get(cellKey(centerLat + dLat, centerLng + dLng));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    IndexedDriver driver = drivers.get(id);
+                    if (driver == null || !driver.available.get()) {
+                        continue;
+                    }
+                    double distance = GeoMath.haversineKm(latitude, longitude, driver.latitude, driver.longitude);
+                    if (distance <= radiusKm) {
+                        found.add(new Candidate(id, driver.vehicleType, driver.latitude, driver.longitude, distance));
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Map<Long, Set<Long>>> gridsFor(String vehicleType) {
+        if (vehicleType == null) {
+            return new ArrayList<>(cellsByVehicleType.values());
+        }
+        Map<Long, Set<Long>> grid = cellsByVehicleType.get(vehicleType);
+        return grid == null ? Collections.emptyList() : List.of(grid);
+    }
+
+    private void removeFromCell(String vehicleType, long cell, Long driverId) {
+        Map<Long, Set<Long>> grid = cellsByVehicleType.get(vehicleType);
+        if (grid == null) {
+            return;
+        }
+        grid.computeIfPresent(cell, (key, ids) -> {
+            ids.remove(driverId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    static long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    static long cellKey(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+
+    private record IndexedDriver(Long id, String vehicleType, double latitude, double longitude,
+                                 long cell, AtomicBoolean available) {
+    }
+
+    @FunctionalInterface
+    public interface PositionVisitor {
+        void visit(double latitude, double longitude);
+    }
+
+    /**
+     * A driver returned by an index query, with its distance to the query point
+     */
+    public record Candidate(Long driverId, String vehicleType, double latitude, double longitude,
+                            double distanceKm) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.ourride.service.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for a large number of far-future deadlines.
+ *
+ * Level 0 has one slot per tick; each higher level has slots that span a
+ * full revolution of the level below. An entry is stored at the lowest
+ * level that can hold it and cascades down as time approaches its deadline,
+ * so scheduling is O(1) and advancing costs O(1) per tick plus the entries
+ * that actually move. Deadlines past the top level wait in an overflow list
+ * that is re-examined once per top-level revolution.
+ *
+ * Deadlines are rounded down to the tick, so entries may fire up to one
+ * tick early.
+ */
+public class HierarchicalTimingWheel<T> {
+    
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelUnits;
+    private final List<List<Entry<T>>> buckets;
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final List<T> expired = new ArrayList<>();
+    
+    private long currentTick;
+    private int size;
+    
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelUnits = new long[levels + 1];
+        levelUnits[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            levelUnits[level] = levelUnits[level - 1] * wheelSize;
+        }
+        this.buckets = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+    
+    /**
+     * Schedule an item; a deadline at or before the current time fires on the next advance
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        size++;
+        insert(new Entry<>(item, Math.floorDiv(deadlineMillis, tickMillis)));
+    }
+    
+    /**
+     * Move the wheel forward to {@code nowMillis} and return every item that became due
+     */
+    public synchronized List<T> advanceTo(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int levels = levelUnits.length - 1;
+        
+        while (currentTick < targetTick) {
+            currentTick++;
+            
+            if (currentTick % levelUnits[levels] == 0 && !overflow.isEmpty()) {
+                List<Entry<T>> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                waiting.forEach(this::insert);
+            }
+            
+            // Cascade coarse slots that start at this tick, highest level first
+            for (int level = levels - 1; level >= 1; level--) {
+                long unit = levelUnits[level];
+                if (currentTick % unit == 0) {
+                    List<Entry<T>> bucket = bucket(level, currentTick / unit);
+                    if (!bucket.isEmpty()) {
+                        List<Entry<T>> moving = new ArrayList<>(bucket);
+                        bucket.clear();
+                        moving.forEach(this::insert);
+                    }
+                }
+            }
+            
+            List<Entry<T>> due = bucket(0, currentTick);
+            for (Entry<T> entry : due) {
+                expired.add(entry.item);
+            }
+            due.clear();
+        }
+        
+        List<T> result = new ArrayList<>(expired);
+        size -= result.size();
+        expired.clear();
+        return result;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    private void insert(Entry<T> entry) {
+        if (entry.deadlineTick <= currentTick) {
+            expired.add(entry.item);
+            return;
+        }
+        for (int level = 0; level < levelUnits.length - 1; level++) {
+            long unit = levelUnits[level];
+            if (entry.deadlineTick / unit - currentTick / unit < wheelSize) {
+                bucket(level, entry.deadlineTick / unit).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+    
+    private List<Entry<T>> bucket(int level, long slot) {
+        return buckets.get(level * wheelSize + (int) Math.floorMod(slot, (long) wheelSize));
+    }
+    
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.ourride.service.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm, O(n^2 * m)).
+ *
+ * Rows are rides and columns are drivers. Pairs that must never be matched
+ * should carry a cost of {@link #INFEASIBLE}; such pairs are reported as
+ * unassigned rather than forced together.
+ */
+public final class HungarianAssignment {
+
+    public static final double INFEASIBLE = 1e9;
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * Solve the assignment for a rectangular cost matrix.
+     *
+     * @return for each row, the assigned column, or -1 when the row is unmatched
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int cols = cost[0].length;
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        if (cols == 0) {
+            return result;
+        }
+
+        if (rows <= cols) {
+            int[] rowToCol = solveTall(cost, rows, cols, false);
+            for (int i = 0; i < rows; i++) {
+                result[i] = rowToCol[i];
+            }
+        } else {
+            // The algorithm needs rows <= cols; solve the transpose and invert
+            int[] colToRow = solveTall(cost, cols, rows, true);
+            for (int j = 0; j < cols; j++) {
+                if (colToRow[j] >= 0) {
+                    result[colToRow[j]] = j;
+                }
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            if (result[i] >= 0 && cost[i][result[i]] >= INFEASIBLE) {
+                result[i] = -1;
+            }
+        }
+        return result;
+    }
+
+    private static int[] solveTall(double[][] cost, int n, int m, boolean transposed) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double c = transposed ? cost[j - 1][i0 - 1] : cost[i0 - 1][j - 1];
+                    double cur = c - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                assignment[p[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,318 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.util.GeoMath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries rides that found no driver.
+ *
+ * Each attempt waits exponentially longer and searches a wider radius, and
+ * after a few attempts some ride types accept a lower tier (CAR_PLUS may be
+ * served by a CAR). Due retries are grouped by index cell so a burst of
+ * unmatched rides in one area costs a single index query per pass. A ride
+ * that is still unmatched after {@code dispatch.rematch.max-attempts} is
+ * cancelled with {@link #NO_DRIVER_REASON}, which also tells the rider.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RematchQueue {
+    
+    public static final String NO_DRIVER_REASON = "No driver available";
+    
+    private static final Map<String, Set<String>> RELAXED_VEHICLE_TYPES = Map.of(
+        Ride.RideType.CAR_PLUS.name(), Set.of(Ride.RideType.CAR_PLUS.name(), Ride.RideType.CAR.name())
+    );
+    
+    // Two pickups in the same grid cell are at most one diagonal apart
+    private static final double CELL_DIAGONAL_KM = DriverSpatialIndex.CELL_SIZE_DEGREES * GeoMath.KM_PER_DEGREE * Math.sqrt(2);
+    
+    private final RideRepository rideRepository;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final DriverReservationService driverReservationService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final RideUpdateNotifier rideUpdateNotifier;
+    
+    private final Queue<PendingRematch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    
+    @Value("${dispatch.rematch.initial-delay-ms:2000}")
+    private long initialDelayMillis;
+    
+    @Value("${dispatch.rematch.max-delay-ms:60000}")
+    private long maxDelayMillis;
+    
+    @Value("${dispatch.rematch.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${dispatch.rematch.radius-growth:1.5}")
+    private double radiusGrowth;
+    
+    @Value("${dispatch.rematch.max-radius-km:25}")
+    private double maxRadiusKm;
+    
+    @Value("${dispatch.rematch.relax-after-attempts:2}")
+    private int relaxAfterAttempts;
+    
+    @Value("${dispatch.search-radius-km:10}")
+    private double searchRadiusKm;
+    
+    private TransactionTemplate transactionTemplate;
+    private Timer timeToMatch;
+    private Counter unmatchedCancellations;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("dispatch.rematch.queue.depth", depth);
+        timeToMatch = Timer.builder("dispatch.rematch.time.to.match")
+            .description("Time from first failed match to driver assignment")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        unmatchedCancellations = Counter.builder("dispatch.rematch.cancelled")
+            .description("Rides cancelled because no driver was found after every re-match attempt")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Queue a ride that found no driver; deferred until the caller's transaction commits
+     */
+    public void enqueue(Ride ride) {
+        long now = System.currentTimeMillis();
+        PendingRematch entry = new PendingRematch(
+            ride.getId(),
+            ride.getPickupLatitude().doubleValue(),
+            ride.getPickupLongitude().doubleValue(),
+            ride.getRideType().name(),
+            1,
+            now,
+            now + initialDelayMillis
+        );
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(entry);
+                }
+            });
+        } else {
+            offer(entry);
+        }
+    }
+    
+    public int getQueueDepth() {
+        return depth.get();
+    }
+    
+    /**
+     * Retry every ride whose backoff has elapsed
+     */
+    @Scheduled(fixedDelayString = "${dispatch.rematch.poll-ms:500}")
+    public void processDue() {
+        long now = System.currentTimeMillis();
+        Map<Long, List<PendingRematch>> dueByCell = new HashMap<>();
+        List<PendingRematch> notDue = new ArrayList<>();
+        
+        PendingRematch entry;
+        int drained = depth.get();
+        while (drained-- > 0 && (entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            if (entry.nextAttemptAt() <= now) {
+                dueByCell.computeIfAbsent(DriverSpatialIndex.cellKey(entry.latitude(), entry.longitude()),
+                    cell -> new ArrayList<>()).add(entry);
+            } else {
+                notDue.add(entry);
+            }
+        }
+        notDue.forEach(this::offer);
+        
+        for (List<PendingRematch> cellEntries : dueByCell.values()) {
+            retryCell(cellEntries, now);
+        }
+    }
+    
+    private void retryCell(List<PendingRematch> entries, long now) {
+        // Oldest rides get first pick of the drivers found for this cell
+        entries.sort(Comparator.comparingLong(PendingRematch::firstQueuedAt));
+        
+        PendingRematch anchor = entries.get(0);
+        double widestRadius = 0;
+        for (PendingRematch entry : entries) {
+            widestRadius = Math.max(widestRadius, radiusFor(entry.attempt()));
+        }
+        List<DriverSpatialIndex.Candidate> found = driverSpatialIndex.findWithinRadius(
+            anchor.latitude(), anchor.longitude(), null, widestRadius + CELL_DIAGONAL_KM);
+        CellCandidates candidates = new CellCandidates(found);
+        
+        for (PendingRematch entry : entries) {
+            if (!tryMatch(entry, candidates)) {
+                scheduleNext(entry, now);
+            }
+        }
+    }
+    
+    private boolean tryMatch(PendingRematch entry, CellCandidates candidates) {
+        double radius = radiusFor(entry.attempt());
+        Set<String> vehicleTypes = entry.attempt() > relaxAfterAttempts
+            ? RELAXED_VEHICLE_TYPES.getOrDefault(entry.rideType(), Set.of(entry.rideType()))
+            : Set.of(entry.rideType());
+        
+        int count = candidates.drivers.size();
+        double[] distances = candidates.distances;
+        GeoMath.haversineKm(entry.latitude(), entry.longitude(),
+            candidates.latitudes, candidates.longitudes, count, distances);
+        
+        List<Integer> eligible = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (!candidates.used[i] && distances[i] <= radius
+                    && vehicleTypes.contains(candidates.drivers.get(i).vehicleType())) {
+                eligible.add(i);
+            }
+        }
+        eligible.sort(Comparator.comparingDouble(i -> distances[i]));
+        
+        for (int i : eligible) {
+            DriverSpatialIndex.Candidate candidate = candidates.drivers.get(i);
+            // Whatever happens, this driver is no longer a candidate for the rest of the cell
+            candidates.used[i] = true;
+            MatchOutcome outcome;
+            try {
+                outcome = transactionTemplate.execute(status -> assign(entry.rideId(), candidate.driverId()));
+            } catch (RuntimeException e) {
+                log.error("Re-match of ride {} failed: {}", entry.rideId(), e.getMessage());
+                return false;
+            }
+            if (outcome == MatchOutcome.ASSIGNED) {
+                timeToMatch.record(Duration.ofMillis(System.currentTimeMillis() - entry.firstQueuedAt()));
+                log.info("Ride {} re-matched to driver {} on attempt {}",
+                    entry.rideId(), candidate.driverId(), entry.attempt());
+                return true;
+            }
+            if (outcome == MatchOutcome.RIDE_GONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private MatchOutcome assign(Long rideId, Long driverId) {
+        Ride ride = rideRepository.findByIdForUpdate(rideId).orElse(null);
+        if (ride == null || ride.getStatus() != Ride.RideStatus.PENDING || ride.getDriverId() != null) {
+            // Cancelled or matched elsewhere while waiting
+            return MatchOutcome.RIDE_GONE;
+        }
+        if (!driverReservationService.tryReserve(driverId)) {
+            return MatchOutcome.DRIVER_TAKEN;
+        }
+        ride.setDriverId(driverId);
+        ride.setStatus(Ride.RideStatus.DRIVER_ASSIGNED);
+        rideRepository.save(ride);
+        rideUpdateNotifier.rideChanged(ride);
+        return MatchOutcome.ASSIGNED;
+    }
+    
+    private void scheduleNext(PendingRematch entry, long now) {
+        if (entry.attempt() >= maxAttempts) {
+            giveUp(entry);
+            return;
+        }
+        long delay = Math.min(initialDelayMillis << Math.min(entry.attempt(), 20), maxDelayMillis);
+        offer(new PendingRematch(entry.rideId(), entry.latitude(), entry.longitude(), entry.rideType(),
+            entry.attempt() + 1, entry.firstQueuedAt(), now + delay));
+    }
+    
+    private void giveUp(PendingRematch entry) {
+        log.warn("Giving up on re-matching ride {} after {} attempts", entry.rideId(), entry.attempt());
+        try {
+            transactionTemplate.executeWithoutResult(status -> cancelUnmatched(entry.rideId()));
+        } catch (RuntimeException e) {
+            // Leave it for a later pass rather than stranding the ride in PENDING
+            log.error("Failed to cancel unmatched ride {}: {}", entry.rideId(), e.getMessage());
+            offer(new PendingRematch(entry.rideId(), entry.latitude(), entry.longitude(), entry.rideType(),
+                entry.attempt(), entry.firstQueuedAt(), System.currentTimeMillis() + maxDelayMillis));
+        }
+    }
+    
+    private void cancelUnmatched(Long rideId) {
+        Ride ride = rideRepository.findByIdForUpdate(rideId).orElse(null);
+        if (ride == null || ride.getStatus() != Ride.RideStatus.PENDING || ride.getDriverId() != null) {
+            // Cancelled or matched elsewhere in the meantime
+            return;
+        }
+        ride.setStatus(Ride.RideStatus.CANCELLED);
+        ride.setCancelledAt(LocalDateTime.now());
+        ride.setCancellationReason(NO_DRIVER_REASON);
+        rideRepository.save(ride);
+        rideUpdateNotifier.rideChanged(ride);
+        unmatchedCancellations.increment();
+    }
+    
+    private double radiusFor(int attempt) {
+        return Math.min(searchRadiusKm * Math.pow(radiusGrowth, attempt), maxRadiusKm);
+    }
+    
+    private void offer(PendingRematch entry) {
+        queue.add(entry);
+        depth.incrementAndGet();
+    }
+    
+    /**
+     * Drivers found for one cell, laid out as arrays for the batch distance kernel
+     */
+    private static final class CellCandidates {
+        private final List<DriverSpatialIndex.Candidate> drivers;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final double[] distances;
+        private final boolean[] used;
+        
+        CellCandidates(List<DriverSpatialIndex.Candidate> drivers) {
+            this.drivers = drivers;
+            int count = drivers.size();
+            latitudes = new double[count];
+            longitudes = new double[count];
+            distances = new double[count];
+            used = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                latitudes[i] = drivers.get(i).latitude();
+                longitudes[i] = drivers.get(i).longitude();
+            }
+        }
+    }
+    
+    private enum MatchOutcome {
+        ASSIGNED, DRIVER_TAKEN, RIDE_GONE
+    }
+    
+    private record PendingRematch(Long rideId, double latitude, double longitude, String rideType,
+                                  int attempt, long firstQueuedAt, long nextAttemptAt) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Dispatches scheduled rides shortly before their pickup time.
+ *
+ * Upcoming rides live in a {@link HierarchicalTimingWheel} keyed by
+ * "pickup minus lead time", so the table is read once at startup and never
+ * polled afterwards; new scheduled bookings are added as they commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledRideDispatcher {
+    
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 4;
+    
+    private final RideRepository rideRepository;
+    private final DispatchService dispatchService;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${dispatch.scheduled.lead-time-minutes:10}")
+    private long leadTimeMinutes;
+    
+    @Value("${dispatch.scheduled.tick-ms:1000}")
+    private long tickMillis;
+    
+    private HierarchicalTimingWheel<Long> wheel;
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Rebuild the wheel from unassigned scheduled rides
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScheduledRides() {
+        List<RideRepository.ScheduledRideView> rides =
+            rideRepository.findUnassignedScheduledRides(Ride.RideStatus.PENDING);
+        for (RideRepository.ScheduledRideView ride : rides) {
+            wheel.schedule(ride.getId(), dispatchAtMillis(ride.getScheduledDateTime()));
+        }
+        log.info("Scheduled ride dispatcher loaded {} pending rides", rides.size());
+    }
+    
+    /**
+     * Register a newly booked scheduled ride once its transaction commits
+     */
+    public void schedule(Ride ride) {
+        Long rideId = ride.getId();
+        long dispatchAt = dispatchAtMillis(ride.getScheduledDateTime());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wheel.schedule(rideId, dispatchAt);
+                }
+            });
+        } else {
+            wheel.schedule(rideId, dispatchAt);
+        }
+    }
+    
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+    
+    /**
+     * Advance the wheel and dispatch every ride whose lead time has been reached
+     */
+    @Scheduled(fixedDelayString = "${dispatch.scheduled.tick-ms:1000}")
+    public void advance() {
+        for (Long rideId : wheel.advanceTo(System.currentTimeMillis())) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> dispatchDue(rideId));
+            } catch (RuntimeException e) {
+                log.error("Failed to dispatch scheduled ride {}: {}", rideId, e.getMessage());
+            }
+        }
+    }
+    
+    private void dispatchDue(Long rideId) {
+        rideRepository.findByIdForUpdate(rideId)
+            // Cancelled or already handled since it was scheduled
+            .filter(ride -> ride.getStatus() == Ride.RideStatus.PENDING && ride.getDriverId() == null)
+            .ifPresent(ride -> {
+                log.info("Dispatching scheduled ride {} for {}", rideId, ride.getScheduledDateTime());
+                dispatchService.dispatch(ride);
+            });
+    }
+    
+    private long dispatchAtMillis(LocalDateTime scheduledDateTime) {
+        return scheduledDateTime.minusMinutes(leadTimeMinutes)
+            .atZone(ZoneId.systemDefault())
+            .toInstant()
+            .toEpochMilli();
+    }
+}
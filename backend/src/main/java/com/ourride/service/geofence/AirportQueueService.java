@@ -0,0 +1,145 @@
+package com.ourride.service.geofence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * First-in, first-out driver queues for airport zones, fed by driver pings.
+ *
+ * An available driver joins the queue of the airport they enter and leaves
+ * it on the first ping outside or once they are no longer available (e.g.
+ * dispatched); staying inside keeps their place.
+ *
+ * Queues live in Redis so every node sees one order whichever node a
+ * driver's pings reach: per airport a sorted set of drivers by arrival time
+ * and one of drivers by last ping inside, plus a key naming each queued
+ * driver's airport. A node remembers the drivers it queued, so most pings
+ * (outside every airport, or inside and refreshed recently) cost one index
+ * lookup and one map read. A driver who left through another node is
+ * purged once not seen inside for {@code geofence.airport-queue.ttl-ms}.
+ */
+@Service
+@Slf4j
+public class AirportQueueService {
+    
+    private static final String QUEUE_KEY_PREFIX = "airport:queue:";
+    private static final String SEEN_KEY_PREFIX = "airport:seen:";
+    private static final String DRIVER_KEY_PREFIX = "airport:driver:";
+    // KEYS: queue, seen, driver; ARGV: driver id, now, airport id, TTL millis
+    private static final RedisScript<Long> JOIN = new DefaultRedisScript<>(
+        "redis.call('ZADD', KEYS[1], 'NX', ARGV[2], ARGV[1]) redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1]) "
+            + "redis.call('SET', KEYS[3], ARGV[3], 'PX', ARGV[4]) return 1",
+        Long.class);
+    // KEYS: queue, seen, driver; ARGV: driver id, airport id
+    private static final RedisScript<Long> LEAVE = new DefaultRedisScript<>(
+        "redis.call('ZREM', KEYS[1], ARGV[1]) redis.call('ZREM', KEYS[2], ARGV[1]) "
+            + "if redis.call('GET', KEYS[3]) == ARGV[2] then redis.call('DEL', KEYS[3]) end return 1",
+        Long.class);
+    // KEYS: queue, seen; ARGV: driver id, oldest last ping still queued; returns {place, length} or nil
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POSITION = new DefaultRedisScript<>(
+        "local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[2]) "
+            + "for _, id in ipairs(stale) do redis.call('ZREM', KEYS[1], id) redis.call('ZREM', KEYS[2], id) end "
+            + "local rank = redis.call('ZRANK', KEYS[1], ARGV[1]) "
+            + "if not rank then return nil end return {rank + 1, redis.call('ZCARD', KEYS[1])}",
+        List.class);
+    
+    private final GeofenceService geofenceService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long ttlMillis;
+    
+    // Drivers this node queued, with when it last refreshed them in Redis
+    private final Map<Long, Membership> memberships = new ConcurrentHashMap<>();
+    
+    public AirportQueueService(GeofenceService geofenceService,
+                               RedisTemplate<String, String> redisTemplate,
+                               @Value("${geofence.airport-queue.ttl-ms:120000}") long ttlMillis) {
+        this.geofenceService = geofenceService;
+        this.redisTemplate = redisTemplate;
+        this.ttlMillis = ttlMillis;
+    }
+    
+    /**
+     * Update the driver's airport queue membership for a new position
+     */
+    public void driverMoved(long driverId, double latitude, double longitude, boolean available) {
+        Geofence airport = available
+            ? geofenceService.current().first(latitude, longitude, Geofence.Kind.AIRPORT)
+            : null;
+        Membership current = memberships.get(driverId);
+        long now = System.currentTimeMillis();
+        if (airport == null) {
+            if (current != null && memberships.remove(driverId, current)) {
+                leave(driverId, current.airportId);
+            }
+            return;
+        }
+        // Refresh well inside the TTL so a driver waiting in place is never purged
+        if (current != null && current.airportId == airport.id() && now - current.refreshedAt < ttlMillis / 3) {
+            return;
+        }
+        
+        if (current != null && current.airportId != airport.id()) {
+            leave(driverId, current.airportId);
+        }
+        memberships.put(driverId, new Membership(airport.id(), now));
+        try {
+            redisTemplate.execute(JOIN,
+                List.of(QUEUE_KEY_PREFIX + airport.id(), SEEN_KEY_PREFIX + airport.id(), DRIVER_KEY_PREFIX + driverId),
+                String.valueOf(driverId), String.valueOf(now), String.valueOf(airport.id()), String.valueOf(ttlMillis));
+        } catch (DataAccessException e) {
+            // Retried on the next ping
+            memberships.remove(driverId);
+            log.warn("Could not queue driver {} at airport {}: {}", driverId, airport.id(), e.getMessage());
+        }
+    }
+    
+    /**
+     * The driver's 1-based place in their airport queue, or null when not queued
+     */
+    public Position positionOf(long driverId) {
+        try {
+            String airport = redisTemplate.opsForValue().get(DRIVER_KEY_PREFIX + driverId);
+            if (airport == null) {
+                return null;
+            }
+            long airportId = Long.parseLong(airport);
+            List<?> result = redisTemplate.execute(POSITION,
+                List.of(QUEUE_KEY_PREFIX + airportId, SEEN_KEY_PREFIX + airportId),
+                String.valueOf(driverId), String.valueOf(System.currentTimeMillis() - ttlMillis));
+            if (result == null || result.size() < 2) {
+                return null;
+            }
+            return new Position(airportId, ((Number) result.get(0)).intValue(), ((Number) result.get(1)).intValue());
+        } catch (DataAccessException e) {
+            log.warn("Could not read the airport queue position of driver {}: {}", driverId, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void leave(long driverId, long airportId) {
+        try {
+            redisTemplate.execute(LEAVE,
+                List.of(QUEUE_KEY_PREFIX + airportId, SEEN_KEY_PREFIX + airportId, DRIVER_KEY_PREFIX + driverId),
+                String.valueOf(driverId), String.valueOf(airportId));
+        } catch (DataAccessException e) {
+            // The entry ages out once the driver stops refreshing it
+            log.warn("Could not dequeue driver {} from airport {}: {}", driverId, airportId, e.getMessage());
+        }
+    }
+    
+    public record Position(long airportId, int place, int queueLength) {
+    }
+    
+    private record Membership(long airportId, long refreshedAt) {
+    }
+}
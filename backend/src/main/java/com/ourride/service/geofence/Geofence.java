@@ -0,0 +1,13 @@
+package com.ourride.service.geofence;
+
+/**
+ * A named zone; its polygons live in the {@link GeofenceIndex}
+ */
+public record Geofence(long id, String name, Kind kind) {
+    
+    public enum Kind {
+        AIRPORT,
+        NO_PICKUP,
+        RESTRICTED
+    }
+}
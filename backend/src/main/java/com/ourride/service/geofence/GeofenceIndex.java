@@ -0,0 +1,351 @@
+package com.ourride.service.geofence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable R-tree over geofence polygons, bulk-loaded with
+ * Sort-Tile-Recursive packing.
+ *
+ * Nodes, polygon bounding boxes and ring vertices are stored in flat
+ * arrays, with the children of every node contiguous, so a lookup walks
+ * primitive arrays only. A point query descends into nodes whose box holds
+ * the point, checks each candidate polygon's own box and only then runs an
+ * even-odd ray cast over its rings (holes included). Lookups allocate
+ * nothing.
+ *
+ * A new index is built for every reload and swapped in whole; readers keep
+ * using the snapshot they started with.
+ */
+public final class GeofenceIndex {
+    
+    public static final GeofenceIndex EMPTY = build(List.of());
+    
+    static final int NODE_CAPACITY = 16;
+    
+    // Tree nodes; children of node n are [nodeFirst[n], nodeFirst[n] + nodeCount[n])
+    private final double[] nodeMinLat;
+    private final double[] nodeMinLng;
+    private final double[] nodeMaxLat;
+    private final double[] nodeMaxLng;
+    private final int[] nodeFirst;
+    private final int[] nodeCount;
+    private final boolean[] nodeLeaf;   // children are polygons rather than nodes
+    
+    // Polygons in leaf order; rings of polygon p are [polygonRing[p], polygonRing[p + 1])
+    private final Geofence[] owners;
+    private final double[] polygonMinLat;
+    private final double[] polygonMinLng;
+    private final double[] polygonMaxLat;
+    private final double[] polygonMaxLng;
+    private final int[] polygonRing;
+    
+    // Vertices of ring r are [ringVertex[r], ringVertex[r + 1])
+    private final int[] ringVertex;
+    private final double[] vertexLat;
+    private final double[] vertexLng;
+    
+    private final int geofenceCount;
+    
+    private GeofenceIndex(List<Entry> nodes, List<GeofencePolygon> polygons, int[] polygonOrder) {
+        int n = nodes.size();
+        nodeMinLat = new double[n];
+        nodeMinLng = new double[n];
+        nodeMaxLat = new double[n];
+        nodeMaxLng = new double[n];
+        nodeFirst = new int[n];
+        nodeCount = new int[n];
+        nodeLeaf = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Entry node = nodes.get(i);
+            nodeMinLat[i] = node.minLat;
+            nodeMinLng[i] = node.minLng;
+            nodeMaxLat[i] = node.maxLat;
+            nodeMaxLng[i] = node.maxLng;
+            nodeFirst[i] = node.first;
+            nodeCount[i] = node.children.size();
+            nodeLeaf[i] = node.leaf;
+        }
+        
+        int polygonCount = polygonOrder.length;
+        int ringCount = 0;
+        int vertexCount = 0;
+        for (int index : polygonOrder) {
+            GeofencePolygon polygon = polygons.get(index);
+            ringCount += polygon.latitudes().length;
+            for (double[] ring : polygon.latitudes()) {
+                vertexCount += ring.length;
+            }
+        }
+        
+        owners = new Geofence[polygonCount];
+        polygonMinLat = new double[polygonCount];
+        polygonMinLng = new double[polygonCount];
+        polygonMaxLat = new double[polygonCount];
+        polygonMaxLng = new double[polygonCount];
+        polygonRing = new int[polygonCount + 1];
+        ringVertex = new int[ringCount + 1];
+        vertexLat = new double[vertexCount];
+        vertexLng = new double[vertexCount];
+        
+        int ring = 0;
+        int vertex = 0;
+        Set<Long> geofenceIds = new HashSet<>();
+        for (int p = 0; p < polygonCount; p++) {
+            GeofencePolygon polygon = polygons.get(polygonOrder[p]);
+            owners[p] = polygon.geofence();
+            geofenceIds.add(polygon.geofence().id());
+            polygonRing[p] = ring;
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLng = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY;
+            for (int r = 0; r < polygon.latitudes().length; r++) {
+                ringVertex[ring++] = vertex;
+                double[] lats = polygon.latitudes()[r];
+                double[] lngs = polygon.longitudes()[r];
+                for (int v = 0; v < lats.length; v++) {
+                    vertexLat[vertex] = lats[v];
+                    vertexLng[vertex] = lngs[v];
+                    vertex++;
+                    minLat = Math.min(minLat, lats[v]);
+                    minLng = Math.min(minLng, lngs[v]);
+                    maxLat = Math.max(maxLat, lats[v]);
+                    maxLng = Math.max(maxLng, lngs[v]);
+                }
+            }
+            polygonMinLat[p] = minLat;
+            polygonMinLng[p] = minLng;
+            polygonMaxLat[p] = maxLat;
+            polygonMaxLng[p] = maxLng;
+        }
+        polygonRing[polygonCount] = ring;
+        ringVertex[ring] = vertex;
+        geofenceCount = geofenceIds.size();
+    }
+    
+    /**
+     * Bulk-load an index. Polygons without an outer ring of at least three
+     * vertices are skipped.
+     */
+    public static GeofenceIndex build(List<GeofencePolygon> polygons) {
+        List<Entry> level = new ArrayList<>(polygons.size());
+        for (int i = 0; i < polygons.size(); i++) {
+            GeofencePolygon polygon = polygons.get(i);
+            if (polygon.latitudes().length == 0 || polygon.latitudes()[0].length < 3) {
+                continue;
+            }
+            level.add(Entry.forPolygon(i, polygon));
+        }
+        if (level.isEmpty()) {
+            return new GeofenceIndex(List.of(), polygons, new int[0]);
+        }
+        
+        while (level.size() > NODE_CAPACITY) {
+            level = pack(level);
+        }
+        Entry root = Entry.forChildren(level);
+        
+        // Breadth-first layout keeps each node's children contiguous; STR
+        // leaves all sit on one level, so polygons come out contiguous too
+        List<Entry> nodes = new ArrayList<>();
+        nodes.add(root);
+        int[] polygonOrder = new int[countPolygons(root)];
+        int nextPolygon = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Entry node = nodes.get(i);
+            if (node.leaf) {
+                node.first = nextPolygon;
+                for (Entry child : node.children) {
+                    polygonOrder[nextPolygon++] = child.polygon;
+                }
+            } else {
+                node.first = nodes.size();
+                nodes.addAll(node.children);
+            }
+        }
+        return new GeofenceIndex(nodes, polygons, polygonOrder);
+    }
+    
+    /**
+     * First geofence of the given kind containing the point, or null.
+     * A null kind matches any geofence.
+     */
+    public Geofence first(double latitude, double longitude, Geofence.Kind kind) {
+        if (nodeFirst.length == 0) {
+            return null;
+        }
+        int polygon = search(0, latitude, longitude, kind);
+        return polygon < 0 ? null : owners[polygon];
+    }
+    
+    /**
+     * Visit every polygon containing the point; a geofence is visited once
+     * per containing polygon
+     */
+    public void forEachContaining(double latitude, double longitude, GeofenceVisitor visitor) {
+        if (nodeFirst.length > 0) {
+            collect(0, latitude, longitude, visitor);
+        }
+    }
+    
+    public int polygonCount() {
+        return owners.length;
+    }
+    
+    public int geofenceCount() {
+        return geofenceCount;
+    }
+    
+    private int search(int node, double latitude, double longitude, Geofence.Kind kind) {
+        if (!nodeContains(node, latitude, longitude)) {
+            return -1;
+        }
+        int first = nodeFirst[node];
+        int end = first + nodeCount[node];
+        if (nodeLeaf[node]) {
+            for (int p = first; p < end; p++) {
+                if ((kind == null || owners[p].kind() == kind) && polygonContains(p, latitude, longitude)) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+        for (int child = first; child < end; child++) {
+            int found = search(child, latitude, longitude, kind);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+    
+    private void collect(int node, double latitude, double longitude, GeofenceVisitor visitor) {
+        if (!nodeContains(node, latitude, longitude)) {
+            return;
+        }
+        int first = nodeFirst[node];
+        int end = first + nodeCount[node];
+        for (int i = first; i < end; i++) {
+            if (!nodeLeaf[node]) {
+                collect(i, latitude, longitude, visitor);
+            } else if (polygonContains(i, latitude, longitude)) {
+                visitor.visit(owners[i]);
+            }
+        }
+    }
+    
+    private boolean nodeContains(int node, double latitude, double longitude) {
+        return latitude >= nodeMinLat[node] && latitude <= nodeMaxLat[node]
+            && longitude >= nodeMinLng[node] && longitude <= nodeMaxLng[node];
+    }
+    
+    private boolean polygonContains(int polygon, double latitude, double longitude) {
+        if (latitude < polygonMinLat[polygon] || latitude > polygonMaxLat[polygon]
+                || longitude < polygonMinLng[polygon] || longitude > polygonMaxLng[polygon]) {
+            return false;
+        }
+        // Even-odd rule over all rings, so a point inside a hole counts as outside
+        boolean inside = false;
+        for (int r = polygonRing[polygon]; r < polygonRing[polygon + 1]; r++) {
+            int start = ringVertex[r];
+            int end = ringVertex[r + 1];
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                double latI = vertexLat[i];
+                double latJ = vertexLat[j];
+                if ((latI > latitude) != (latJ > latitude)
+                        && longitude < (vertexLng[j] - vertexLng[i]) * (latitude - latI) / (latJ - latI) + vertexLng[i]) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+    
+    private static List<Entry> pack(List<Entry> entries) {
+        int pages = (entries.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int) Math.ceil(Math.sqrt(pages));
+        int sliceSize = slices * NODE_CAPACITY;
+        
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingDouble(Entry::centerLng));
+        
+        List<Entry> parents = new ArrayList<>(pages);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<Entry> slice = new ArrayList<>(sorted.subList(sliceStart, Math.min(sliceStart + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(Entry::centerLat));
+            for (int groupStart = 0; groupStart < slice.size(); groupStart += NODE_CAPACITY) {
+                parents.add(Entry.forChildren(slice.subList(groupStart, Math.min(groupStart + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return parents;
+    }
+    
+    private static int countPolygons(Entry node) {
+        if (node.leaf) {
+            return node.children.size();
+        }
+        int count = 0;
+        for (Entry child : node.children) {
+            count += countPolygons(child);
+        }
+        return count;
+    }
+    
+    @FunctionalInterface
+    public interface GeofenceVisitor {
+        void visit(Geofence geofence);
+    }
+    
+    /**
+     * Build-time tree entry: either a polygon (leaf entry) or a node
+     */
+    private static final class Entry {
+        private double minLat = Double.POSITIVE_INFINITY;
+        private double minLng = Double.POSITIVE_INFINITY;
+        private double maxLat = Double.NEGATIVE_INFINITY;
+        private double maxLng = Double.NEGATIVE_INFINITY;
+        private int polygon = -1;
+        private List<Entry> children = List.of();
+        private boolean leaf;
+        private int first;
+        
+        private static Entry forPolygon(int index, GeofencePolygon polygon) {
+            Entry entry = new Entry();
+            entry.polygon = index;
+            double[] lats = polygon.latitudes()[0];
+            double[] lngs = polygon.longitudes()[0];
+            for (int v = 0; v < lats.length; v++) {
+                entry.minLat = Math.min(entry.minLat, lats[v]);
+                entry.minLng = Math.min(entry.minLng, lngs[v]);
+                entry.maxLat = Math.max(entry.maxLat, lats[v]);
+                entry.maxLng = Math.max(entry.maxLng, lngs[v]);
+            }
+            return entry;
+        }
+        
+        private static Entry forChildren(List<Entry> children) {
+            Entry entry = new Entry();
+            entry.children = new ArrayList<>(children);
+            entry.leaf = children.get(0).polygon >= 0;
+            for (Entry child : children) {
+                entry.minLat = Math.min(entry.minLat, child.minLat);
+                entry.minLng = Math.min(entry.minLng, child.minLng);
+                entry.maxLat = Math.max(entry.maxLat, child.maxLat);
+                entry.maxLng = Math.max(entry.maxLng, child.maxLng);
+            }
+            return entry;
+        }
+        
+        private double centerLat() {
+            return (minLat + maxLat) * 0.5;
+        }
+        
+        private double centerLng() {
+            return (minLng + maxLng) * 0.5;
+        }
+    }
+}
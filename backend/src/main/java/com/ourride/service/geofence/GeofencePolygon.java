@@ -0,0 +1,9 @@
+package com.ourride.service.geofence;
+
+/**
+ * One polygon of a geofence. Ring 0 is the outer boundary and any further
+ * rings are holes; each ring is a closed or open sequence of vertices
+ * given as parallel latitude and longitude arrays.
+ */
+public record GeofencePolygon(Geofence geofence, double[][] latitudes, double[][] longitudes) {
+}
@@ -0,0 +1,226 @@
+package com.ourride.service.geofence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Zone lookups for airports, no-pickup areas and restricted areas.
+ *
+ * Polygons come from an optional GeoJSON FeatureCollection file
+ * ({@code geofence.file}) and from the {@code geofences} table. Both sources
+ * are polled every {@code geofence.reload-interval-ms}; when either changed a
+ * fresh {@link GeofenceIndex} is built on the side and published with a
+ * single volatile write, so lookups never block and never see a half-built
+ * index.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceService {
+    
+    private static final String SELECT_GEOFENCES_SQL =
+        "SELECT id, name, kind, geometry::text FROM geofences WHERE active = TRUE";
+    private static final String TABLE_VERSION_SQL =
+        "SELECT COUNT(*) || ':' || COALESCE(MAX(id), 0) || ':' || COALESCE(MAX(updated_at)::text, '') " +
+        "FROM geofences WHERE active = TRUE";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${geofence.file:}")
+    private String geofenceFile;
+    
+    @Value("${geofence.table-enabled:true}")
+    private boolean tableEnabled;
+    
+    private volatile GeofenceIndex index = GeofenceIndex.EMPTY;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private String loadedVersion;
+    
+    /**
+     * The current snapshot; callers making several lookups should hold on to one
+     */
+    public GeofenceIndex current() {
+        return index;
+    }
+    
+    /**
+     * Reject pickups inside no-pickup or restricted zones and drop-offs inside restricted zones
+     */
+    public void checkRide(double pickupLat, double pickupLng, double destinationLat, double destinationLng) {
+        GeofenceIndex snapshot = index;
+        Geofence pickupZone = snapshot.first(pickupLat, pickupLng, Geofence.Kind.NO_PICKUP);
+        if (pickupZone == null) {
+            pickupZone = snapshot.first(pickupLat, pickupLng, Geofence.Kind.RESTRICTED);
+        }
+        if (pickupZone != null) {
+            throw new RuntimeException("Pickup is not allowed in " + pickupZone.name());
+        }
+        Geofence destinationZone = snapshot.first(destinationLat, destinationLng, Geofence.Kind.RESTRICTED);
+        if (destinationZone != null) {
+            throw new RuntimeException("Drop-off is not allowed in " + destinationZone.name());
+        }
+    }
+    
+    /**
+     * All geofences containing a point
+     */
+    public List<Geofence> zonesAt(double latitude, double longitude) {
+        List<Geofence> zones = new ArrayList<>();
+        index.forEachContaining(latitude, longitude, zone -> {
+            if (!zones.contains(zone)) {
+                zones.add(zone);
+            }
+        });
+        return zones;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+    
+    /**
+     * Rebuild the index if the file or the table changed since the last load
+     */
+    @Scheduled(fixedDelayString = "${geofence.reload-interval-ms:60000}",
+               initialDelayString = "${geofence.reload-interval-ms:60000}")
+    public void reload() {
+        if (!reloadLock.tryLock()) {
+            return;
+        }
+        try {
+            String version = fileVersion() + "|" + tableVersion();
+            if (version.equals(loadedVersion)) {
+                return;
+            }
+            
+            long started = System.currentTimeMillis();
+            List<GeofencePolygon> polygons = new ArrayList<>();
+            loadFile(polygons);
+            loadTable(polygons);
+            GeofenceIndex rebuilt = GeofenceIndex.build(polygons);
+            index = rebuilt;
+            loadedVersion = version;
+            log.info("Geofence index loaded with {} zones ({} polygons) in {} ms",
+                rebuilt.geofenceCount(), rebuilt.polygonCount(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot
+            log.error("Failed to reload geofences: {}", e.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+    
+    private String fileVersion() throws IOException {
+        if (geofenceFile == null || geofenceFile.isBlank()) {
+            return "";
+        }
+        Path path = Path.of(geofenceFile);
+        if (!Files.isReadable(path)) {
+            return "missing";
+        }
+        return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+    }
+    
+    private String tableVersion() {
+        return tableEnabled ? jdbcTemplate.queryForObject(TABLE_VERSION_SQL, String.class) : "";
+    }
+    
+    private void loadFile(List<GeofencePolygon> polygons) throws IOException {
+        if (geofenceFile == null || geofenceFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(geofenceFile);
+        if (!Files.isReadable(path)) {
+            log.warn("Geofence file {} not readable; skipping", path);
+            return;
+        }
+        
+        JsonNode root = objectMapper.readTree(path.toFile());
+        JsonNode features = "FeatureCollection".equals(root.path("type").asText())
+            ? root.path("features")
+            : objectMapper.createArrayNode().add(root);
+        
+        // File zones without a numeric id get negative ids so they never clash with table rows
+        long syntheticId = -1;
+        for (JsonNode feature : features) {
+            JsonNode properties = feature.path("properties");
+            long id = feature.path("id").canConvertToLong() ? feature.path("id").asLong() : syntheticId--;
+            Geofence geofence = new Geofence(
+                id,
+                properties.path("name").asText("Zone " + id),
+                Geofence.Kind.valueOf(properties.path("kind").asText().toUpperCase())
+            );
+            addGeometry(geofence, feature.path("geometry"), polygons);
+        }
+    }
+    
+    private void loadTable(List<GeofencePolygon> polygons) {
+        if (!tableEnabled) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_GEOFENCES_SQL, (RowCallbackHandler) rs -> {
+            long id = rs.getLong(1);
+            try {
+                Geofence geofence = new Geofence(
+                    id,
+                    rs.getString(2),
+                    Geofence.Kind.valueOf(rs.getString(3))
+                );
+                addGeometry(geofence, objectMapper.readTree(rs.getString(4)), polygons);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Skipping geofence {} with invalid kind or geometry: {}", id, e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Add the polygons of a GeoJSON Polygon or MultiPolygon geometry
+     */
+    private void addGeometry(Geofence geofence, JsonNode geometry, List<GeofencePolygon> polygons) {
+        String type = geometry.path("type").asText();
+        JsonNode coordinates = geometry.path("coordinates");
+        switch (type) {
+            case "Polygon" -> polygons.add(toPolygon(geofence, coordinates));
+            case "MultiPolygon" -> {
+                for (JsonNode polygon : coordinates) {
+                    polygons.add(toPolygon(geofence, polygon));
+                }
+            }
+            default -> throw new RuntimeException("Unsupported geometry type for geofence " + geofence.id() + ": " + type);
+        }
+    }
+    
+    private GeofencePolygon toPolygon(Geofence geofence, JsonNode rings) {
+        double[][] latitudes = new double[rings.size()][];
+        double[][] longitudes = new double[rings.size()][];
+        for (int r = 0; r < rings.size(); r++) {
+            JsonNode ring = rings.get(r);
+            latitudes[r] = new double[ring.size()];
+            longitudes[r] = new double[ring.size()];
+            for (int v = 0; v < ring.size(); v++) {
+                // GeoJSON positions are [longitude, latitude]
+                longitudes[r][v] = ring.get(v).get(0).asDouble();
+                latitudes[r][v] = ring.get(v).get(1).asDouble();
+            }
+        }
+        return new GeofencePolygon(geofence, latitudes, longitudes);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ourride.service.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mirrors relayed ride events into a capped Redis Stream for consumers
+ * outside this service. Stream entries keep the at-least-once guarantee, so
+ * consumers should dedupe on {@code eventId}.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.redis-stream.enabled", havingValue = "true")
+@Slf4j
+public class RedisStreamRideEventSubscriber implements RideEventSubscriber {
+    
+    private final StringRedisTemplate redisTemplate;
+    private final String streamKey;
+    private final long maxLength;
+    
+    public RedisStreamRideEventSubscriber(StringRedisTemplate redisTemplate,
+                                          @Value("${outbox.redis-stream.key:rides:events}") String streamKey,
+                                          @Value("${outbox.redis-stream.max-length:100000}") long maxLength) {
+        this.redisTemplate = redisTemplate;
+        this.streamKey = streamKey;
+        this.maxLength = maxLength;
+    }
+    
+    @Override
+    public void onRideEvent(RideEvent event) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("eventId", String.valueOf(event.id()));
+        fields.put("rideId", String.valueOf(event.rideId()));
+        fields.put("status", event.status());
+        fields.put("payload", event.payload());
+        
+        MapRecord<String, String, String> record = StreamRecords.newRecord()
+            .in(streamKey)
+            .ofMap(fields);
+        redisTemplate.opsForStream().add(record);
+        // Approximate trimming keeps XADD cheap
+        redisTemplate.opsForStream().trim(streamKey, maxLength, true);
+    }
+}
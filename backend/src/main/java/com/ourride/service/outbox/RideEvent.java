@@ -0,0 +1,11 @@
+package com.ourride.service.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * One ride state transition as recorded in the {@code ride_events} outbox.
+ * The payload is the ride's API representation as JSON.
+ */
+public record RideEvent(long id, long rideId, long userId, Long driverId, String status,
+                        String payload, LocalDateTime createdAt) {
+}
@@ -0,0 +1,276 @@
+package com.ourride.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Ride;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for ride state transitions.
+ *
+ * {@link #append} inserts a {@code ride_events} row in the caller's
+ * transaction, so an event exists exactly when its transition committed. A
+ * relay thread claims unpublished events in id order with
+ * {@code FOR UPDATE SKIP LOCKED}, hands them to every
+ * {@link RideEventSubscriber} and marks them published in the same
+ * transaction; several nodes can relay side by side without blocking each
+ * other.
+ *
+ * Order per ride holds across relays: a ride is skipped for the round when
+ * an earlier unpublished event of it is locked by another relay, and a
+ * failed delivery holds back the ride's later events until it succeeds. An
+ * event that keeps failing is given up after {@code outbox.max-attempts}:
+ * it is marked {@code failed_at} rather than published, counted in
+ * {@code outbox.relay.given-up}, and kept past the retention window.
+ */
+@Service
+@Slf4j
+public class RideEventOutbox {
+    
+    private static final String INSERT_EVENT_SQL =
+        "INSERT INTO ride_events (ride_id, user_id, driver_id, status, payload, created_at) " +
+        "VALUES (?, ?, ?, ?, ?::jsonb, ?)";
+    private static final String CLAIM_EVENTS_SQL =
+        "SELECT id, ride_id, user_id, driver_id, status, payload::text, created_at, attempts FROM ride_events " +
+        "WHERE published_at IS NULL AND failed_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String OLDEST_PENDING_SQL =
+        "SELECT ride_id, MIN(id) FROM ride_events WHERE published_at IS NULL AND failed_at IS NULL " +
+        "AND ride_id IN (%s) GROUP BY ride_id";
+    private static final String MARK_PUBLISHED_SQL =
+        "UPDATE ride_events SET published_at = ? WHERE id = ?";
+    private static final String RECORD_FAILURE_SQL =
+        "UPDATE ride_events SET attempts = attempts + 1, failed_at = CASE WHEN attempts + 1 >= ? THEN ? END " +
+        "WHERE id = ?";
+    // Given-up events have no published_at and are never deleted here
+    private static final String DELETE_PUBLISHED_SQL =
+        "DELETE FROM ride_events WHERE published_at < ? AND failed_at IS NULL";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<RideEventSubscriber> subscribers;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer relayLag;
+    private final Counter failedDeliveries;
+    private final Counter givenUp;
+    
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running;
+    private Thread relayThread;
+    
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${outbox.poll-ms:500}")
+    private long pollMillis;
+    
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${outbox.retention-hours:168}")
+    private long retentionHours;
+    
+    public RideEventOutbox(JdbcTemplate jdbcTemplate,
+                           ObjectMapper objectMapper,
+                           List<RideEventSubscriber> subscribers,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.subscribers = subscribers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.relayLag = Timer.builder("outbox.relay.lag")
+            .description("Time from a ride event being written to its delivery")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.failedDeliveries = Counter.builder("outbox.relay.failures")
+            .description("Ride event deliveries that threw and will be retried")
+            .register(meterRegistry);
+        this.givenUp = Counter.builder("outbox.relay.given-up")
+            .description("Ride events abandoned after outbox.max-attempts failed deliveries")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record a transition in the caller's transaction
+     */
+    public void append(Ride ride, RideResponse payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize ride event for ride " + ride.getId(), e);
+        }
+        jdbcTemplate.update(INSERT_EVENT_SQL,
+            ride.getId(), ride.getUserId(), ride.getDriverId(), ride.getStatus().name(), json,
+            Timestamp.valueOf(LocalDateTime.now()));
+    }
+    
+    /**
+     * Ask the relay to poll now rather than at its next interval; called
+     * after a transition commits to keep delivery latency low
+     */
+    public void wakeUp() {
+        wakeUp.release();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRelay() {
+        running = true;
+        relayThread = new Thread(this::runRelay, "ride-event-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+        log.info("Ride event relay started with {} subscribers", subscribers.size());
+    }
+    
+    @PreDestroy
+    public void stopRelay() {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+        }
+    }
+    
+    /**
+     * Drop published events older than the retention window
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void deletePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int deleted = jdbcTemplate.update(DELETE_PUBLISHED_SQL, Timestamp.valueOf(cutoff));
+        if (deleted > 0) {
+            log.info("Deleted {} published ride events older than {}", deleted, cutoff);
+        }
+    }
+    
+    private void runRelay() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                // Keep going while whole batches are getting through
+                int published;
+                do {
+                    published = relayBatch();
+                } while (running && published >= batchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ride event relay failed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Claim, deliver and mark one batch; returns how many events were published
+     */
+    int relayBatch() {
+        Integer delivered = transactionTemplate.execute(status -> {
+            Map<Long, Integer> attempts = new HashMap<>();
+            List<RideEvent> events = jdbcTemplate.query(CLAIM_EVENTS_SQL, (rs, rowNum) -> {
+                attempts.put(rs.getLong(1), rs.getInt(8));
+                return new RideEvent(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    rs.getLong(3),
+                    (Long) rs.getObject(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getTimestamp(7).toLocalDateTime()
+                );
+            }, batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            
+            Map<Long, List<RideEvent>> byRide = new LinkedHashMap<>();
+            for (RideEvent event : events) {
+                byRide.computeIfAbsent(event.rideId(), id -> new ArrayList<>()).add(event);
+            }
+            Map<Long, Long> oldestPending = oldestPendingIds(byRide.keySet());
+            
+            List<Object[]> published = new ArrayList<>();
+            List<Object[]> failed = new ArrayList<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (Map.Entry<Long, List<RideEvent>> ride : byRide.entrySet()) {
+                List<RideEvent> rideEvents = ride.getValue();
+                // An earlier event of this ride is held by another relay; let it go first
+                if (oldestPending.getOrDefault(ride.getKey(), Long.MAX_VALUE) < rideEvents.get(0).id()) {
+                    continue;
+                }
+                for (RideEvent event : rideEvents) {
+                    if (!deliver(event)) {
+                        failed.add(new Object[] { maxAttempts, now, event.id() });
+                        if (attempts.get(event.id()) + 1 >= maxAttempts) {
+                            givenUp.increment();
+                            log.error("Gave up on ride event {} (ride {}, {}) after {} failed deliveries",
+                                event.id(), event.rideId(), event.status(), maxAttempts);
+                        }
+                        break;
+                    }
+                    published.add(new Object[] { now, event.id() });
+                }
+            }
+            
+            if (!published.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARK_PUBLISHED_SQL, published);
+            }
+            if (!failed.isEmpty()) {
+                jdbcTemplate.batchUpdate(RECORD_FAILURE_SQL, failed);
+            }
+            return published.size();
+        });
+        return delivered != null ? delivered : 0;
+    }
+    
+    private boolean deliver(RideEvent event) {
+        try {
+            for (RideEventSubscriber subscriber : subscribers) {
+                subscriber.onRideEvent(event);
+            }
+        } catch (RuntimeException e) {
+            failedDeliveries.increment();
+            log.error("Delivery of ride event {} (ride {}, {}) failed: {}",
+                event.id(), event.rideId(), event.status(), e.getMessage());
+            return false;
+        }
+        relayLag.record(Duration.between(event.createdAt(), LocalDateTime.now()));
+        return true;
+    }
+    
+    private Map<Long, Long> oldestPendingIds(Set<Long> rideIds) {
+        String placeholders = String.join(",", Collections.nCopies(rideIds.size(), "?"));
+        Map<Long, Long> oldest = new HashMap<>();
+        jdbcTemplate.query(String.format(OLDEST_PENDING_SQL, placeholders),
+            (RowCallbackHandler) rs -> oldest.put(rs.getLong(1), rs.getLong(2)),
+            rideIds.toArray());
+        return oldest;
+    }
+}
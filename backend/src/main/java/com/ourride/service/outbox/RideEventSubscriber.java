@@ -0,0 +1,14 @@
+package com.ourride.service.outbox;
+
+/**
+ * In-process consumer of relayed ride events.
+ *
+ * Events of one ride arrive in the order they were written. Delivery is
+ * at-least-once: an event is redelivered if any subscriber throws or the
+ * relay stops before recording it as published, so handlers must be
+ * idempotent.
+ */
+public interface RideEventSubscriber {
+    
+    void onRideEvent(RideEvent event);
+}
@@ -0,0 +1,25 @@
+package com.ourride.service.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts relayed ride transitions per resulting status
+ */
+@Component
+@RequiredArgsConstructor
+public class RideTransitionMetrics implements RideEventSubscriber {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    public void onRideEvent(RideEvent event) {
+        Counter.builder("rides.transitions")
+            .description("Ride state transitions relayed from the outbox")
+            .tag("status", event.status())
+            .register(meterRegistry)
+            .increment();
+    }
+}
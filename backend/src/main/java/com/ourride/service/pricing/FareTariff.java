@@ -0,0 +1,60 @@
+package com.ourride.service.pricing;
+
+import com.ourride.model.entity.Ride;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Per-km tariff shared by estimates, quotes and final fares
+ */
+@Component
+public class FareTariff {
+    
+    // Base prices per km for different ride types
+    private static final BigDecimal BASE_PRICE_CAR = new BigDecimal("1.50");
+    private static final BigDecimal BASE_PRICE_CAR_XL = new BigDecimal("2.00");
+    private static final BigDecimal BASE_PRICE_CAR_PLUS = new BigDecimal("2.25");
+    private static final BigDecimal MINIMUM_FARE = new BigDecimal("5.00");
+    
+    // Every priceable ride type; motorbike and scooter rides are charged the car rate
+    private static final Map<String, BigDecimal> BASE_PRICES = Map.of(
+        Ride.RideType.CAR.name(), BASE_PRICE_CAR,
+        Ride.RideType.CAR_XL.name(), BASE_PRICE_CAR_XL,
+        Ride.RideType.CAR_PLUS.name(), BASE_PRICE_CAR_PLUS,
+        Ride.RideType.MOTORBIKE.name(), BASE_PRICE_CAR,
+        Ride.RideType.SCOOTER.name(), BASE_PRICE_CAR
+    );
+    
+    /**
+     * Whether the ride type has a tariff, in any letter case
+     */
+    public boolean supports(String rideType) {
+        return rideType != null && BASE_PRICES.containsKey(rideType.toUpperCase());
+    }
+    
+    /**
+     * Calculate price based on distance, ride type and surge multiplier
+     */
+    public BigDecimal price(BigDecimal distanceKm, String rideType, double surgeMultiplier) {
+        BigDecimal basePrice = rideType == null ? null : BASE_PRICES.get(rideType.toUpperCase());
+        if (basePrice == null) {
+            throw new RuntimeException("Invalid ride type: " + rideType);
+        }
+        
+        BigDecimal price = distanceKm.multiply(basePrice);
+        
+        // Apply minimum fare
+        if (price.compareTo(MINIMUM_FARE) < 0) {
+            price = MINIMUM_FARE;
+        }
+        
+        if (surgeMultiplier > SurgeSnapshot.NO_SURGE) {
+            price = price.multiply(BigDecimal.valueOf(surgeMultiplier));
+        }
+        
+        return price.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ourride.service.pricing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ourride.dto.response.PriceEstimateResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache of price estimates keyed by quantized pickup and destination cells,
+ * ride type and the surge multiplier at the pickup cell.
+ *
+ * Nearby map-drag requests collapse onto the same key. Because the key holds
+ * the pickup cell's own multiplier rather than the global surge epoch, a
+ * surge change elsewhere in the city leaves this cell's entries warm, while a
+ * change here moves its requests onto new keys. Caffeine provides size-bounded W-TinyLFU eviction and computes
+ * each missing key once, with concurrent callers for that key waiting on
+ * the same computation. Hit and miss counts are published as
+ * {@code cache.*} metrics under the name {@code price-estimates}.
+ */
+@Component
+public class PriceEstimateCache {
+    
+    private final Cache<EstimateKey, PriceEstimateResponse> cache;
+    private final double cellSizeDegrees;
+    
+    public PriceEstimateCache(MeterRegistry meterRegistry,
+                              @Value("${pricing.estimate-cache.max-size:100000}") long maxSize,
+                              @Value("${pricing.estimate-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${pricing.estimate-cache.cell-size-degrees:0.001}") double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "price-estimates");
+    }
+    
+    public EstimateKey keyFor(double pickupLat, double pickupLng, double destinationLat, double destinationLng,
+                              String rideType, SurgeSnapshot surge) {
+        int pickupLatCell = cellIndex(pickupLat);
+        int pickupLngCell = cellIndex(pickupLng);
+        // Priced at the cell centre, so the multiplier is read there too
+        double surgeMultiplier = surge.multiplierAt(cellCenter(pickupLatCell), cellCenter(pickupLngCell));
+        return new EstimateKey(
+            pickupLatCell, pickupLngCell,
+            cellIndex(destinationLat), cellIndex(destinationLng),
+            rideType.toUpperCase(), surgeMultiplier);
+    }
+    
+    /**
+     * Cached estimate for the key, computing it at most once per key
+     */
+    public PriceEstimateResponse get(EstimateKey key, Function<EstimateKey, PriceEstimateResponse> compute) {
+        return cache.get(key, compute);
+    }
+    
+    /**
+     * Latitude/longitude of a cell centre, so every request in a cell prices identically
+     */
+    public double cellCenter(int cellIndex) {
+        return (cellIndex + 0.5) * cellSizeDegrees;
+    }
+    
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+    
+    public record EstimateKey(int pickupLat, int pickupLng, int destinationLat, int destinationLng,
+                              String rideType, double surgeMultiplier) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.ourride.service.pricing;
+
+import com.ourride.model.entity.Ride;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Issues and verifies stateless, HMAC-signed price quotes.
+ *
+ * A quote binds the pickup and destination coordinates (in microdegrees),
+ * ride type, price, trip distance and duration, surge epoch and multiplier
+ * and expiry into a fixed 56-byte payload. The token is {@code base64url(payload)} followed
+ * by {@code .} and a truncated HMAC-SHA256 tag, so verifying a booking costs
+ * one MAC over a few dozen bytes and needs no quote storage.
+ *
+ * The signing key is {@code pricing.quote.secret} and must differ from the
+ * JWT key, so a leak of either cannot forge the other. Startup fails without
+ * it, except under the {@code dev} profile, where a key is derived from the
+ * JWT secret with HKDF-SHA256 under a quote-specific label.
+ */
+@Component
+public class QuoteTokenService {
+    
+    private static final byte VERSION = 2;
+    private static final int PAYLOAD_BYTES = 1 + 4 * 4 + 1 + 8 + 8 + 4 + 8 + 2 + 8;
+    private static final int TAG_BYTES = 16;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final double MICRODEGREES = 1_000_000.0;
+    private static final byte[] DERIVED_KEY_LABEL = "ourride price quote v2".getBytes(StandardCharsets.UTF_8);
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final Clock clock;
+    
+    // Mac instances are stateful and not thread-safe; keep one per request thread
+    private final ThreadLocal<Mac> macs;
+    
+    public QuoteTokenService(@Value("${pricing.quote.secret:}") String secret,
+                             @Value("${jwt.secret}") String jwtSecret,
+                             @Value("${pricing.quote.ttl-seconds:300}") long ttlSeconds,
+                             Environment environment) {
+        this.key = new SecretKeySpec(signingKey(secret, jwtSecret, environment.acceptsProfiles(Profiles.of("dev"))),
+            ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.clock = Clock.systemUTC();
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+    
+    /**
+     * Sign a quote valid for the configured TTL from now
+     */
+    public String issue(double pickupLat, double pickupLng, double destinationLat, double destinationLng,
+                        Ride.RideType rideType, BigDecimal price, BigDecimal distanceKm,
+                        int durationMinutes, long surgeEpoch, BigDecimal surgeMultiplier) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+            .put(VERSION)
+            .putInt(toMicrodegrees(pickupLat))
+            .putInt(toMicrodegrees(pickupLng))
+            .putInt(toMicrodegrees(destinationLat))
+            .putInt(toMicrodegrees(destinationLng))
+            .put((byte) rideType.ordinal())
+            .putLong(price.movePointRight(2).longValueExact())
+            .putLong(distanceKm.movePointRight(2).longValueExact())
+            .putInt(durationMinutes)
+            .putLong(surgeEpoch)
+            .putShort(surgeMultiplier.movePointRight(2).setScale(0, RoundingMode.HALF_UP).shortValueExact())
+            .putLong(clock.instant().getEpochSecond() + ttlSeconds);
+        
+        byte[] bytes = payload.array();
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(tag(bytes));
+    }
+    
+    /**
+     * Verify a token's signature and expiry and decode it.
+     * Throws when the token is malformed, tampered with or expired.
+     */
+    public Quote verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            throw new RuntimeException("Invalid price quote");
+        }
+        
+        byte[] payload;
+        byte[] tag;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            tag = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid price quote");
+        }
+        
+        if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(tag, tag(payload))) {
+            throw new RuntimeException("Invalid price quote");
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != VERSION) {
+            throw new RuntimeException("Invalid price quote");
+        }
+        
+        Quote quote = new Quote(
+            buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+            Ride.RideType.values()[buffer.get()],
+            BigDecimal.valueOf(buffer.getLong(), 2),
+            BigDecimal.valueOf(buffer.getLong(), 2),
+            buffer.getInt(),
+            buffer.getLong(),
+            BigDecimal.valueOf(buffer.getShort(), 2),
+            Instant.ofEpochSecond(buffer.getLong())
+        );
+        
+        if (clock.instant().isAfter(quote.expiresAt())) {
+            throw new RuntimeException("Price quote has expired");
+        }
+        return quote;
+    }
+    
+    /**
+     * The configured quote secret, or in dev a key derived from the JWT secret
+     */
+    static byte[] signingKey(String secret, String jwtSecret, boolean dev) {
+        if (secret != null && !secret.isBlank() && !secret.equals(jwtSecret)) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (!dev) {
+            throw new IllegalStateException(
+                "pricing.quote.secret (QUOTE_SECRET) must be set to a key separate from jwt.secret");
+        }
+        return hkdfSha256(jwtSecret.getBytes(StandardCharsets.UTF_8), DERIVED_KEY_LABEL);
+    }
+    
+    /**
+     * RFC 5869 HKDF with an all-zero salt, expanded to one 32-byte block
+     */
+    private static byte[] hkdfSha256(byte[] inputKey, byte[] info) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(new byte[32], ALGORITHM));
+            byte[] pseudoRandomKey = mac.doFinal(inputKey);
+            mac.init(new SecretKeySpec(pseudoRandomKey, ALGORITHM));
+            mac.update(info);
+            mac.update((byte) 1);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+    
+    private byte[] tag(byte[] payload) {
+        return Arrays.copyOf(macs.get().doFinal(payload), TAG_BYTES);
+    }
+    
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+    
+    public static int toMicrodegrees(double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES);
+    }
+    
+    /**
+     * A verified quote. Coordinates are in microdegrees.
+     */
+    public record Quote(int pickupLat, int pickupLng, int destinationLat, int destinationLng,
+                        Ride.RideType rideType, BigDecimal price, BigDecimal distanceKm,
+                        int durationMinutes, long surgeEpoch, BigDecimal surgeMultiplier, Instant expiresAt) {
+        
+        /**
+         * Whether the quote was issued for exactly these coordinates
+         */
+        public boolean covers(double pickupLatitude, double pickupLongitude,
+                              double destinationLatitude, double destinationLongitude) {
+            return pickupLat == toMicrodegrees(pickupLatitude)
+                && pickupLng == toMicrodegrees(pickupLongitude)
+                && destinationLat == toMicrodegrees(destinationLatitude)
+                && destinationLng == toMicrodegrees(destinationLongitude);
+        }
+    }
+}
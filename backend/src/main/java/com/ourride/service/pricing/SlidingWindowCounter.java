@@ -0,0 +1,62 @@
+package com.ourride.service.pricing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter over a sliding time window made of fixed-size buckets.
+ *
+ * Each bucket remembers which time slice it belongs to; the first writer in
+ * a new slice claims the bucket by CAS and clears it. Increments that race
+ * with that reset can be lost, which is fine for a rate signal.
+ */
+public class SlidingWindowCounter {
+    
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray slices;
+    
+    public SlidingWindowCounter(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.counts = new AtomicLongArray(bucketCount);
+        this.slices = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            slices.set(i, -1);
+        }
+    }
+    
+    public void add(long nowMillis, long delta) {
+        long slice = nowMillis / bucketMillis;
+        int index = (int) (slice % bucketCount);
+        long current = slices.get(index);
+        if (current != slice && slices.compareAndSet(index, current, slice)) {
+            counts.set(index, 0);
+        }
+        counts.addAndGet(index, delta);
+    }
+    
+    public void increment(long nowMillis) {
+        add(nowMillis, 1);
+    }
+    
+    /**
+     * Sum of all buckets still inside the window ending at {@code nowMillis}
+     */
+    public long sum(long nowMillis) {
+        long newest = nowMillis / bucketMillis;
+        long oldest = newest - bucketCount + 1;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long slice = slices.get(i);
+            if (slice >= oldest && slice <= newest) {
+                total += counts.get(i);
+            }
+        }
+        return total;
+    }
+    
+    public long windowMillis() {
+        return bucketMillis * bucketCount;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ourride.service.pricing;
+
+import com.ourride.service.dispatch.DriverSpatialIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Supply/demand surge multipliers per geographic cell.
+ *
+ * Ride requests are counted as they happen; available drivers are sampled
+ * from the spatial index on every recompute. Both feed per-cell sliding
+ * windows, and each recompute publishes a fresh {@link SurgeSnapshot}. The
+ * pricing path only reads the current snapshot reference, so it never
+ * touches the database or a lock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SurgePricingEngine {
+    
+    private final DriverSpatialIndex driverSpatialIndex;
+    
+    @Value("${pricing.surge.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${pricing.surge.cell-size-degrees:0.02}")
+    private double cellSizeDegrees;
+    
+    @Value("${pricing.surge.window-seconds:300}")
+    private int windowSeconds;
+    
+    @Value("${pricing.surge.bucket-seconds:10}")
+    private int bucketSeconds;
+    
+    @Value("${pricing.surge.demand-supply-threshold:1.0}")
+    private double threshold;
+    
+    @Value("${pricing.surge.sensitivity:0.5}")
+    private double sensitivity;
+    
+    @Value("${pricing.surge.max-multiplier:3.0}")
+    private double maxMultiplier;
+    
+    private final Map<Long, CellCounters> cells = new ConcurrentHashMap<>();
+    private volatile SurgeSnapshot snapshot = new SurgeSnapshot(0, 0.02, Map.of());
+    
+    @PostConstruct
+    void init() {
+        snapshot = new SurgeSnapshot(0, cellSizeDegrees, Map.of());
+    }
+    
+    /**
+     * Count a ride request at its pickup point
+     */
+    public void recordRequest(double latitude, double longitude) {
+        if (enabled) {
+            counters(SurgeSnapshot.cellKey(latitude, longitude, cellSizeDegrees))
+                .requests.increment(System.currentTimeMillis());
+        }
+    }
+    
+    /**
+     * Current snapshot; read once per pricing call so price and epoch agree
+     */
+    public SurgeSnapshot currentSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Sample supply, recompute every cell's multiplier and publish a new snapshot
+     */
+    @Scheduled(fixedDelayString = "${pricing.surge.recompute-ms:5000}")
+    public void recompute() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        
+        Map<Long, int[]> supply = new HashMap<>();
+        driverSpatialIndex.forEachAvailable((latitude, longitude) ->
+            supply.computeIfAbsent(SurgeSnapshot.cellKey(latitude, longitude, cellSizeDegrees),
+                cell -> new int[1])[0]++);
+        supply.keySet().forEach(this::counters);
+        // Every known cell takes a sample, so empty ticks pull its average supply down
+        cells.forEach((cell, counters) -> {
+            int[] count = supply.get(cell);
+            counters.supplySamples.add(now, count != null ? count[0] : 0);
+            counters.samples.increment(now);
+        });
+        
+        Map<Long, Double> multipliers = new HashMap<>();
+        cells.forEach((cell, counters) -> {
+            long requests = counters.requests.sum(now);
+            long samples = Math.max(counters.samples.sum(now), 1);
+            double averageSupply = (double) counters.supplySamples.sum(now) / samples;
+            
+            if (requests == 0 && averageSupply == 0) {
+                // Nothing happening here any more; let the cell go
+                cells.remove(cell, counters);
+                return;
+            }
+            
+            double multiplier = multiplierFor(requests, averageSupply);
+            if (multiplier > SurgeSnapshot.NO_SURGE) {
+                multipliers.put(cell, multiplier);
+            }
+        });
+        
+        // Only a real change starts a new epoch, so clients comparing epochs see actual surge moves
+        SurgeSnapshot current = snapshot;
+        if (!multipliers.equals(current.multipliers())) {
+            snapshot = new SurgeSnapshot(current.epoch() + 1, cellSizeDegrees, Map.copyOf(multipliers));
+            log.debug("Surge epoch {}: {} surging cells", current.epoch() + 1, multipliers.size());
+        }
+    }
+    
+    private double multiplierFor(long requests, double averageSupply) {
+        double ratio = requests / Math.max(averageSupply, 1.0);
+        double raw = 1.0 + sensitivity * (ratio - threshold);
+        double clamped = Math.max(SurgeSnapshot.NO_SURGE, Math.min(raw, maxMultiplier));
+        // Publish in 0.1 steps so prices do not flicker between recomputes
+        return Math.round(clamped * 10) / 10.0;
+    }
+    
+    private CellCounters counters(long cell) {
+        return cells.computeIfAbsent(cell, key -> new CellCounters(bucketSeconds * 1000L,
+            Math.max(windowSeconds / bucketSeconds, 1)));
+    }
+    
+    private static final class CellCounters {
+        private final SlidingWindowCounter requests;
+        private final SlidingWindowCounter supplySamples;
+        private final SlidingWindowCounter samples;
+        
+        CellCounters(long bucketMillis, int buckets) {
+            requests = new SlidingWindowCounter(bucketMillis, buckets);
+            supplySamples = new SlidingWindowCounter(bucketMillis, buckets);
+            samples = new SlidingWindowCounter(bucketMillis, buckets);
+        }
+    }
+}
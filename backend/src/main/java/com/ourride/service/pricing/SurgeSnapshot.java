@@ -0,0 +1,22 @@
+package com.ourride.service.pricing;
+
+import java.util.Map;
+
+/**
+ * Immutable per-cell surge multipliers published by {@link SurgePricingEngine}.
+ * Cells without an entry are not surging.
+ */
+public record SurgeSnapshot(long epoch, double cellSizeDegrees, Map<Long, Double> multipliers) {
+    
+    public static final double NO_SURGE = 1.0;
+    
+    public double multiplierAt(double latitude, double longitude) {
+        return multipliers.getOrDefault(cellKey(latitude, longitude, cellSizeDegrees), NO_SURGE);
+    }
+    
+    static long cellKey(double latitude, double longitude, double cellSizeDegrees) {
+        long latIndex = (long) Math.floor(latitude / cellSizeDegrees);
+        long lngIndex = (long) Math.floor(longitude / cellSizeDegrees);
+        return (latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+}
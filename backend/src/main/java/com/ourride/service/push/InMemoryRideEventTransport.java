@@ -0,0 +1,69 @@
+package com.ourride.service.push;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process stand-in for the Redis transport.
+ *
+ * Transports that share a {@link Bus} behave like nodes on one Redis, which
+ * lets several hubs run as a cluster inside a single JVM. The Spring bean
+ * gets a private bus, i.e. a single node with no peers.
+ */
+@Component
+@ConditionalOnProperty(name = "push.relay.transport", havingValue = "memory")
+public class InMemoryRideEventTransport implements RideEventTransport {
+    
+    private final Bus bus;
+    private final Set<String> channels = ConcurrentHashMap.newKeySet();
+    private volatile BiConsumer<String, byte[]> receiver = (channel, body) -> { };
+    
+    public InMemoryRideEventTransport() {
+        this(new Bus());
+    }
+    
+    public InMemoryRideEventTransport(Bus bus) {
+        this.bus = bus;
+        bus.members.add(this);
+    }
+    
+    @Override
+    public void setReceiver(BiConsumer<String, byte[]> receiver) {
+        this.receiver = receiver;
+    }
+    
+    @Override
+    public void subscribe(String channel) {
+        channels.add(channel);
+    }
+    
+    @Override
+    public void unsubscribe(String channel) {
+        channels.remove(channel);
+    }
+    
+    @Override
+    public void publish(Map<String, byte[]> messagesByChannel) {
+        for (InMemoryRideEventTransport member : bus.members) {
+            for (Map.Entry<String, byte[]> entry : messagesByChannel.entrySet()) {
+                if (member.channels.contains(entry.getKey())) {
+                    member.receiver.accept(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Shared medium for a group of in-memory transports
+     */
+    public static final class Bus {
+        private final List<InMemoryRideEventTransport> members = new CopyOnWriteArrayList<>();
+    }
+}
@@ -0,0 +1,8 @@
+package com.ourride.service.push;
+
+/**
+ * Driver position pushed to riders of the ride that driver is serving
+ */
+public record PositionFrame(long rideId, long driverId, double latitude, double longitude,
+                            float heading, float speed, long timestamp) {
+}
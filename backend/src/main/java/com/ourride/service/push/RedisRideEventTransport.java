@@ -0,0 +1,73 @@
+package com.ourride.service.push;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Redis pub/sub transport. A tick's messages go out in one pipelined round
+ * trip, and this node listens only on the channels its riders need.
+ */
+@Component
+@ConditionalOnProperty(name = "push.relay.transport", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisRideEventTransport implements RideEventTransport {
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MessageListener listener;
+    
+    private volatile BiConsumer<String, byte[]> receiver = (channel, body) -> { };
+    
+    public RedisRideEventTransport(StringRedisTemplate redisTemplate,
+                                   RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.listener = (message, pattern) ->
+            receiver.accept(new String(message.getChannel(), StandardCharsets.UTF_8), message.getBody());
+    }
+    
+    @Override
+    public void setReceiver(BiConsumer<String, byte[]> receiver) {
+        this.receiver = receiver;
+    }
+    
+    @Override
+    public void subscribe(String channel) {
+        listenerContainer.addMessageListener(listener, new ChannelTopic(channel));
+    }
+    
+    @Override
+    public void unsubscribe(String channel) {
+        listenerContainer.removeMessageListener(listener, new ChannelTopic(channel));
+    }
+    
+    @Override
+    public void publish(Map<String, byte[]> messagesByChannel) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                publishAll(connection, messagesByChannel);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not relay {} ride event messages: {}", messagesByChannel.size(), e.getMessage());
+        }
+    }
+    
+    private static void publishAll(RedisConnection connection, Map<String, byte[]> messagesByChannel) {
+        for (Map.Entry<String, byte[]> entry : messagesByChannel.entrySet()) {
+            connection.publish(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.ourride.service.push;
+
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Ride;
+import com.ourride.service.tracking.DriverLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events fan-out of ride updates and driver positions.
+ *
+ * Riders open one stream per active trip and receive a {@code ride} event
+ * with the full RideResponse on every status change, plus {@code position}
+ * events for the assigned driver. Slow subscribers have stale positions
+ * coalesced away; a subscriber whose ride-update queue overflows is
+ * disconnected and re-syncs from the snapshot sent on reconnect. A comment
+ * heartbeat keeps idle connections open through proxies.
+ *
+ * Events published here are delivered to this node's subscribers at once
+ * and handed to the {@link RideEventRelay} for subscribers on other nodes.
+ */
+@Component
+@Slf4j
+public class RideEventHub implements RideEventRelay.Delivery {
+    
+    private final Map<Long, Set<RideSubscriber>> subscribersByRide = new ConcurrentHashMap<>();
+    private final Map<Long, Long> rideByDriver = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverByRide = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    
+    private final ExecutorService senderPool;
+    private final RideEventRelay relay;
+    private final Counter coalescedPositions;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+    
+    public RideEventHub(@Qualifier("rideEventSenderPool") ExecutorService senderPool,
+                        RideEventRelay relay,
+                        MeterRegistry meterRegistry,
+                        @Value("${push.sse-timeout-ms:1800000}") long timeoutMillis,
+                        @Value("${push.queue-capacity:32}") int queueCapacity) {
+        this.senderPool = senderPool;
+        this.relay = relay;
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+        this.coalescedPositions = meterRegistry.counter("push.positions.coalesced");
+        meterRegistry.gauge("push.subscribers", subscriberCount);
+        relay.setDelivery(this);
+    }
+    
+    /**
+     * Open a stream for a ride, starting with its current state
+     */
+    public SseEmitter subscribe(RideResponse snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        RideSubscriber subscriber = new RideSubscriber(snapshot.getId(), emitter, queueCapacity);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        
+        subscribersByRide.compute(snapshot.getId(), (rideId, subscribers) -> {
+            Set<RideSubscriber> set = subscribers;
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+                relay.subscribeRide(rideId);
+            }
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        trackDriver(snapshot);
+        
+        subscriber.offerUpdate(snapshot);
+        schedule(subscriber);
+        return emitter;
+    }
+    
+    /**
+     * Push a ride's new state to its subscribers on every node
+     */
+    public void publishRide(RideResponse ride) {
+        deliverRide(ride);
+        relay.publishRide(ride);
+    }
+    
+    /**
+     * Push a driver's position to riders of the ride they are serving, on every node
+     */
+    public void publishPosition(DriverLocation location) {
+        deliverPosition(location);
+        relay.publishPosition(location);
+    }
+    
+    /**
+     * Push a ride's new state to this node's subscribers
+     */
+    @Override
+    public void deliverRide(RideResponse ride) {
+        Set<RideSubscriber> subscribers = subscribersByRide.get(ride.getId());
+        if (subscribers == null) {
+            return;
+        }
+        trackDriver(ride);
+        
+        for (RideSubscriber subscriber : subscribers) {
+            if (!subscriber.offerUpdate(ride)) {
+                log.warn("Subscriber to ride {} fell {} updates behind, disconnecting", ride.getId(), queueCapacity);
+                unsubscribe(subscriber);
+                subscriber.emitter().complete();
+                continue;
+            }
+            schedule(subscriber);
+        }
+    }
+    
+    /**
+     * Push a driver's position to this node's riders of the ride they are serving
+     */
+    @Override
+    public void deliverPosition(DriverLocation location) {
+        Long rideId = rideByDriver.get(location.driverId());
+        if (rideId == null) {
+            return;
+        }
+        Set<RideSubscriber> subscribers = subscribersByRide.get(rideId);
+        if (subscribers == null) {
+            return;
+        }
+        
+        PositionFrame frame = new PositionFrame(rideId, location.driverId(), location.latitude(),
+            location.longitude(), location.heading(), location.speed(), location.timestamp());
+        for (RideSubscriber subscriber : subscribers) {
+            if (subscriber.offerPosition(frame)) {
+                coalescedPositions.increment();
+            }
+            schedule(subscriber);
+        }
+    }
+    
+    /**
+     * Keep idle streams alive through proxies and detect dead connections
+     */
+    @Scheduled(fixedRateString = "${push.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<RideSubscriber> subscribers : subscribersByRide.values()) {
+            for (RideSubscriber subscriber : subscribers) {
+                subscriber.requestHeartbeat();
+                schedule(subscriber);
+            }
+        }
+    }
+    
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    private void schedule(RideSubscriber subscriber) {
+        if (!subscriber.tryStartDrain()) {
+            return;
+        }
+        try {
+            senderPool.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            unsubscribe(subscriber);
+        }
+    }
+    
+    private void drain(RideSubscriber subscriber) {
+        try {
+            while (subscriber.drain()) {
+                // More frames arrived while sending; keep the claim and go again
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected or the emitter already completed
+            log.debug("Dropping subscriber to ride {}: {}", subscriber.rideId(), e.getMessage());
+            unsubscribe(subscriber);
+        }
+    }
+    
+    /**
+     * Follow the ride's current driver so their pings reach this ride's subscribers
+     */
+    private void trackDriver(RideResponse ride) {
+        boolean finished = Ride.RideStatus.COMPLETED.name().equals(ride.getStatus())
+            || Ride.RideStatus.CANCELLED.name().equals(ride.getStatus());
+        Long driverId = finished ? null : ride.getDriverId();
+        Long previous = driverId == null
+            ? driverByRide.remove(ride.getId())
+            : driverByRide.put(ride.getId(), driverId);
+        if (previous != null && !previous.equals(driverId)) {
+            stopFollowing(previous, ride.getId());
+        }
+        if (driverId != null && !driverId.equals(previous)) {
+            rideByDriver.put(driverId, ride.getId());
+            relay.subscribeDriver(driverId);
+        }
+    }
+    
+    private void stopFollowing(Long driverId, Long rideId) {
+        if (rideByDriver.remove(driverId, rideId)) {
+            relay.unsubscribeDriver(driverId);
+        }
+    }
+    
+    private void unsubscribe(RideSubscriber subscriber) {
+        if (subscriber.isClosed()) {
+            return;
+        }
+        subscriber.close();
+        subscriberCount.decrementAndGet();
+        
+        long rideId = subscriber.rideId();
+        Set<RideSubscriber> remaining = subscribersByRide.computeIfPresent(rideId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (remaining == null) {
+            relay.unsubscribeRide(rideId);
+            Long driverId = driverByRide.remove(rideId);
+            if (driverId != null) {
+                stopFollowing(driverId, rideId);
+            }
+        }
+    }
+}
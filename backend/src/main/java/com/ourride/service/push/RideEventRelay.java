@@ -0,0 +1,188 @@
+package com.ourride.service.push;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ourride.dto.response.RideResponse;
+import com.ourride.service.tracking.DriverLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays ride events between nodes so a rider connected to one node sees
+ * updates and driver pings that arrive on another.
+ *
+ * Ride updates travel on a per-ride channel and positions on a per-driver
+ * channel; each node subscribes only to the channels of rides it has live
+ * subscribers for. Outgoing events are buffered per channel and flushed
+ * once per tick, with positions coalesced to the newest, so a burst of
+ * pings costs one message per driver per tick and one transport round
+ * trip in total. Local subscribers are served directly by the hub, and a
+ * node ignores its own messages when they echo back.
+ */
+@Component
+@Slf4j
+public class RideEventRelay {
+    
+    private static final String RIDE_CHANNEL_PREFIX = "rides:events:ride:";
+    private static final String DRIVER_CHANNEL_PREFIX = "rides:events:driver:";
+    
+    private final RideEventTransport transport;
+    private final ObjectMapper objectMapper;
+    private final Timer latency;
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private final Map<String, PendingBatch> pending = new ConcurrentHashMap<>();
+    private volatile Delivery delivery = new Delivery() {
+        @Override
+        public void deliverRide(RideResponse ride) {
+        }
+        
+        @Override
+        public void deliverPosition(DriverLocation location) {
+        }
+    };
+    
+    public RideEventRelay(RideEventTransport transport, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.latency = Timer.builder("push.relay.latency")
+            .description("Time from an event being queued on one node to its delivery on another")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(5))
+            .register(meterRegistry);
+        transport.setReceiver(this::receive);
+    }
+    
+    /**
+     * Set where events from other nodes are delivered
+     */
+    public void setDelivery(Delivery delivery) {
+        this.delivery = delivery;
+    }
+    
+    public void subscribeRide(long rideId) {
+        transport.subscribe(RIDE_CHANNEL_PREFIX + rideId);
+    }
+    
+    public void unsubscribeRide(long rideId) {
+        transport.unsubscribe(RIDE_CHANNEL_PREFIX + rideId);
+    }
+    
+    public void subscribeDriver(long driverId) {
+        transport.subscribe(DRIVER_CHANNEL_PREFIX + driverId);
+    }
+    
+    public void unsubscribeDriver(long driverId) {
+        transport.unsubscribe(DRIVER_CHANNEL_PREFIX + driverId);
+    }
+    
+    /**
+     * Queue a ride update for other nodes; all updates in a tick are sent, in order
+     */
+    public void publishRide(RideResponse ride) {
+        pending.compute(RIDE_CHANNEL_PREFIX + ride.getId(), (channel, batch) -> {
+            PendingBatch updated = batch != null ? batch : new PendingBatch(System.currentTimeMillis());
+            updated.rides.add(ride);
+            return updated;
+        });
+    }
+    
+    /**
+     * Queue a driver position for other nodes; only the newest per tick is sent
+     */
+    public void publishPosition(DriverLocation location) {
+        pending.compute(DRIVER_CHANNEL_PREFIX + location.driverId(), (channel, batch) -> {
+            PendingBatch updated = batch != null ? batch : new PendingBatch(System.currentTimeMillis());
+            if (updated.position == null || location.timestamp() >= updated.position.timestamp()) {
+                updated.position = location;
+            }
+            return updated;
+        });
+    }
+    
+    /**
+     * Send everything queued since the last tick
+     */
+    @Scheduled(fixedDelayString = "${push.relay.tick-ms:50}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        Map<String, byte[]> messages = new HashMap<>();
+        for (String channel : pending.keySet()) {
+            // remove() is atomic with compute(), so a batch is never written after it is taken
+            PendingBatch batch = pending.remove(channel);
+            if (batch == null) {
+                continue;
+            }
+            try {
+                messages.put(channel, objectMapper.writeValueAsBytes(
+                    new RelayEnvelope(nodeId, batch.queuedAt, batch.rides, batch.position)));
+            } catch (IOException e) {
+                log.error("Could not encode relay message for {}: {}", channel, e.getMessage());
+            }
+        }
+        
+        if (!messages.isEmpty()) {
+            transport.publish(messages);
+        }
+    }
+    
+    private void receive(String channel, byte[] body) {
+        RelayEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(body, RelayEnvelope.class);
+        } catch (IOException e) {
+            log.warn("Dropping malformed relay message on {}: {}", channel, e.getMessage());
+            return;
+        }
+        if (nodeId.equals(envelope.origin())) {
+            return;
+        }
+        
+        latency.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - envelope.queuedAt())));
+        if (envelope.rides() != null) {
+            for (RideResponse ride : envelope.rides()) {
+                delivery.deliverRide(ride);
+            }
+        }
+        if (envelope.position() != null) {
+            delivery.deliverPosition(envelope.position());
+        }
+    }
+    
+    /**
+     * Receiver of events relayed from other nodes
+     */
+    public interface Delivery {
+        void deliverRide(RideResponse ride);
+        
+        void deliverPosition(DriverLocation location);
+    }
+    
+    private static final class PendingBatch {
+        private final long queuedAt;
+        private final List<RideResponse> rides = new ArrayList<>(1);
+        private DriverLocation position;
+        
+        private PendingBatch(long queuedAt) {
+            this.queuedAt = queuedAt;
+        }
+    }
+    
+    record RelayEnvelope(String origin, long queuedAt, List<RideResponse> rides, DriverLocation position) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.ourride.service.push;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Moves encoded relay messages between nodes on named channels
+ */
+public interface RideEventTransport {
+    
+    /**
+     * Set the callback for messages arriving on subscribed channels
+     */
+    void setReceiver(BiConsumer<String, byte[]> receiver);
+    
+    void subscribe(String channel);
+    
+    void unsubscribe(String channel);
+    
+    /**
+     * Publish one tick's worth of messages, one per channel
+     */
+    void publish(Map<String, byte[]> messagesByChannel);
+}
@@ -0,0 +1,43 @@
+package com.ourride.service.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Ride;
+import com.ourride.service.outbox.RideEvent;
+import com.ourride.service.outbox.RideEventSubscriber;
+import com.ourride.service.trace.TripTraceStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies relayed ride transitions to trip tracing and pushes them to live
+ * subscribers. Both are idempotent, so redelivered events are harmless.
+ */
+@Component
+@RequiredArgsConstructor
+public class RidePushSubscriber implements RideEventSubscriber {
+    
+    private final RideEventHub rideEventHub;
+    private final TripTraceStore tripTraceStore;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void onRideEvent(RideEvent event) {
+        tripTraceStore.rideChanged(Ride.builder()
+            .id(event.rideId())
+            .userId(event.userId())
+            .driverId(event.driverId())
+            .status(Ride.RideStatus.valueOf(event.status()))
+            .build());
+        
+        RideResponse ride;
+        try {
+            ride = objectMapper.readValue(event.payload(), RideResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable payload in ride event " + event.id(), e);
+        }
+        // Subscribers may be on any node, so every change is published
+        rideEventHub.publishRide(ride);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ourride.service.push;
+
+import com.ourride.dto.response.RideResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One rider's event stream for one ride.
+ *
+ * Ride updates wait in a bounded queue and are all delivered in order.
+ * Positions are kept in a single slot, so under backpressure a newer
+ * position overwrites the unsent one instead of queueing behind it. At most
+ * one drain runs at a time, on the hub's sender pool, so a slow connection
+ * only ever ties up one sender thread.
+ */
+final class RideSubscriber {
+    
+    private final long rideId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<RideResponse> updates;
+    private final AtomicReference<PositionFrame> pendingPosition = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean heartbeatDue;
+    private volatile boolean closed;
+    
+    RideSubscriber(long rideId, SseEmitter emitter, int queueCapacity) {
+        this.rideId = rideId;
+        this.emitter = emitter;
+        this.updates = new ArrayBlockingQueue<>(queueCapacity);
+    }
+    
+    long rideId() {
+        return rideId;
+    }
+    
+    SseEmitter emitter() {
+        return emitter;
+    }
+    
+    boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Queue a ride update; false when the subscriber is too far behind
+     */
+    boolean offerUpdate(RideResponse update) {
+        return updates.offer(update);
+    }
+    
+    /**
+     * Replace any unsent position; returns true when one was overwritten
+     */
+    boolean offerPosition(PositionFrame position) {
+        return pendingPosition.getAndSet(position) != null;
+    }
+    
+    void requestHeartbeat() {
+        heartbeatDue = true;
+    }
+    
+    /**
+     * Claim the right to drain; the caller must then run {@link #drain()}
+     */
+    boolean tryStartDrain() {
+        return !closed && draining.compareAndSet(false, true);
+    }
+    
+    /**
+     * Send everything pending. Returns true when more work arrived after the
+     * drain released its claim and was re-claimed by this call's caller.
+     */
+    boolean drain() throws IOException {
+        try {
+            RideResponse update;
+            while ((update = updates.poll()) != null) {
+                emitter.send(SseEmitter.event().name("ride").data(update));
+            }
+            PositionFrame position = pendingPosition.getAndSet(null);
+            if (position != null) {
+                emitter.send(SseEmitter.event().name("position").data(position));
+            }
+            if (heartbeatDue) {
+                heartbeatDue = false;
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } finally {
+            draining.set(false);
+        }
+        // Work offered between the last poll and releasing the claim would otherwise be stranded
+        return hasPending() && tryStartDrain();
+    }
+    
+    void close() {
+        closed = true;
+    }
+    
+    private boolean hasPending() {
+        return !updates.isEmpty() || pendingPosition.get() != null || heartbeatDue;
+    }
+}
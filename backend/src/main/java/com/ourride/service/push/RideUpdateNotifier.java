@@ -0,0 +1,41 @@
+package com.ourride.service.push;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.service.RideResponseMapper;
+import com.ourride.service.cache.ActiveRideCache;
+import com.ourride.service.outbox.RideEventOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Single hook for ride state changes. The change is recorded in the ride
+ * event outbox within the caller's transaction and cached views of the ride
+ * are dropped; once it commits the outbox relay is woken so trip tracing and
+ * live subscribers see it without waiting for the next poll.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideUpdateNotifier {
+    
+    private final ActiveRideCache activeRideCache;
+    private final RideResponseMapper rideResponseMapper;
+    private final RideEventOutbox rideEventOutbox;
+    
+    public void rideChanged(Ride ride) {
+        activeRideCache.invalidate(ride.getUserId());
+        rideEventOutbox.append(ride, rideResponseMapper.toResponse(ride));
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rideEventOutbox.wakeUp();
+                }
+            });
+        } else {
+            rideEventOutbox.wakeUp();
+        }
+    }
+}
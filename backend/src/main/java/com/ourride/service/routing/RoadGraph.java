@@ -0,0 +1,198 @@
+package com.ourride.service.routing;
+
+import com.ourride.util.GeoMath;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Directed road graph in compressed sparse row (CSR) form.
+ *
+ * The binary file is produced offline (e.g. from an OSM extract) and is a
+ * sequence of little-endian 32-bit ints:
+ *
+ * <pre>
+ * magic "ORRG", version, nodeCount, edgeCount
+ * latitude[nodeCount]      microdegrees
+ * longitude[nodeCount]     microdegrees
+ * firstEdge[nodeCount + 1] offsets into the edge arrays
+ * edgeTarget[edgeCount]
+ * edgeLength[edgeCount]    metres
+ * edgeTime[edgeCount]      tenths of a second
+ * </pre>
+ *
+ * A reverse CSR is derived at load time for backward searches.
+ */
+public final class RoadGraph {
+    
+    static final int MAGIC = 0x4752524F; // "ORRG" read little-endian
+    static final int VERSION = 1;
+    
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double MICRODEGREES = 1_000_000.0;
+    
+    final int nodeCount;
+    final int[] latitudeE6;
+    final int[] longitudeE6;
+    
+    final int[] firstEdge;
+    final int[] edgeTarget;
+    final int[] edgeLength;
+    final int[] edgeTime;
+    
+    final int[] reverseFirstEdge;
+    final int[] reverseEdgeSource;
+    final int[] reverseEdgeLength;
+    final int[] reverseEdgeTime;
+    
+    private final Map<Long, int[]> nodesByCell;
+    
+    RoadGraph(int[] latitudeE6, int[] longitudeE6, int[] firstEdge,
+              int[] edgeTarget, int[] edgeLength, int[] edgeTime) {
+        this.nodeCount = latitudeE6.length;
+        this.latitudeE6 = latitudeE6;
+        this.longitudeE6 = longitudeE6;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeLength = edgeLength;
+        this.edgeTime = edgeTime;
+        
+        int edgeCount = edgeTarget.length;
+        reverseFirstEdge = new int[nodeCount + 1];
+        reverseEdgeSource = new int[edgeCount];
+        reverseEdgeLength = new int[edgeCount];
+        reverseEdgeTime = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            reverseFirstEdge[edgeTarget[e] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            reverseFirstEdge[v + 1] += reverseFirstEdge[v];
+        }
+        int[] fill = Arrays.copyOf(reverseFirstEdge, nodeCount);
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+                int slot = fill[edgeTarget[e]]++;
+                reverseEdgeSource[slot] = u;
+                reverseEdgeLength[slot] = edgeLength[e];
+                reverseEdgeTime[slot] = edgeTime[e];
+            }
+        }
+        
+        nodesByCell = buildCellIndex();
+    }
+    
+    /**
+     * Memory-map and decode a graph file
+     */
+    public static RoadGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer ints = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            
+            if (ints.get() != MAGIC) {
+                throw new IOException("Not a road graph file: " + file);
+            }
+            int version = ints.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported road graph version " + version);
+            }
+            int nodeCount = ints.get();
+            int edgeCount = ints.get();
+            
+            return new RoadGraph(
+                read(ints, nodeCount),
+                read(ints, nodeCount),
+                read(ints, nodeCount + 1),
+                read(ints, edgeCount),
+                read(ints, edgeCount),
+                read(ints, edgeCount)
+            );
+        }
+    }
+    
+    public int nodeCount() {
+        return nodeCount;
+    }
+    
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+    
+    double latitude(int node) {
+        return latitudeE6[node] / MICRODEGREES;
+    }
+    
+    double longitude(int node) {
+        return longitudeE6[node] / MICRODEGREES;
+    }
+    
+    /**
+     * Closest node to a point within {@code maxKm}, or -1
+     */
+    int nearestNode(double latitude, double longitude, double maxKm) {
+        int centerLat = (int) Math.floor(latitude / CELL_SIZE_DEGREES);
+        int centerLng = (int) Math.floor(longitude / CELL_SIZE_DEGREES);
+        int rings = (int) Math.ceil(maxKm / (CELL_SIZE_DEGREES * GeoMath.KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01)));
+        
+        int best = -1;
+        double bestKm = maxKm;
+        for (int dLat = -rings; dLat <= rings; dLat++) {
+            for (int dLng = -rings; dLng <= rings; dLng++) {
+                int[] nodes = nodesByCell.get(cellKey(centerLat + dLat, centerLng + dLng));
+                if (nodes == null) {
+                    continue;
+                }
+                for (int node : nodes) {
+                    double km = GeoMath.haversineKm(latitude, longitude, latitude(node), longitude(node));
+                    if (km <= bestKm) {
+                        bestKm = km;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    private Map<Long, int[]> buildCellIndex() {
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int v = 0; v < nodeCount; v++) {
+            long key = cellKey(latitude(v), longitude(v));
+            int[] count = counts.computeIfAbsent(key, k -> new int[1]);
+            count[0]++;
+        }
+        Map<Long, int[]> cells = new HashMap<>(counts.size() * 2);
+        Map<Long, int[]> cursor = new HashMap<>(counts.size() * 2);
+        counts.forEach((key, count) -> {
+            cells.put(key, new int[count[0]]);
+            cursor.put(key, new int[1]);
+        });
+        for (int v = 0; v < nodeCount; v++) {
+            long key = cellKey(latitude(v), longitude(v));
+            cells.get(key)[cursor.get(key)[0]++] = v;
+        }
+        return cells;
+    }
+    
+    private static long cellKey(double latitude, double longitude) {
+        return cellKey((int) Math.floor(latitude / CELL_SIZE_DEGREES), (int) Math.floor(longitude / CELL_SIZE_DEGREES));
+    }
+    
+    private static long cellKey(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+    
+    private static int[] read(IntBuffer ints, int length) {
+        int[] values = new int[length];
+        ints.get(values);
+        return values;
+    }
+}
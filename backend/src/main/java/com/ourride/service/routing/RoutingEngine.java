@@ -0,0 +1,420 @@
+package com.ourride.service.routing;
+
+import com.ourride.util.GeoMath;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline shortest-time routing over a {@link RoadGraph}.
+ *
+ * Point-to-point queries use A* with landmark lower bounds (ALT): distances
+ * to and from a handful of far-apart landmarks are precomputed at startup
+ * and the triangle inequality turns them into a tight, consistent heuristic.
+ * One-to-many queries run a single backward Dijkstra from the target.
+ *
+ * Each search needs node-sized scratch arrays (about 20 bytes per node), so
+ * they come from a pool of at most {@code routing.search-states} instances
+ * shared by all threads; a query waits when every one is in use.
+ *
+ * When no graph file is configured every query returns null and callers
+ * fall back to straight-line estimates.
+ */
+@Component
+@Slf4j
+public class RoutingEngine {
+    
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    // Speed assumed for the hop between a query point and its snapped node
+    private static final double SNAP_SPEED_KMH = 30.0;
+    
+    @Value("${routing.graph-file:}")
+    private String graphFile;
+    
+    @Value("${routing.landmarks:8}")
+    private int landmarkCount;
+    
+    @Value("${routing.snap-radius-km:1.0}")
+    private double snapRadiusKm;
+    
+    @Value("${routing.search-states:4}")
+    private int maxSearchStates;
+    
+    private volatile RoadGraph graph;
+    private int[][] fromLandmark;
+    private int[][] toLandmark;
+    
+    private BlockingQueue<SearchState> idleStates;
+    private final AtomicInteger createdStates = new AtomicInteger();
+    
+    @PostConstruct
+    void loadGraph() {
+        idleStates = new ArrayBlockingQueue<>(maxSearchStates);
+        if (graphFile == null || graphFile.isBlank()) {
+            log.info("No road graph configured; distances fall back to straight-line estimates");
+            return;
+        }
+        Path path = Path.of(graphFile);
+        if (!Files.isReadable(path)) {
+            log.warn("Road graph file {} not readable; distances fall back to straight-line estimates", path);
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            RoadGraph loaded = RoadGraph.load(path);
+            selectLandmarks(loaded);
+            graph = loaded;
+            log.info("Loaded road graph with {} nodes and {} edges ({} landmarks) in {} ms",
+                loaded.nodeCount(), loaded.edgeCount(), fromLandmark.length, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Failed to load road graph {}: {}", path, e.getMessage());
+        }
+    }
+    
+    public boolean isAvailable() {
+        return graph != null;
+    }
+    
+    /**
+     * Fastest route between two points, or null when no graph is loaded,
+     * either point is off the network, or the target is unreachable
+     */
+    public Route route(double fromLat, double fromLng, double toLat, double toLng) {
+        RoadGraph g = graph;
+        if (g == null) {
+            return null;
+        }
+        int source = g.nearestNode(fromLat, fromLng, snapRadiusKm);
+        int target = g.nearestNode(toLat, toLng, snapRadiusKm);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        
+        SearchState state = borrow(g);
+        if (state == null) {
+            return null;
+        }
+        try {
+            return route(g, state, source, target, fromLat, fromLng, toLat, toLng);
+        } finally {
+            idleStates.offer(state);
+        }
+    }
+    
+    private Route route(RoadGraph g, SearchState state, int source, int target,
+                        double fromLat, double fromLng, double toLat, double toLng) {
+        state.reset();
+        state.settle(source, 0, 0);
+        state.push(heuristic(source, target), source);
+        
+        while (!state.heapEmpty()) {
+            int node = state.popNode();
+            if (state.isClosed(node)) {
+                continue;
+            }
+            state.close(node);
+            if (node == target) {
+                break;
+            }
+            int time = state.time[node];
+            int length = state.length[node];
+            for (int e = g.firstEdge[node]; e < g.firstEdge[node + 1]; e++) {
+                int next = g.edgeTarget[e];
+                int nextTime = time + g.edgeTime[e];
+                if (!state.isClosed(next) && nextTime < state.timeOf(next)) {
+                    state.settle(next, nextTime, length + g.edgeLength[e]);
+                    state.push(nextTime + heuristic(next, target), next);
+                }
+            }
+        }
+        
+        if (!state.isClosed(target)) {
+            return null;
+        }
+        double snapKm = GeoMath.haversineKm(fromLat, fromLng, g.latitude(source), g.longitude(source))
+            + GeoMath.haversineKm(toLat, toLng, g.latitude(target), g.longitude(target));
+        return new Route(
+            state.length[target] / 1000.0 + snapKm,
+            state.time[target] / 10.0 + snapKm / SNAP_SPEED_KMH * 3600.0
+        );
+    }
+    
+    /**
+     * Travel time in seconds from each origin to one target, via a single
+     * backward search. Entries are NaN for unreachable origins; the whole
+     * result is null when no graph is loaded or the target is off the network.
+     */
+    public double[] travelSecondsTo(double toLat, double toLng, double[] fromLat, double[] fromLng) {
+        RoadGraph g = graph;
+        if (g == null) {
+            return null;
+        }
+        int target = g.nearestNode(toLat, toLng, snapRadiusKm);
+        if (target < 0) {
+            return null;
+        }
+        
+        int[] origins = new int[fromLat.length];
+        int pending = 0;
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = g.nearestNode(fromLat[i], fromLng[i], snapRadiusKm);
+            if (origins[i] >= 0) {
+                pending++;
+            }
+        }
+        
+        SearchState state = borrow(g);
+        if (state == null) {
+            return null;
+        }
+        try {
+            return travelSecondsTo(g, state, target, origins, pending, fromLat, fromLng);
+        } finally {
+            idleStates.offer(state);
+        }
+    }
+    
+    private double[] travelSecondsTo(RoadGraph g, SearchState state, int target, int[] origins, int pending,
+                                     double[] fromLat, double[] fromLng) {
+        state.reset();
+        state.settle(target, 0, 0);
+        state.push(0, target);
+        for (int origin : origins) {
+            if (origin >= 0) {
+                state.want(origin);
+            }
+        }
+        
+        while (!state.heapEmpty() && pending > 0) {
+            int node = state.popNode();
+            if (state.isClosed(node)) {
+                continue;
+            }
+            state.close(node);
+            if (state.isWanted(node)) {
+                state.unwant(node);
+                for (int origin : origins) {
+                    if (origin == node) {
+                        pending--;
+                    }
+                }
+            }
+            int time = state.time[node];
+            for (int e = g.reverseFirstEdge[node]; e < g.reverseFirstEdge[node + 1]; e++) {
+                int previous = g.reverseEdgeSource[e];
+                int nextTime = time + g.reverseEdgeTime[e];
+                if (!state.isClosed(previous) && nextTime < state.timeOf(previous)) {
+                    state.settle(previous, nextTime, 0);
+                    state.push(nextTime, previous);
+                }
+            }
+        }
+        
+        double[] seconds = new double[origins.length];
+        for (int i = 0; i < origins.length; i++) {
+            int origin = origins[i];
+            if (origin < 0 || !state.isClosed(origin)) {
+                seconds[i] = Double.NaN;
+                continue;
+            }
+            double snapKm = GeoMath.haversineKm(fromLat[i], fromLng[i], g.latitude(origin), g.longitude(origin));
+            seconds[i] = state.time[origin] / 10.0 + snapKm / SNAP_SPEED_KMH * 3600.0;
+        }
+        return seconds;
+    }
+    
+    private int heuristic(int node, int target) {
+        int best = 0;
+        for (int l = 0; l < fromLandmark.length; l++) {
+            int[] from = fromLandmark[l];
+            int[] to = toLandmark[l];
+            // d(node, target) >= d(node, L) - d(target, L)
+            if (to[node] != UNREACHABLE && to[target] != UNREACHABLE) {
+                best = Math.max(best, to[node] - to[target]);
+            }
+            // d(node, target) >= d(L, target) - d(L, node)
+            if (from[target] != UNREACHABLE && from[node] != UNREACHABLE) {
+                best = Math.max(best, from[target] - from[node]);
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Farthest-first landmark selection, then forward and backward
+     * single-source searches from each landmark
+     */
+    private void selectLandmarks(RoadGraph g) {
+        int count = Math.min(landmarkCount, g.nodeCount);
+        fromLandmark = new int[count][];
+        toLandmark = new int[count][];
+        
+        int[] closest = new int[g.nodeCount];
+        Arrays.fill(closest, UNREACHABLE);
+        int landmark = 0;
+        for (int l = 0; l < count; l++) {
+            fromLandmark[l] = dijkstra(g, landmark, false);
+            toLandmark[l] = dijkstra(g, landmark, true);
+            
+            int farthest = -1;
+            for (int v = 0; v < g.nodeCount; v++) {
+                if (fromLandmark[l][v] != UNREACHABLE) {
+                    closest[v] = Math.min(closest[v], fromLandmark[l][v]);
+                }
+                if (closest[v] != UNREACHABLE && (farthest < 0 || closest[v] > closest[farthest])) {
+                    farthest = v;
+                }
+            }
+            landmark = Math.max(farthest, 0);
+        }
+    }
+    
+    private int[] dijkstra(RoadGraph g, int source, boolean backward) {
+        int[] first = backward ? g.reverseFirstEdge : g.firstEdge;
+        int[] adjacent = backward ? g.reverseEdgeSource : g.edgeTarget;
+        int[] weight = backward ? g.reverseEdgeTime : g.edgeTime;
+        
+        int[] dist = new int[g.nodeCount];
+        Arrays.fill(dist, UNREACHABLE);
+        dist[source] = 0;
+        LongHeap heap = new LongHeap(1024);
+        heap.push(pack(0, source));
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int node = (int) top;
+            int d = (int) (top >>> 32);
+            if (d > dist[node]) {
+                continue;
+            }
+            for (int e = first[node]; e < first[node + 1]; e++) {
+                int next = adjacent[e];
+                int nd = d + weight[e];
+                if (nd < dist[next]) {
+                    dist[next] = nd;
+                    heap.push(pack(nd, next));
+                }
+            }
+        }
+        return dist;
+    }
+    
+    /**
+     * Take an idle search state, creating one while under the limit and
+     * waiting for one otherwise; null if interrupted while waiting
+     */
+    private SearchState borrow(RoadGraph g) {
+        SearchState state = idleStates.poll();
+        if (state == null) {
+            if (createdStates.incrementAndGet() <= maxSearchStates) {
+                return new SearchState(g);
+            }
+            createdStates.decrementAndGet();
+            try {
+                state = idleStates.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return state.graph == g ? state : new SearchState(g);
+    }
+    
+    int createdSearchStates() {
+        return createdStates.get();
+    }
+    
+    private static long pack(int priority, int node) {
+        return ((long) priority << 32) | (node & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Result of a point-to-point query
+     */
+    public record Route(double distanceKm, double durationSeconds) {
+    }
+    
+    /**
+     * Search arrays for one query at a time, reset in O(1) with a generation stamp
+     */
+    private static final class SearchState {
+        private final RoadGraph graph;
+        private final int[] time;
+        private final int[] length;
+        private final int[] seen;
+        private final int[] closed;
+        private final int[] wanted;
+        private final LongHeap heap = new LongHeap(1024);
+        private int generation;
+        
+        SearchState(RoadGraph graph) {
+            this.graph = graph;
+            this.time = new int[graph.nodeCount];
+            this.length = new int[graph.nodeCount];
+            this.seen = new int[graph.nodeCount];
+            this.closed = new int[graph.nodeCount];
+            this.wanted = new int[graph.nodeCount];
+        }
+        
+        void reset() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                Arrays.fill(wanted, 0);
+                generation = 1;
+            }
+            heap.clear();
+        }
+        
+        int timeOf(int node) {
+            return seen[node] == generation ? time[node] : UNREACHABLE;
+        }
+        
+        void settle(int node, int nodeTime, int nodeLength) {
+            seen[node] = generation;
+            time[node] = nodeTime;
+            length[node] = nodeLength;
+        }
+        
+        boolean isClosed(int node) {
+            return closed[node] == generation;
+        }
+        
+        void close(int node) {
+            closed[node] = generation;
+        }
+        
+        void want(int node) {
+            wanted[node] = generation;
+        }
+        
+        boolean isWanted(int node) {
+            return wanted[node] == generation;
+        }
+        
+        void unwant(int node) {
+            wanted[node] = 0;
+        }
+        
+        void push(int priority, int node) {
+            heap.push(pack(priority, node));
+        }
+        
+        boolean heapEmpty() {
+            return heap.isEmpty();
+        }
+        
+        int popNode() {
+            return (int) heap.pop();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ourride.service.trace;
+
+import java.util.Arrays;
+
+/**
+ * Encoding of GPS samples into compact, self-contained chunks.
+ *
+ * Coordinates are stored as microdegrees (~0.1 m) and timestamps as epoch
+ * milliseconds. The first sample of a chunk is written in full, the second
+ * as a delta, and every later one as the change in delta (delta-of-delta),
+ * each component zig-zag varint encoded. A vehicle moving at a steady pace
+ * and sampled at a steady rate produces near-zero second differences, so a
+ * typical sample takes three single-byte varints.
+ */
+public final class TraceCodec {
+    
+    private static final double MICRODEGREES = 1_000_000.0;
+    
+    private TraceCodec() {
+    }
+    
+    /**
+     * Decode a chunk, calling the visitor for each of its {@code count} samples
+     */
+    public static void decode(byte[] data, int count, TracePointVisitor visitor) {
+        int[] position = {0};
+        long lat = 0;
+        long lng = 0;
+        long time = 0;
+        long dLat = 0;
+        long dLng = 0;
+        long dTime = 0;
+        for (int i = 0; i < count; i++) {
+            long a = unzigzag(readVarint(data, position));
+            long b = unzigzag(readVarint(data, position));
+            long c = unzigzag(readVarint(data, position));
+            if (i == 0) {
+                lat = a;
+                lng = b;
+                time = c;
+            } else {
+                if (i == 1) {
+                    dLat = a;
+                    dLng = b;
+                    dTime = c;
+                } else {
+                    dLat += a;
+                    dLng += b;
+                    dTime += c;
+                }
+                lat += dLat;
+                lng += dLng;
+                time += dTime;
+            }
+            visitor.visit(lat / MICRODEGREES, lng / MICRODEGREES, time);
+        }
+    }
+    
+    static long toMicrodegrees(double degrees) {
+        return Math.round(degrees * MICRODEGREES);
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        int i = position[0];
+        byte b;
+        do {
+            b = data[i++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        position[0] = i;
+        return value;
+    }
+    
+    /**
+     * Appends samples to one chunk. Not thread-safe.
+     */
+    public static final class ChunkWriter {
+        
+        private byte[] buffer = new byte[128];
+        private int size;
+        private int count;
+        private long firstTimestamp;
+        private long lastLat;
+        private long lastLng;
+        private long lastTime;
+        private long lastDLat;
+        private long lastDLng;
+        private long lastDTime;
+        
+        public void append(double latitude, double longitude, long timestampMillis) {
+            long lat = toMicrodegrees(latitude);
+            long lng = toMicrodegrees(longitude);
+            if (count == 0) {
+                firstTimestamp = timestampMillis;
+                writeTriple(lat, lng, timestampMillis);
+            } else {
+                long dLat = lat - lastLat;
+                long dLng = lng - lastLng;
+                long dTime = timestampMillis - lastTime;
+                if (count == 1) {
+                    writeTriple(dLat, dLng, dTime);
+                } else {
+                    writeTriple(dLat - lastDLat, dLng - lastDLng, dTime - lastDTime);
+                }
+                lastDLat = dLat;
+                lastDLng = dLng;
+                lastDTime = dTime;
+            }
+            lastLat = lat;
+            lastLng = lng;
+            lastTime = timestampMillis;
+            count++;
+        }
+        
+        public int count() {
+            return count;
+        }
+        
+        public int sizeBytes() {
+            return size;
+        }
+        
+        public long firstTimestamp() {
+            return firstTimestamp;
+        }
+        
+        public long lastTimestamp() {
+            return lastTime;
+        }
+        
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+        
+        private void writeTriple(long a, long b, long c) {
+            // Three varints of a 64-bit value never exceed 30 bytes
+            if (size + 30 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            writeVarint(zigzag(a));
+            writeVarint(zigzag(b));
+            writeVarint(zigzag(c));
+        }
+        
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+    }
+}
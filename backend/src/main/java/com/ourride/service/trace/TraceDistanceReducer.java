@@ -0,0 +1,183 @@
+package com.ourride.service.trace;
+
+import com.ourride.util.GeoMath;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Measures the distance a ride actually covered from its recorded trace.
+ *
+ * A sample is dropped as a GPS spike when the implied speed both into and out
+ * of it exceeds {@code trace.max-speed-mps}. Distance is then summed over
+ * consecutive kept samples; a pair that is still too fast is a teleport jump
+ * and contributes nothing. Traces longer than {@code trace.segment-points}
+ * are split into segments reduced in parallel on the pricing pool, with the
+ * pair straddling each segment boundary added when the halves are combined.
+ */
+@Component
+public class TraceDistanceReducer {
+    
+    private final TripTraceStore tripTraceStore;
+    private final ForkJoinPool pricingPool;
+    private final double maxSpeedMps;
+    private final int segmentPoints;
+    
+    public TraceDistanceReducer(TripTraceStore tripTraceStore,
+                                @Qualifier("pricingPool") ForkJoinPool pricingPool,
+                                @Value("${trace.max-speed-mps:55}") double maxSpeedMps,
+                                @Value("${trace.segment-points:2048}") int segmentPoints) {
+        this.tripTraceStore = tripTraceStore;
+        this.pricingPool = pricingPool;
+        this.maxSpeedMps = maxSpeedMps;
+        this.segmentPoints = Math.max(segmentPoints, 16);
+    }
+    
+    /**
+     * Driven distance of a ride between two instants (epoch millis, inclusive)
+     */
+    public Measurement measure(Long rideId, long fromMillis, long toMillis) {
+        Samples samples = new Samples();
+        tripTraceStore.read(rideId, (latitude, longitude, timestamp) -> {
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                samples.add(latitude, longitude, timestamp);
+            }
+        });
+        return measure(samples.latitudes, samples.longitudes, samples.timestamps, samples.size);
+    }
+    
+    /**
+     * Driven distance over the first {@code size} samples of time-ordered arrays
+     */
+    public Measurement measure(double[] latitudes, double[] longitudes, long[] timestamps, int size) {
+        if (size == 0) {
+            return new Measurement(0, 0, 0, 0);
+        }
+        SegmentTask task = new SegmentTask(latitudes, longitudes, timestamps, size, 0, size);
+        Partial result = size <= segmentPoints ? task.compute() : pricingPool.invoke(task);
+        long durationMillis = result.kept > 0 ? timestamps[result.lastKept] - timestamps[result.firstKept] : 0;
+        return new Measurement(result.distanceKm, durationMillis / 1000, result.kept, size - result.kept);
+    }
+    
+    private boolean tooFast(double[] latitudes, double[] longitudes, long[] timestamps, int from, int to) {
+        double meters = GeoMath.haversineKm(latitudes[from], longitudes[from], latitudes[to], longitudes[to]) * 1000;
+        long millis = timestamps[to] - timestamps[from];
+        if (millis <= 0) {
+            return meters > 0;
+        }
+        return meters * 1000 / millis > maxSpeedMps;
+    }
+    
+    /**
+     * Distance, duration and how many samples were kept or dropped as outliers
+     */
+    public record Measurement(double distanceKm, long durationSeconds, int keptPoints, int droppedPoints) {
+    }
+    
+    private record Partial(double distanceKm, int kept, int firstKept, int lastKept) {
+    }
+    
+    private final class SegmentTask extends RecursiveTask<Partial> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final long[] timestamps;
+        private final int size;
+        private final int from;
+        private final int to;
+        
+        private SegmentTask(double[] latitudes, double[] longitudes, long[] timestamps,
+                            int size, int from, int to) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.timestamps = timestamps;
+            this.size = size;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Partial compute() {
+            if (to - from <= segmentPoints) {
+                return reduceSegment();
+            }
+            int mid = (from + to) >>> 1;
+            SegmentTask left = new SegmentTask(latitudes, longitudes, timestamps, size, from, mid);
+            SegmentTask right = new SegmentTask(latitudes, longitudes, timestamps, size, mid, to);
+            left.fork();
+            Partial rightResult = right.compute();
+            return combine(left.join(), rightResult);
+        }
+        
+        private Partial reduceSegment() {
+            double distanceKm = 0;
+            int kept = 0;
+            int firstKept = -1;
+            int previous = -1;
+            for (int i = from; i < to; i++) {
+                // Spike detection looks at raw neighbours, which may sit in an adjacent segment
+                if (i > 0 && i < size - 1
+                        && tooFast(latitudes, longitudes, timestamps, i - 1, i)
+                        && tooFast(latitudes, longitudes, timestamps, i, i + 1)) {
+                    continue;
+                }
+                if (previous >= 0) {
+                    distanceKm += pairDistance(previous, i);
+                } else {
+                    firstKept = i;
+                }
+                previous = i;
+                kept++;
+            }
+            return new Partial(distanceKm, kept, firstKept, previous);
+        }
+        
+        private Partial combine(Partial left, Partial right) {
+            if (left.kept == 0) {
+                return right;
+            }
+            if (right.kept == 0) {
+                return left;
+            }
+            return new Partial(
+                left.distanceKm + pairDistance(left.lastKept, right.firstKept) + right.distanceKm,
+                left.kept + right.kept,
+                left.firstKept,
+                right.lastKept
+            );
+        }
+        
+        private double pairDistance(int a, int b) {
+            if (tooFast(latitudes, longitudes, timestamps, a, b)) {
+                return 0;
+            }
+            return GeoMath.haversineKm(latitudes[a], longitudes[a], latitudes[b], longitudes[b]);
+        }
+    }
+    
+    private static final class Samples {
+        private double[] latitudes = new double[1024];
+        private double[] longitudes = new double[1024];
+        private long[] timestamps = new long[1024];
+        private int size;
+        
+        private void add(double latitude, double longitude, long timestamp) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            timestamps[size] = timestamp;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ourride.service.trace;
+
+/**
+ * Receives decoded trace samples in time order
+ */
+@FunctionalInterface
+public interface TracePointVisitor {
+    void visit(double latitude, double longitude, long timestampMillis);
+}
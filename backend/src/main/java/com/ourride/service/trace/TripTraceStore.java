@@ -0,0 +1,303 @@
+package com.ourride.service.trace;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ourride.model.entity.Ride;
+import com.ourride.service.tracking.DriverLocation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only store of the GPS path each ride actually took.
+ *
+ * Pings from a driver serving a ride are appended to that ride's open
+ * {@link TraceCodec} chunk in memory. A chunk is sealed when it reaches
+ * {@code trace.chunk-points} samples, when it has been open longer than
+ * {@code trace.max-chunk-age-ms}, or when the ride ends; sealed chunks are
+ * written to {@code trip_trace_chunks} in JDBC batches on a fixed interval.
+ * Reads decode chunk by chunk into a visitor without materializing points.
+ *
+ * Samples are stored on the server clock: each driver's device clock offset
+ * is estimated from every ping as the smallest (receive time - device time)
+ * seen recently, and a trace fixes that offset at its first sample so the
+ * spacing the device reported is kept exactly.
+ */
+@Service
+@Slf4j
+public class TripTraceStore {
+    
+    private static final String INSERT_CHUNK_SQL =
+        "INSERT INTO trip_trace_chunks (ride_id, first_timestamp, last_timestamp, point_count, data) " +
+        "VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_CHUNKS_SQL =
+        "SELECT point_count, data FROM trip_trace_chunks WHERE ride_id = ? ORDER BY first_timestamp, id";
+    private static final String ACTIVE_RIDE_SQL =
+        "SELECT id FROM rides WHERE driver_id = ? " +
+        "AND status IN ('DRIVER_ASSIGNED', 'DRIVER_EN_ROUTE', 'ARRIVED', 'IN_PROGRESS') " +
+        "ORDER BY created_at DESC LIMIT 1";
+    
+    // Cached marker for "this driver is not serving a ride"
+    private static final long NO_RIDE = -1L;
+    // Clock offset estimates forget samples older than two of these windows
+    private static final long OFFSET_WINDOW_MILLIS = 60_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, Long> activeRideByDriver;
+    private final Cache<Long, ClockOffset> clockOffsetByDriver;
+    private final DistributionSummary bytesPerSample;
+    private final int chunkPoints;
+    private final long maxChunkAgeMillis;
+    
+    private final Map<Long, OpenTrace> openTraces = new ConcurrentHashMap<>();
+    private final Queue<SealedChunk> sealedChunks = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    public TripTraceStore(JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${trace.chunk-points:512}") int chunkPoints,
+                          @Value("${trace.max-chunk-age-ms:120000}") long maxChunkAgeMillis,
+                          @Value("${trace.ride-lookup-ttl-ms:30000}") long rideLookupTtlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkPoints = chunkPoints;
+        this.maxChunkAgeMillis = maxChunkAgeMillis;
+        this.activeRideByDriver = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMillis(rideLookupTtlMillis))
+            .build();
+        this.clockOffsetByDriver = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+        this.bytesPerSample = DistributionSummary.builder("trace.chunk.bytes-per-sample")
+            .description("Encoded size per GPS sample of sealed trace chunks")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Track which ride a driver is serving; called after every committed status change
+     */
+    public void rideChanged(Ride ride) {
+        boolean finished = ride.getStatus() == Ride.RideStatus.COMPLETED
+            || ride.getStatus() == Ride.RideStatus.CANCELLED;
+        if (ride.getDriverId() != null) {
+            activeRideByDriver.put(ride.getDriverId(), finished ? NO_RIDE : ride.getId());
+        }
+        if (finished) {
+            seal(ride.getId());
+        }
+    }
+    
+    /**
+     * Append a ping to the trace of the ride its driver is serving, if any
+     */
+    public void append(DriverLocation location) {
+        long clockOffset = clockOffsetByDriver.get(location.driverId(), id -> new ClockOffset())
+            .observe(System.currentTimeMillis(), location.timestamp());
+        Long rideId = activeRideByDriver.get(location.driverId(), this::lookupActiveRide);
+        if (rideId == null || rideId == NO_RIDE) {
+            return;
+        }
+        
+        OpenTrace trace = openTraces.computeIfAbsent(rideId, OpenTrace::new);
+        synchronized (trace) {
+            if (trace.lastTimestamp == Long.MIN_VALUE) {
+                trace.clockOffset = clockOffset;
+            }
+            long timestamp = location.timestamp() + trace.clockOffset;
+            // Closed by a concurrent seal, or a duplicate / out-of-order sample
+            if (trace.closed || timestamp <= trace.lastTimestamp) {
+                return;
+            }
+            trace.appendedAt = System.currentTimeMillis();
+            if (trace.writer.count() == 0) {
+                trace.openedAt = trace.appendedAt;
+            }
+            trace.writer.append(location.latitude(), location.longitude(), timestamp);
+            trace.lastTimestamp = timestamp;
+            if (trace.writer.count() >= chunkPoints) {
+                sealChunk(trace);
+            }
+        }
+    }
+    
+    /**
+     * Close a ride's trace and write everything recorded for it
+     */
+    public void finish(Long rideId) {
+        seal(rideId);
+        flush();
+    }
+    
+    /**
+     * Stream a ride's samples in time order, including any not yet written
+     */
+    public void read(Long rideId, TracePointVisitor visitor) {
+        // Holding the flush lock means no chunk is between the queue and the table
+        flushLock.lock();
+        try {
+            jdbcTemplate.query(SELECT_CHUNKS_SQL,
+                (RowCallbackHandler) rs -> TraceCodec.decode(rs.getBytes(2), rs.getInt(1), visitor),
+                rideId);
+            for (SealedChunk chunk : sealedChunks) {
+                if (chunk.rideId() == rideId) {
+                    TraceCodec.decode(chunk.data(), chunk.pointCount(), visitor);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        
+        OpenTrace trace = openTraces.get(rideId);
+        if (trace != null) {
+            byte[] data;
+            int count;
+            synchronized (trace) {
+                data = trace.writer.toByteArray();
+                count = trace.writer.count();
+            }
+            TraceCodec.decode(data, count, visitor);
+        }
+    }
+    
+    /**
+     * Seal chunks that have been open too long and drop traces that went
+     * quiet, then write all sealed chunks
+     */
+    @Scheduled(fixedDelayString = "${trace.flush-interval-ms:5000}")
+    public void flush() {
+        long cutoff = System.currentTimeMillis() - maxChunkAgeMillis;
+        for (OpenTrace trace : openTraces.values()) {
+            synchronized (trace) {
+                if (trace.writer.count() > 0 && trace.openedAt < cutoff) {
+                    sealChunk(trace);
+                }
+                // The ride ended where this node never hears of it, or the driver went silent; a later
+                // ping opens a fresh trace
+                if (trace.writer.count() == 0 && trace.appendedAt < cutoff) {
+                    trace.closed = true;
+                    openTraces.remove(trace.rideId, trace);
+                }
+            }
+        }
+        
+        if (sealedChunks.isEmpty()) {
+            return;
+        }
+        
+        flushLock.lock();
+        try {
+            List<Object[]> batch = new ArrayList<>();
+            List<SealedChunk> taken = new ArrayList<>();
+            SealedChunk chunk;
+            while ((chunk = sealedChunks.peek()) != null) {
+                taken.add(chunk);
+                batch.add(new Object[] {
+                    chunk.rideId(), chunk.firstTimestamp(), chunk.lastTimestamp(), chunk.pointCount(), chunk.data()
+                });
+                sealedChunks.poll();
+            }
+            try {
+                jdbcTemplate.batchUpdate(INSERT_CHUNK_SQL, batch);
+                log.debug("Flushed {} trip trace chunks", batch.size());
+            } catch (Exception e) {
+                log.error("Failed to flush {} trip trace chunks: {}", batch.size(), e.getMessage());
+                sealedChunks.addAll(taken);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        for (Long rideId : openTraces.keySet()) {
+            seal(rideId);
+        }
+        flush();
+    }
+    
+    private void seal(Long rideId) {
+        OpenTrace trace = openTraces.remove(rideId);
+        if (trace == null) {
+            return;
+        }
+        synchronized (trace) {
+            sealChunk(trace);
+            trace.closed = true;
+        }
+    }
+    
+    private void sealChunk(OpenTrace trace) {
+        TraceCodec.ChunkWriter writer = trace.writer;
+        if (writer.count() == 0) {
+            return;
+        }
+        sealedChunks.add(new SealedChunk(trace.rideId, writer.firstTimestamp(), writer.lastTimestamp(),
+            writer.count(), writer.toByteArray()));
+        bytesPerSample.record((double) writer.sizeBytes() / writer.count());
+        trace.writer = new TraceCodec.ChunkWriter();
+    }
+    
+    int openTraceCount() {
+        return openTraces.size();
+    }
+    
+    private Long lookupActiveRide(Long driverId) {
+        List<Long> ids = jdbcTemplate.queryForList(ACTIVE_RIDE_SQL, Long.class, driverId);
+        return ids.isEmpty() ? NO_RIDE : ids.get(0);
+    }
+    
+    private static final class OpenTrace {
+        private final long rideId;
+        private TraceCodec.ChunkWriter writer = new TraceCodec.ChunkWriter();
+        private long lastTimestamp = Long.MIN_VALUE;
+        private long clockOffset;
+        private long openedAt;
+        private long appendedAt;
+        private boolean closed;
+        
+        private OpenTrace(long rideId) {
+            this.rideId = rideId;
+        }
+    }
+    
+    /**
+     * Minimum of (receive time - device time) over the current and previous
+     * window; network delay only ever adds to it, so the minimum is the
+     * closest to the true offset, and old windows age out clock changes
+     */
+    private static final class ClockOffset {
+        private long windowStart = Long.MIN_VALUE;
+        private long currentMin = Long.MAX_VALUE;
+        private long previousMin = Long.MAX_VALUE;
+        
+        private synchronized long observe(long receivedAt, long deviceTimestamp) {
+            if (receivedAt - windowStart >= OFFSET_WINDOW_MILLIS) {
+                previousMin = windowStart == Long.MIN_VALUE ? Long.MAX_VALUE : currentMin;
+                currentMin = Long.MAX_VALUE;
+                windowStart = receivedAt;
+            }
+            currentMin = Math.min(currentMin, receivedAt - deviceTimestamp);
+            return Math.min(currentMin, previousMin);
+        }
+    }
+    
+    private record SealedChunk(long rideId, long firstTimestamp, long lastTimestamp, int pointCount, byte[] data) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.ourride.service.tracking;
+
+/**
+ * Latest known position of a driver, as reported by the device.
+ * An accuracy of zero means the device did not report one.
+ */
+public record DriverLocation(long driverId, double latitude, double longitude,
+                             float heading, float speed, float accuracy, long timestamp) {
+}
@@ -0,0 +1,185 @@
+package com.ourride.service.tracking;
+
+import com.ourride.model.entity.Driver;
+import com.ourride.repository.DriverRepository;
+import com.ourride.service.dispatch.DriverSpatialIndex;
+import com.ourride.service.geofence.AirportQueueService;
+import com.ourride.service.push.RideEventHub;
+import com.ourride.service.trace.TripTraceStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingests driver GPS pings.
+ *
+ * Pings are smoothed by the {@link GpsFilter} first; ones it rejects as
+ * noise are dropped before they reach any consumer.
+ *
+ * Only the newest ping per driver is kept. The spatial index is moved on
+ * every ping, while the drivers table is updated write-behind: positions
+ * that changed since the last flush are written in one JDBC batch on a
+ * fixed interval, however many pings arrived in between.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DriverLocationService {
+    
+    private static final String UPDATE_POSITION_SQL =
+        "UPDATE drivers SET current_latitude = ?, current_longitude = ? WHERE id = ?";
+    
+    private final DriverRepository driverRepository;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final RideEventHub rideEventHub;
+    private final TripTraceStore tripTraceStore;
+    private final GpsFilter gpsFilter;
+    private final AirportQueueService airportQueueService;
+    
+    private final Map<Long, DriverLocation> latest = new ConcurrentHashMap<>();
+    private final Map<Long, DriverLocation> unflushed = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverIdsByUserId = new ConcurrentHashMap<>();
+    
+    @Value("${tracking.flush-batch-size:1000}")
+    private int flushBatchSize;
+    
+    @Value("${tracking.filter.enabled:true}")
+    private boolean filterEnabled;
+    
+    // Filter output per ingest thread, so smoothing a ping allocates nothing extra
+    private static final ThreadLocal<double[]> SMOOTHED = ThreadLocal.withInitial(() -> new double[2]);
+    
+    /**
+     * Resolve the driver profile for an authenticated user
+     */
+    public Long resolveDriverId(Long userId) {
+        Long driverId = driverIdsByUserId.get(userId);
+        if (driverId == null) {
+            driverId = driverRepository.findByUserId(userId)
+                .map(Driver::getId)
+                .orElseThrow(() -> new RuntimeException("Driver profile not found"));
+            driverIdsByUserId.put(userId, driverId);
+        }
+        return driverId;
+    }
+    
+    /**
+     * Record a single ping; out-of-order pings older than the stored one are ignored
+     */
+    public void record(DriverLocation ping) {
+        DriverLocation location = filterEnabled ? smooth(ping) : ping;
+        if (location == null) {
+            return;
+        }
+        
+        if (filterEnabled) {
+            // The filter already ordered this driver's pings and restarted the track on a clock change
+            latest.put(location.driverId(), location);
+        } else {
+            DriverLocation stored = latest.merge(location.driverId(), location,
+                (current, incoming) -> incoming.timestamp() >= current.timestamp() ? incoming : current);
+            if (stored != location) {
+                return;
+            }
+        }
+        
+        unflushed.put(location.driverId(), location);
+        rideEventHub.publishPosition(location);
+        tripTraceStore.append(location);
+        
+        if (!driverSpatialIndex.updatePosition(location.driverId(), location.latitude(), location.longitude())) {
+            // First ping since startup or since the driver went off the index
+            driverRepository.findById(location.driverId()).ifPresent(driver ->
+                driverSpatialIndex.upsert(driver.getId(), driver.getVehicleType(),
+                    location.latitude(), location.longitude(),
+                    Boolean.TRUE.equals(driver.getIsAvailable())));
+        }
+        airportQueueService.driverMoved(location.driverId(), location.latitude(), location.longitude(),
+            driverSpatialIndex.isAvailable(location.driverId()));
+    }
+    
+    /**
+     * Record a batch of pings from one device
+     */
+    public void recordAll(List<DriverLocation> locations) {
+        for (DriverLocation location : locations) {
+            record(location);
+        }
+    }
+    
+    private DriverLocation smooth(DriverLocation ping) {
+        double[] smoothed = SMOOTHED.get();
+        if (!gpsFilter.filter(ping.driverId(), ping.latitude(), ping.longitude(), ping.accuracy(),
+                ping.timestamp(), smoothed)) {
+            return null;
+        }
+        return new DriverLocation(ping.driverId(), smoothed[0], smoothed[1],
+            ping.heading(), ping.speed(), ping.accuracy(), ping.timestamp());
+    }
+    
+    public DriverLocation getLatest(Long driverId) {
+        return latest.get(driverId);
+    }
+    
+    public int getUnflushedCount() {
+        return unflushed.size();
+    }
+    
+    /**
+     * Write positions that changed since the last flush to the drivers table
+     */
+    @Scheduled(fixedDelayString = "${tracking.flush-interval-ms:3000}")
+    public void flush() {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batch = new ArrayList<>(Math.min(unflushed.size(), flushBatchSize));
+        for (Long driverId : unflushed.keySet()) {
+            DriverLocation location = unflushed.remove(driverId);
+            if (location == null) {
+                continue;
+            }
+            batch.add(new Object[] { location.latitude(), location.longitude(), driverId });
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    private void writeBatch(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, batch);
+            log.debug("Flushed {} driver positions", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush {} driver positions: {}", batch.size(), e.getMessage());
+            // Put positions back unless a newer ping already replaced them
+            for (Object[] row : batch) {
+                Long driverId = (Long) row[2];
+                DriverLocation location = latest.get(driverId);
+                if (location != null) {
+                    unflushed.putIfAbsent(driverId, location);
+                }
+            }
+        }
+    }
+}
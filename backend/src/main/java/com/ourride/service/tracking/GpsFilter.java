@@ -0,0 +1,266 @@
+package com.ourride.service.tracking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Streaming per-driver GPS smoother.
+ *
+ * Each driver is tracked by a constant-velocity Kalman filter, run as two
+ * independent axes in metres around the point where the track started. A
+ * ping is rejected when its reported accuracy is worse than
+ * {@code tracking.filter.max-accuracy-m}, when it is dated more than
+ * {@code tracking.filter.max-clock-skew-ms} ahead of the server clock, when it
+ * is not newer than the last accepted one, or when reaching it from the
+ * current estimate would need more than {@code tracking.filter.max-speed-mps}
+ * beyond the ping's own accuracy. A track restarts at the raw ping after a
+ * long silence, after several rejections in a row, or when a device clock
+ * that ran ahead is set back, so a driver that really moved is picked up again.
+ *
+ * State lives in flat primitive arrays behind {@link LongIntMap} slots,
+ * sharded by driver id so concurrent pings for different drivers rarely
+ * contend. Filtering a sample allocates nothing; results are written into a
+ * caller-owned array.
+ */
+@Component
+public class GpsFilter {
+    
+    // Per-slot layout of the state array
+    private static final int ORIGIN_LAT = 0;
+    private static final int ORIGIN_LNG = 1;
+    private static final int METRES_PER_DEGREE_LNG = 2;
+    private static final int X = 3;          // east position, velocity and covariance
+    private static final int VX = 4;
+    private static final int PXX = 5;
+    private static final int PXV = 6;
+    private static final int PVVX = 7;
+    private static final int Y = 8;          // north position, velocity and covariance
+    private static final int VY = 9;
+    private static final int PYY = 10;
+    private static final int PYV = 11;
+    private static final int PVVY = 12;
+    private static final int STRIDE = 13;
+    
+    private static final double METRES_PER_DEGREE_LAT = 111_320.0;
+    // Velocity is unknown when a track starts; about 10 m/s standard deviation
+    private static final double INITIAL_VELOCITY_VARIANCE = 100.0;
+    
+    private final Shard[] shards;
+    private final int shardMask;
+    private final double maxAccuracyMetres;
+    private final double defaultAccuracyMetres;
+    private final double minAccuracyMetres;
+    private final double accelerationVariance;
+    private final double maxSpeedMps;
+    private final long resetAfterMillis;
+    private final int resetAfterRejections;
+    private final long maxClockSkewMillis;
+    
+    private final Counter inaccurate;
+    private final Counter future;
+    private final Counter stale;
+    private final Counter tooFast;
+    private final Counter resets;
+    
+    public GpsFilter(MeterRegistry meterRegistry,
+                     @Value("${tracking.filter.shards:64}") int shards,
+                     @Value("${tracking.filter.max-accuracy-m:50}") double maxAccuracyMetres,
+                     @Value("${tracking.filter.default-accuracy-m:10}") double defaultAccuracyMetres,
+                     @Value("${tracking.filter.min-accuracy-m:3}") double minAccuracyMetres,
+                     @Value("${tracking.filter.acceleration-mps2:2.5}") double accelerationMps2,
+                     @Value("${tracking.filter.max-speed-mps:55}") double maxSpeedMps,
+                     @Value("${tracking.filter.reset-after-ms:30000}") long resetAfterMillis,
+                     @Value("${tracking.filter.reset-after-rejections:5}") int resetAfterRejections,
+                     @Value("${tracking.filter.max-clock-skew-ms:120000}") long maxClockSkewMillis) {
+        int shardCount = Integer.highestOneBit(Math.max(shards, 1) * 2 - 1);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard();
+        }
+        this.shardMask = shardCount - 1;
+        this.maxAccuracyMetres = maxAccuracyMetres;
+        this.defaultAccuracyMetres = defaultAccuracyMetres;
+        this.minAccuracyMetres = minAccuracyMetres;
+        this.accelerationVariance = accelerationMps2 * accelerationMps2;
+        this.maxSpeedMps = maxSpeedMps;
+        this.resetAfterMillis = resetAfterMillis;
+        this.resetAfterRejections = resetAfterRejections;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        
+        this.inaccurate = rejectedCounter(meterRegistry, "inaccurate");
+        this.future = rejectedCounter(meterRegistry, "future");
+        this.stale = rejectedCounter(meterRegistry, "stale");
+        this.tooFast = rejectedCounter(meterRegistry, "too_fast");
+        this.resets = Counter.builder("tracking.filter.resets")
+            .description("Driver tracks restarted at a raw ping")
+            .register(meterRegistry);
+        Gauge.builder("tracking.filter.drivers", this, GpsFilter::trackedDrivers)
+            .description("Drivers with filter state")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Filter one ping. On acceptance writes the smoothed latitude and
+     * longitude into {@code out[0]} and {@code out[1]} and returns true; a
+     * rejected ping leaves {@code out} untouched. {@code accuracyMetres} of
+     * zero or less means the device did not report one.
+     */
+    public boolean filter(long driverId, double latitude, double longitude, double accuracyMetres,
+                          long timestamp, double[] out) {
+        if (accuracyMetres > maxAccuracyMetres) {
+            inaccurate.increment();
+            return false;
+        }
+        // Accepting it would leave every later ping looking stale
+        long now = System.currentTimeMillis();
+        if (timestamp - now > maxClockSkewMillis) {
+            future.increment();
+            return false;
+        }
+        double accuracy = Math.max(accuracyMetres > 0 ? accuracyMetres : defaultAccuracyMetres, minAccuracyMetres);
+        double measurementVariance = accuracy * accuracy;
+        
+        Shard shard = shards[(int) (driverId ^ (driverId >>> 32)) & shardMask];
+        synchronized (shard) {
+            int slot = shard.slotFor(driverId);
+            long last = shard.lastTimestamp[slot];
+            // Far behind a track that is itself ahead of server time: the device clock was set back,
+            // not an old ping replayed
+            boolean clockSetBack = last != Long.MIN_VALUE && last > now && last - timestamp > resetAfterMillis;
+            if (clockSetBack) {
+                resets.increment();
+            }
+            if (last == Long.MIN_VALUE || timestamp - last > resetAfterMillis || clockSetBack) {
+                shard.reset(slot, latitude, longitude, measurementVariance, timestamp);
+                out[0] = latitude;
+                out[1] = longitude;
+                return true;
+            }
+            if (timestamp <= last) {
+                stale.increment();
+                return false;
+            }
+            
+            double[] s = shard.state;
+            int base = slot * STRIDE;
+            double dt = (timestamp - last) / 1000.0;
+            double zx = (longitude - s[base + ORIGIN_LNG]) * s[base + METRES_PER_DEGREE_LNG];
+            double zy = (latitude - s[base + ORIGIN_LAT]) * METRES_PER_DEGREE_LAT;
+            
+            // Gate on the speed needed to get from the current estimate to the ping
+            double dx = zx - s[base + X];
+            double dy = zy - s[base + Y];
+            if (Math.sqrt(dx * dx + dy * dy) > maxSpeedMps * dt + 2 * accuracy) {
+                if (++shard.rejections[slot] >= resetAfterRejections) {
+                    resets.increment();
+                    shard.reset(slot, latitude, longitude, measurementVariance, timestamp);
+                    out[0] = latitude;
+                    out[1] = longitude;
+                    return true;
+                }
+                tooFast.increment();
+                return false;
+            }
+            shard.rejections[slot] = 0;
+            
+            step(s, base + X, dt, zx, measurementVariance);
+            step(s, base + Y, dt, zy, measurementVariance);
+            shard.lastTimestamp[slot] = timestamp;
+            
+            out[0] = s[base + ORIGIN_LAT] + s[base + Y] / METRES_PER_DEGREE_LAT;
+            out[1] = s[base + ORIGIN_LNG] + s[base + X] / s[base + METRES_PER_DEGREE_LNG];
+            return true;
+        }
+    }
+    
+    public int trackedDrivers() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.slots.size();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Predict and correct one axis laid out as position, velocity and the
+     * three distinct entries of its 2x2 covariance
+     */
+    private void step(double[] s, int axis, double dt, double measured, double measurementVariance) {
+        double p = s[axis];
+        double v = s[axis + 1];
+        double ppp = s[axis + 2];
+        double ppv = s[axis + 3];
+        double pvv = s[axis + 4];
+        
+        // Predict under constant velocity with white-noise acceleration
+        double dt2 = dt * dt;
+        p += v * dt;
+        ppp += 2 * dt * ppv + dt2 * pvv + accelerationVariance * dt2 * dt2 / 4;
+        ppv += dt * pvv + accelerationVariance * dt2 * dt / 2;
+        pvv += accelerationVariance * dt2;
+        
+        // Correct with the measured position
+        double innovationVariance = ppp + measurementVariance;
+        double gainP = ppp / innovationVariance;
+        double gainV = ppv / innovationVariance;
+        double innovation = measured - p;
+        s[axis] = p + gainP * innovation;
+        s[axis + 1] = v + gainV * innovation;
+        s[axis + 2] = (1 - gainP) * ppp;
+        s[axis + 3] = (1 - gainP) * ppv;
+        s[axis + 4] = pvv - gainV * ppv;
+    }
+    
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("tracking.filter.rejected")
+            .description("Driver pings dropped by the GPS filter")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+    
+    private static final class Shard {
+        private final LongIntMap slots = new LongIntMap(64);
+        private double[] state = new double[64 * STRIDE];
+        private long[] lastTimestamp = new long[64];
+        private int[] rejections = new int[64];
+        
+        private int slotFor(long driverId) {
+            int slot = slots.get(driverId);
+            if (slot != LongIntMap.MISSING) {
+                return slot;
+            }
+            slot = slots.size();
+            if (slot == lastTimestamp.length) {
+                int capacity = slot * 2;
+                state = Arrays.copyOf(state, capacity * STRIDE);
+                lastTimestamp = Arrays.copyOf(lastTimestamp, capacity);
+                rejections = Arrays.copyOf(rejections, capacity);
+            }
+            lastTimestamp[slot] = Long.MIN_VALUE;
+            slots.put(driverId, slot);
+            return slot;
+        }
+        
+        private void reset(int slot, double latitude, double longitude, double measurementVariance, long timestamp) {
+            int base = slot * STRIDE;
+            Arrays.fill(state, base, base + STRIDE, 0.0);
+            state[base + ORIGIN_LAT] = latitude;
+            state[base + ORIGIN_LNG] = longitude;
+            state[base + METRES_PER_DEGREE_LNG] =
+                METRES_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+            state[base + PXX] = measurementVariance;
+            state[base + PVVX] = INITIAL_VELOCITY_VARIANCE;
+            state[base + PYY] = measurementVariance;
+            state[base + PVVY] = INITIAL_VELOCITY_VARIANCE;
+            lastTimestamp[slot] = timestamp;
+            rejections[slot] = 0;
+        }
+    }
+}
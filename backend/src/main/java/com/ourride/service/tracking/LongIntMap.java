@@ -0,0 +1,87 @@
+package com.ourride.service.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to int values, used to
+ * find per-driver state slots without boxing. Not thread-safe.
+ */
+final class LongIntMap {
+    
+    static final int MISSING = -1;
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    
+    LongIntMap(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        mask = tableSize - 1;
+    }
+    
+    int get(long key) {
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            long stored = keys[i];
+            if (stored == key) {
+                return values[i];
+            }
+            if (stored == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+    
+    void put(long key, int value) {
+        // Keep the load factor at or below one half so probe runs stay short
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            long stored = keys[i];
+            if (stored == key) {
+                values[i] = value;
+                return;
+            }
+            if (stored == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private int index(long key) {
+        // Murmur3 finalizer; driver ids are sequential, so spread them out
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+    
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        Arrays.fill(keys, EMPTY);
+        mask = tableSize - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
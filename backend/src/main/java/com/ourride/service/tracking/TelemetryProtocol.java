@@ -0,0 +1,65 @@
+package com.ourride.service.tracking;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Wire format of the binary driver telemetry channel.
+ *
+ * Every frame is {@code [int length][byte type][payload]}, big-endian, where
+ * length covers type and payload. A session must start with an AUTH frame
+ * carrying the driver's JWT; after that the device sends LOCATIONS frames
+ * made of fixed-size records:
+ *
+ * <pre>
+ * long  driverId
+ * int   latitude   (microdegrees)
+ * int   longitude  (microdegrees)
+ * short heading    (tenths of a degree, 0..3599)
+ * short speed      (centimetres per second)
+ * long  timestamp  (epoch millis)
+ * </pre>
+ */
+public final class TelemetryProtocol {
+    
+    public static final byte TYPE_AUTH = 0x01;
+    public static final byte TYPE_LOCATIONS = 0x02;
+    public static final byte TYPE_HEARTBEAT = 0x03;
+    
+    public static final byte TYPE_AUTH_OK = (byte) 0x81;
+    public static final byte TYPE_AUTH_FAILED = (byte) 0x82;
+    public static final byte TYPE_ACK = (byte) 0x83;
+    
+    public static final int RECORD_SIZE = 8 + 4 + 4 + 2 + 2 + 8;
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+    
+    private static final double MICRODEGREES = 1_000_000.0;
+    
+    private TelemetryProtocol() {
+    }
+    
+    /**
+     * Decode the record at the buffer's reader index and advance past it
+     */
+    public static DriverLocation readRecord(ByteBuf buf) {
+        long driverId = buf.readLong();
+        double latitude = buf.readInt() / MICRODEGREES;
+        double longitude = buf.readInt() / MICRODEGREES;
+        float heading = buf.readShort() / 10f;
+        float speed = buf.readShort() / 100f;
+        long timestamp = buf.readLong();
+        // Records carry no accuracy; the GPS filter falls back to its default
+        return new DriverLocation(driverId, latitude, longitude, heading, speed, 0f, timestamp);
+    }
+    
+    /**
+     * Encode one record; used by device SDKs and load tools
+     */
+    public static void writeRecord(ByteBuf buf, DriverLocation location) {
+        buf.writeLong(location.driverId());
+        buf.writeInt((int) Math.round(location.latitude() * MICRODEGREES));
+        buf.writeInt((int) Math.round(location.longitude() * MICRODEGREES));
+        buf.writeShort(Math.round(location.heading() * 10f));
+        buf.writeShort(Math.min(Math.round(location.speed() * 100f), Short.MAX_VALUE));
+        buf.writeLong(location.timestamp());
+    }
+}
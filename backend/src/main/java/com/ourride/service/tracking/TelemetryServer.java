@@ -0,0 +1,121 @@
+package com.ourride.service.tracking;
+
+import com.ourride.security.JwtTokenProvider;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived TCP channel for driver telemetry, next to the REST endpoint.
+ *
+ * Devices authenticate once per connection and then stream binary location
+ * records (see {@link TelemetryProtocol}), skipping the HTTP stack and the
+ * per-request JWT parse. Records feed the same {@link DriverLocationService}.
+ * Event loops only move bytes; anything that may block runs on a separate,
+ * bounded handler group (see {@link TelemetrySessionHandler}).
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.telemetry.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TelemetryServer {
+    
+    private final JwtTokenProvider jwtTokenProvider;
+    private final DriverLocationService driverLocationService;
+    
+    @Value("${tracking.telemetry.port:9090}")
+    private int port;
+    
+    @Value("${tracking.telemetry.worker-threads:0}")
+    private int workerThreads;
+    
+    @Value("${tracking.telemetry.idle-timeout-seconds:60}")
+    private int idleTimeoutSeconds;
+    
+    @Value("${tracking.telemetry.handler-threads:16}")
+    private int handlerThreads;
+    
+    @Value("${tracking.telemetry.handler-queue-capacity:10000}")
+    private int handlerQueueCapacity;
+    
+    @Value("${tracking.telemetry.max-pending-frames:8}")
+    private int maxPendingFrames;
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup handlerGroup;
+    private Channel serverChannel;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws InterruptedException {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(workerThreads);
+        handlerGroup = new DefaultEventExecutorGroup(handlerThreads, new DefaultThreadFactory("telemetry-handler"),
+            handlerQueueCapacity, RejectedExecutionHandlers.reject());
+        
+        ServerBootstrap bootstrap = new ServerBootstrap()
+            .group(bossGroup, workerGroup)
+            .channel(NioServerSocketChannel.class)
+            .childOption(ChannelOption.TCP_NODELAY, true)
+            .childOption(ChannelOption.SO_KEEPALIVE, true)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ch.pipeline()
+                        .addLast(new IdleStateHandler(idleTimeoutSeconds, 0, 0, TimeUnit.SECONDS))
+                        .addLast(new LengthFieldBasedFrameDecoder(
+                            TelemetryProtocol.MAX_FRAME_LENGTH, 0, 4, 0, 4))
+                        .addLast(new TelemetrySessionHandler(jwtTokenProvider, driverLocationService,
+                            handlerGroup.next(), maxPendingFrames));
+                }
+            });
+        
+        serverChannel = bootstrap.bind(port).sync().channel();
+        log.info("Driver telemetry channel listening on port {}", getPort());
+    }
+    
+    /**
+     * The bound port; differs from the configured one when that is 0
+     */
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+        }
+        if (handlerGroup != null) {
+            handlerGroup.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ourride.service.tracking;
+
+import com.ourride.security.JwtTokenProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-connection state of a telemetry session.
+ *
+ * The JWT is checked once, on the AUTH frame. Every later frame is trusted
+ * as coming from that driver, and records for any other driver id are dropped.
+ *
+ * Frames are decoded on the event loop, but the JWT check, the driver lookup
+ * and recording the locations can block on the database, so they run on the
+ * session's executor from the telemetry handler group. One executor per
+ * session keeps its frames in order. While {@code maxPendingFrames} frames
+ * are waiting there the channel stops reading, so a slow database pushes
+ * back on the devices through TCP instead of queueing without bound.
+ */
+@Slf4j
+class TelemetrySessionHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    
+    private final JwtTokenProvider jwtTokenProvider;
+    private final DriverLocationService driverLocationService;
+    private final EventExecutor worker;
+    private final int maxPendingFrames;
+    
+    // Only touched on the channel's event loop
+    private Long driverId;
+    private boolean authenticating;
+    private int pendingFrames;
+    
+    TelemetrySessionHandler(JwtTokenProvider jwtTokenProvider,
+                            DriverLocationService driverLocationService,
+                            EventExecutor worker,
+                            int maxPendingFrames) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.driverLocationService = driverLocationService;
+        this.worker = worker;
+        this.maxPendingFrames = maxPendingFrames;
+    }
+    
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+        byte type = frame.readByte();
+        
+        if (driverId == null) {
+            if (authenticating) {
+                log.debug("Dropping telemetry frame type {} sent before authentication completed", type);
+            } else if (type == TelemetryProtocol.TYPE_AUTH) {
+                authenticating = true;
+                String token = frame.toString(StandardCharsets.UTF_8);
+                offload(ctx, () -> resolveDriver(token), this::authenticated);
+            } else {
+                reject(ctx);
+            }
+            return;
+        }
+        
+        switch (type) {
+            case TelemetryProtocol.TYPE_LOCATIONS -> {
+                List<DriverLocation> locations = readLocations(frame);
+                offload(ctx, () -> {
+                    driverLocationService.recordAll(locations);
+                    return locations.size();
+                }, this::acknowledge);
+            }
+            case TelemetryProtocol.TYPE_HEARTBEAT -> { }
+            default -> log.debug("Ignoring telemetry frame type {} from driver {}", type, driverId);
+        }
+    }
+    
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            log.debug("Closing idle telemetry session for driver {}", driverId);
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+    
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("Telemetry session error for driver {}: {}", driverId, cause.getMessage());
+        ctx.close();
+    }
+    
+    /**
+     * Run blocking work on the session's executor and hand the result back
+     * to the event loop, pausing reads while too many frames are waiting
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void offload(ChannelHandlerContext ctx, Callable<T> work, BiConsumer<ChannelHandlerContext, T> done) {
+        Future<T> result;
+        try {
+            result = worker.submit(work);
+        } catch (RejectedExecutionException e) {
+            log.warn("Telemetry handlers saturated; closing session for driver {}", driverId);
+            ctx.close();
+            return;
+        }
+        if (++pendingFrames >= maxPendingFrames) {
+            ctx.channel().config().setAutoRead(false);
+        }
+        
+        result.addListener(future -> ctx.executor().execute(() -> {
+            if (pendingFrames-- == maxPendingFrames) {
+                ctx.channel().config().setAutoRead(true);
+            }
+            if (!future.isSuccess()) {
+                exceptionCaught(ctx, future.cause());
+            } else if (ctx.channel().isActive()) {
+                done.accept(ctx, (T) future.getNow());
+            }
+        }));
+    }
+    
+    /**
+     * The driver behind a session token, or null when the token is not valid
+     */
+    private Long resolveDriver(String token) {
+        try {
+            if (!jwtTokenProvider.validateToken(token)) {
+                return null;
+            }
+            Long userId = Long.parseLong(jwtTokenProvider.getUserIdFromToken(token));
+            return driverLocationService.resolveDriverId(userId);
+        } catch (RuntimeException e) {
+            log.warn("Telemetry authentication failed: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void authenticated(ChannelHandlerContext ctx, Long resolvedDriverId) {
+        authenticating = false;
+        if (resolvedDriverId == null) {
+            reject(ctx);
+            return;
+        }
+        driverId = resolvedDriverId;
+        
+        ByteBuf reply = ctx.alloc().buffer(4 + 1 + 8);
+        reply.writeInt(1 + 8);
+        reply.writeByte(TelemetryProtocol.TYPE_AUTH_OK);
+        reply.writeLong(driverId);
+        ctx.writeAndFlush(reply);
+        log.info("Telemetry session opened for driver {}", driverId);
+    }
+    
+    private List<DriverLocation> readLocations(ByteBuf frame) {
+        int count = frame.readableBytes() / TelemetryProtocol.RECORD_SIZE;
+        List<DriverLocation> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DriverLocation location = TelemetryProtocol.readRecord(frame);
+            if (location.driverId() == driverId) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+    
+    private void acknowledge(ChannelHandlerContext ctx, Integer accepted) {
+        ByteBuf ack = ctx.alloc().buffer(4 + 1 + 4);
+        ack.writeInt(1 + 4);
+        ack.writeByte(TelemetryProtocol.TYPE_ACK);
+        ack.writeInt(accepted);
+        ctx.writeAndFlush(ack);
+    }
+    
+    private void reject(ChannelHandlerContext ctx) {
+        ByteBuf reply = ctx.alloc().buffer(4 + 1);
+        reply.writeInt(1);
+        reply.writeByte(TelemetryProtocol.TYPE_AUTH_FAILED);
+        ctx.writeAndFlush(reply).addListener(ChannelFutureListener.CLOSE);
+    }
+}
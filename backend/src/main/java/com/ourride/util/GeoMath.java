@@ -0,0 +1,44 @@
+package com.ourride.util;
+
+/**
+ * Allocation-free geographic math on primitive doubles.
+ *
+ * The batch kernel scores one point against struct-of-arrays coordinates
+ * ({@code double[] lat}, {@code double[] lng}) and writes into a caller-owned
+ * output array, so ranking candidates boxes and allocates nothing per point.
+ * It is a plain scalar loop: the trigonometric calls keep C2 from vectorizing it.
+ */
+public final class GeoMath {
+    
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double KM_PER_DEGREE = 111.32;
+    
+    private static final double RADIANS_PER_DEGREE = Math.PI / 180.0;
+    
+    private GeoMath() {
+    }
+    
+    /**
+     * Great-circle distance in km
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double sinLat = Math.sin((lat2 - lat1) * RADIANS_PER_DEGREE * 0.5);
+        double sinLng = Math.sin((lng2 - lng1) * RADIANS_PER_DEGREE * 0.5);
+        double a = sinLat * sinLat +
+                   Math.cos(lat1 * RADIANS_PER_DEGREE) * Math.cos(lat2 * RADIANS_PER_DEGREE) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+    
+    /**
+     * Exact great-circle distance from one point to {@code count} points
+     */
+    public static void haversineKm(double lat, double lng, double[] lats, double[] lngs, int count, double[] out) {
+        double cosLat = Math.cos(lat * RADIANS_PER_DEGREE);
+        for (int i = 0; i < count; i++) {
+            double sinLat = Math.sin((lats[i] - lat) * RADIANS_PER_DEGREE * 0.5);
+            double sinLng = Math.sin((lngs[i] - lng) * RADIANS_PER_DEGREE * 0.5);
+            double a = sinLat * sinLat + cosLat * Math.cos(lats[i] * RADIANS_PER_DEGREE) * sinLng * sinLng;
+            out[i] = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+        }
+    }
+}
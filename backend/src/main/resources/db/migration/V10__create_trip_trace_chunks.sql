@@ -0,0 +1,29 @@
+-- =====================================================
+-- OurRide Database Migration Script
+-- Version: 10.0.0
+-- Description: Create trip_trace_chunks table for recorded GPS breadcrumbs
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS trip_trace_chunks (
+    id BIGSERIAL PRIMARY KEY,
+    ride_id BIGINT NOT NULL REFERENCES rides(id) ON DELETE CASCADE,
+    first_timestamp BIGINT NOT NULL,
+    last_timestamp BIGINT NOT NULL,
+    point_count INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    CONSTRAINT chk_trace_point_count CHECK (point_count > 0),
+    CONSTRAINT chk_trace_timestamps CHECK (last_timestamp >= first_timestamp)
+);
+
+-- Chunks are read back per ride in time order
+CREATE INDEX IF NOT EXISTS idx_trip_trace_chunks_ride ON trip_trace_chunks(ride_id, first_timestamp);
+
+-- Chunks are already delta/varint encoded; skip TOAST compression attempts
+ALTER TABLE trip_trace_chunks ALTER COLUMN data SET STORAGE EXTERNAL;
+
+-- Comments
+COMMENT ON TABLE trip_trace_chunks IS 'Append-only GPS trace of each ride, stored as encoded chunks';
+COMMENT ON COLUMN trip_trace_chunks.first_timestamp IS 'Epoch milliseconds of the first sample in the chunk';
+COMMENT ON COLUMN trip_trace_chunks.data IS 'Microdegree lat/lng and millisecond timestamps, delta-of-delta zig-zag varint encoded';
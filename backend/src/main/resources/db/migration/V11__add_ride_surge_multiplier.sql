@@ -0,0 +1,11 @@
+-- =====================================================
+-- OurRide Database Migration Script
+-- Version: 11.0.0
+-- Description: Keep the quoted surge multiplier on each ride for final fare calculation
+-- =====================================================
+
+ALTER TABLE rides ADD COLUMN IF NOT EXISTS surge_multiplier DECIMAL(4, 2) NOT NULL DEFAULT 1.00;
+
+ALTER TABLE rides ADD CONSTRAINT chk_surge_multiplier CHECK (surge_multiplier >= 1.00);
+
+COMMENT ON COLUMN rides.surge_multiplier IS 'Surge multiplier from the booked quote, reapplied when the fare is finalized';
@@ -0,0 +1,30 @@
+-- =====================================================
+-- OurRide Database Migration Script
+-- Version: 12.0.0
+-- Description: Create geofences table for airports, no-pickup and restricted zones
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS geofences (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    geometry JSONB NOT NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    CONSTRAINT chk_geofence_kind CHECK (kind IN ('AIRPORT', 'NO_PICKUP', 'RESTRICTED'))
+);
+
+-- The geofence engine polls this to detect edits and reload
+CREATE INDEX IF NOT EXISTS idx_geofences_updated_at ON geofences(updated_at);
+
+-- Trigger to update updated_at
+CREATE TRIGGER update_geofences_updated_at
+    BEFORE UPDATE ON geofences
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- Comments
+COMMENT ON TABLE geofences IS 'Zone polygons loaded into the in-memory geofence index';
+COMMENT ON COLUMN geofences.geometry IS 'GeoJSON Polygon or MultiPolygon, coordinates as [longitude, latitude]';
@@ -0,0 +1,38 @@
+-- =====================================================
+-- OurRide Database Migration Script
+-- Version: 13.0.0
+-- Description: Create ride_events outbox table, one row per ride state change
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS ride_events (
+    id BIGSERIAL PRIMARY KEY,
+    ride_id BIGINT NOT NULL REFERENCES rides(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL,
+    driver_id BIGINT,
+    status VARCHAR(20) NOT NULL,
+    payload JSONB NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP,
+    failed_at TIMESTAMP
+);
+
+-- The relay claims events that are neither published nor given up, in id order
+CREATE INDEX IF NOT EXISTS idx_ride_events_unpublished ON ride_events(id)
+    WHERE published_at IS NULL AND failed_at IS NULL;
+
+-- Per-ride event history and the relay's per-ride ordering check
+CREATE INDEX IF NOT EXISTS idx_ride_events_ride ON ride_events(ride_id, id);
+
+-- Retention cleanup of published events
+CREATE INDEX IF NOT EXISTS idx_ride_events_published_at ON ride_events(published_at) WHERE published_at IS NOT NULL;
+
+-- Given-up events, kept for inspection and replay
+CREATE INDEX IF NOT EXISTS idx_ride_events_failed_at ON ride_events(failed_at) WHERE failed_at IS NOT NULL;
+
+-- Comments
+COMMENT ON TABLE ride_events IS 'Transactional outbox and log of ride state transitions';
+COMMENT ON COLUMN ride_events.status IS 'Ride status after the transition';
+COMMENT ON COLUMN ride_events.payload IS 'Ride as returned by the API at the time of the transition';
+COMMENT ON COLUMN ride_events.published_at IS 'When the relay delivered the event to all subscribers; NULL while pending';
+COMMENT ON COLUMN ride_events.failed_at IS 'When the relay gave up after outbox.max-attempts failed deliveries; never deleted by retention';
@@ -0,0 +1,12 @@
+-- =====================================================
+-- OurRide Database Migration Script
+-- Version: 9.0.0
+-- Description: Composite indexes for keyset (cursor) pagination
+-- =====================================================
+
+-- Ride history, newest first, optionally filtered by status
+CREATE INDEX IF NOT EXISTS idx_rides_user_created_id ON rides(user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_user_status_created_id ON rides(user_id, status, created_at DESC, id DESC);
+
+-- Wallet transaction history, newest first
+CREATE INDEX IF NOT EXISTS idx_wallet_transactions_user_created_id ON wallet_transactions(user_id, created_at DESC, id DESC);
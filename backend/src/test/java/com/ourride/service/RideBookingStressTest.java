@@ -0,0 +1,264 @@
+package com.ourride.service;
+
+import com.ourride.dto.request.BookRideRequest;
+import com.ourride.model.entity.Driver;
+import com.ourride.model.entity.Ride;
+import com.ourride.model.entity.User;
+import com.ourride.repository.DriverRepository;
+import com.ourride.repository.RideRepository;
+import com.ourride.repository.UserRepository;
+import com.ourride.service.cache.ActiveRideCache;
+import com.ourride.service.dispatch.BatchDispatcher;
+import com.ourride.service.dispatch.DispatchService;
+import com.ourride.service.dispatch.DispatchWorkerPool;
+import com.ourride.service.dispatch.DriverReservationService;
+import com.ourride.service.dispatch.DriverSpatialIndex;
+import com.ourride.service.dispatch.RematchQueue;
+import com.ourride.service.dispatch.ScheduledRideDispatcher;
+import com.ourride.service.geofence.GeofenceService;
+import com.ourride.service.pricing.FareTariff;
+import com.ourride.service.pricing.PriceEstimateCache;
+import com.ourride.service.pricing.QuoteTokenService;
+import com.ourride.service.pricing.SurgePricingEngine;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.service.routing.RoutingEngine;
+import com.ourride.service.tracking.DriverLocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hundreds of simultaneous bookings competing for a few drivers, through
+ * the real booking, dispatch and reservation path against H2. Pricing,
+ * geofences and push are stubbed out.
+ */
+@DataJpaTest(properties = {
+    "dispatch.async.workers=16",
+    "spring.datasource.hikari.maximum-pool-size=64"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({
+    RideService.class,
+    RideResponseMapper.class,
+    DispatchService.class,
+    DispatchWorkerPool.class,
+    DriverReservationService.class,
+    DriverSpatialIndex.class,
+    RideBookingStressTest.Metrics.class
+})
+class RideBookingStressTest {
+    
+    private static final int BOOKINGS = 300;
+    private static final int DRIVERS = 40;
+    private static final BigDecimal PICKUP_LAT = new BigDecimal("9.010000");
+    private static final BigDecimal PICKUP_LNG = new BigDecimal("38.760000");
+    private static final BigDecimal DESTINATION_LAT = new BigDecimal("9.030000");
+    private static final BigDecimal DESTINATION_LNG = new BigDecimal("38.790000");
+    
+    @Autowired
+    private RideService rideService;
+    
+    @Autowired
+    private DriverReservationService driverReservationService;
+    
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+    
+    @Autowired
+    private DispatchWorkerPool dispatchWorkerPool;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockBean
+    private ScheduledRideDispatcher scheduledRideDispatcher;
+    
+    @MockBean
+    private RoutingEngine routingEngine;
+    
+    @MockBean
+    private SurgePricingEngine surgePricingEngine;
+    
+    @MockBean
+    private PriceEstimateCache priceEstimateCache;
+    
+    @MockBean
+    private QuoteTokenService quoteTokenService;
+    
+    @MockBean(name = "pricingPool")
+    private ForkJoinPool pricingPool;
+    
+    @MockBean
+    private FareTariff fareTariff;
+    
+    @MockBean
+    private ActiveRideCache activeRideCache;
+    
+    @MockBean
+    private RideUpdateNotifier rideUpdateNotifier;
+    
+    @MockBean
+    private GeofenceService geofenceService;
+    
+    @MockBean
+    private DriverLocationService driverLocationService;
+    
+    @MockBean
+    private RematchQueue rematchQueue;
+    
+    @MockBean
+    private BatchDispatcher batchDispatcher;
+    
+    private final AtomicInteger unmatched = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() {
+        QuoteTokenService.Quote quote = new QuoteTokenService.Quote(
+            QuoteTokenService.toMicrodegrees(PICKUP_LAT.doubleValue()),
+            QuoteTokenService.toMicrodegrees(PICKUP_LNG.doubleValue()),
+            QuoteTokenService.toMicrodegrees(DESTINATION_LAT.doubleValue()),
+            QuoteTokenService.toMicrodegrees(DESTINATION_LNG.doubleValue()),
+            Ride.RideType.CAR, new BigDecimal("120.00"), new BigDecimal("4.20"), 12, 0,
+            BigDecimal.ONE, Instant.now().plusSeconds(600));
+        when(quoteTokenService.verify(anyString())).thenReturn(quote);
+        doAnswer(invocation -> unmatched.incrementAndGet()).when(rematchQueue).enqueue(any(Ride.class));
+    }
+    
+    @Test
+    void concurrentBookingsNeverShareADriver() throws Exception {
+        User rider = userRepository.save(User.builder()
+            .phoneNumber("+15550000001")
+            .fullName("Stress Rider")
+            .password("x")
+            .authProvider(User.AuthProvider.PHONE)
+            .build());
+        for (int i = 0; i < DRIVERS; i++) {
+            Driver driver = createDriver(1000L + i, "STRESS-" + i);
+            driverSpatialIndex.upsert(driver.getId(), "CAR",
+                PICKUP_LAT.doubleValue() + i * 1e-4, PICKUP_LNG.doubleValue(), true);
+        }
+        
+        ExecutorService bookers = Executors.newFixedThreadPool(BOOKINGS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookings.add(bookers.submit(() -> {
+                start.await();
+                return rideService.bookRide(rider.getId(), bookRequest());
+            }));
+        }
+        start.countDown();
+        for (Future<?> booking : bookings) {
+            booking.get(60, TimeUnit.SECONDS);
+        }
+        bookers.shutdown();
+        
+        // Every ride ends up either assigned or handed to re-match
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (assignedRides().size() + unmatched.get() < BOOKINGS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        
+        List<Ride> assigned = assignedRides();
+        Set<Long> assignedDrivers = new HashSet<>();
+        for (Ride ride : assigned) {
+            assertTrue(assignedDrivers.add(ride.getDriverId()), "Driver " + ride.getDriverId() + " assigned twice");
+        }
+        assertEquals(BOOKINGS, assigned.size() + unmatched.get());
+        assertEquals(DRIVERS, assigned.size());
+        assertEquals(0, dispatchWorkerPool.getQueueDepth());
+        for (Long driverId : assignedDrivers) {
+            assertFalse(driverRepository.findById(driverId).orElseThrow().getIsAvailable());
+            assertFalse(driverSpatialIndex.isAvailable(driverId));
+        }
+    }
+    
+    @Test
+    void databaseRejectsDriverAlreadyTakenElsewhere() {
+        // Another node took the driver: the table says unavailable while this node's slot is still open
+        Driver driver = createDriver(2000L, "ELSEWHERE");
+        driver.setIsAvailable(false);
+        driverRepository.save(driver);
+        driverSpatialIndex.upsert(driver.getId(), "CAR", PICKUP_LAT.doubleValue(), PICKUP_LNG.doubleValue(), true);
+        
+        assertFalse(driverReservationService.tryReserve(driver.getId()));
+        assertFalse(driverSpatialIndex.isAvailable(driver.getId()));
+    }
+    
+    private List<Ride> assignedRides() {
+        return rideRepository.findAll().stream()
+            .filter(ride -> ride.getStatus() == Ride.RideStatus.DRIVER_ASSIGNED)
+            .toList();
+    }
+    
+    private Driver createDriver(long userId, String plate) {
+        return driverRepository.save(Driver.builder()
+            .userId(userId)
+            .vehicleType("CAR")
+            .vehicleNumber(plate)
+            .licenseNumber("LIC-" + plate)
+            .build());
+    }
+    
+    private BookRideRequest bookRequest() {
+        BookRideRequest request = new BookRideRequest();
+        request.setPickupLatitude(PICKUP_LAT);
+        request.setPickupLongitude(PICKUP_LNG);
+        request.setPickupAddress("Pickup");
+        request.setDestinationLatitude(DESTINATION_LAT);
+        request.setDestinationLongitude(DESTINATION_LNG);
+        request.setDestinationAddress("Destination");
+        request.setRideType("CAR");
+        request.setQuoteToken("quote");
+        return request;
+    }
+    
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
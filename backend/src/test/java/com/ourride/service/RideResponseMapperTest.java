@@ -0,0 +1,72 @@
+package com.ourride.service;
+
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Driver;
+import com.ourride.model.entity.Ride;
+import com.ourride.model.entity.User;
+import com.ourride.repository.DriverRepository;
+import com.ourride.repository.UserRepository;
+import com.ourride.service.tracking.DriverLocation;
+import com.ourride.service.tracking.DriverLocationService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RideResponseMapperTest {
+    
+    private final DriverRepository driverRepository = mock(DriverRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final DriverLocationService driverLocationService = mock(DriverLocationService.class);
+    private final RideResponseMapper mapper =
+        new RideResponseMapper(driverRepository, userRepository, driverLocationService);
+    
+    @Test
+    void cachedViewLeavesOutPositionsAndReadsJoinTheLatest() {
+        Driver pinging = driver(1L, "9.000000");
+        Driver quiet = driver(2L, "9.100000");
+        when(driverRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(pinging, quiet));
+        when(driverRepository.findAllById(Set.of(2L))).thenReturn(List.of(quiet));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(
+            User.builder().id(11L).fullName("One").build(), User.builder().id(12L).fullName("Two").build()));
+        
+        List<RideResponse> cached = mapper.toCacheableResponses(List.of(ride(1L), ride(2L)));
+        assertNull(cached.get(0).getDriver().getCurrentLatitude());
+        assertNull(cached.get(1).getDriver().getCurrentLatitude());
+        
+        // Driver 1 has pinged this node since; driver 2 only has the flushed table position
+        when(driverLocationService.getLatest(1L)).thenReturn(new DriverLocation(1L, 9.02, 38.77, 0f, 0f, 5f, 0L));
+        List<RideResponse> live = mapper.withLivePositions(cached);
+        
+        assertEquals(BigDecimal.valueOf(9.02), live.get(0).getDriver().getCurrentLatitude());
+        assertEquals(new BigDecimal("9.100000"), live.get(1).getDriver().getCurrentLatitude());
+        assertNull(cached.get(0).getDriver().getCurrentLatitude());
+    }
+    
+    private static Driver driver(Long id, String latitude) {
+        return Driver.builder()
+            .id(id)
+            .userId(id + 10)
+            .vehicleType("CAR")
+            .currentLatitude(new BigDecimal(latitude))
+            .currentLongitude(new BigDecimal("38.760000"))
+            .build();
+    }
+    
+    private static Ride ride(Long driverId) {
+        return Ride.builder()
+            .id(driverId + 100)
+            .userId(7L)
+            .driverId(driverId)
+            .rideType(Ride.RideType.CAR)
+            .status(Ride.RideStatus.DRIVER_ASSIGNED)
+            .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.ourride.service;
+
+import com.ourride.dto.response.RideResponse;
+import com.ourride.model.entity.Driver;
+import com.ourride.model.entity.Ride;
+import com.ourride.model.entity.User;
+import com.ourride.repository.DriverRepository;
+import com.ourride.repository.RideRepository;
+import com.ourride.repository.UserRepository;
+import com.ourride.service.cache.ActiveRideCache;
+import com.ourride.service.dispatch.DispatchService;
+import com.ourride.service.dispatch.ScheduledRideDispatcher;
+import com.ourride.service.geofence.GeofenceService;
+import com.ourride.service.pricing.FareTariff;
+import com.ourride.service.pricing.PriceEstimateCache;
+import com.ourride.service.pricing.QuoteTokenService;
+import com.ourride.service.pricing.SurgePricingEngine;
+import com.ourride.service.push.RideUpdateNotifier;
+import com.ourride.service.routing.RoutingEngine;
+import com.ourride.service.tracking.DriverLocationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ride lists hydrate their drivers and driver users in batches, so the
+ * number of SQL statements does not grow with the number of rides.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RideService.class, RideResponseMapper.class})
+class RideResponseQueryCountTest {
+    
+    private static final int RIDES = 30;
+    
+    @Autowired
+    private RideService rideService;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @MockBean
+    private DispatchService dispatchService;
+    
+    @MockBean
+    private ScheduledRideDispatcher scheduledRideDispatcher;
+    
+    @MockBean
+    private RoutingEngine routingEngine;
+    
+    @MockBean
+    private SurgePricingEngine surgePricingEngine;
+    
+    @MockBean
+    private PriceEstimateCache priceEstimateCache;
+    
+    @MockBean
+    private QuoteTokenService quoteTokenService;
+    
+    @MockBean(name = "pricingPool")
+    private ForkJoinPool pricingPool;
+    
+    @MockBean
+    private FareTariff fareTariff;
+    
+    @MockBean
+    private ActiveRideCache activeRideCache;
+    
+    @MockBean
+    private RideUpdateNotifier rideUpdateNotifier;
+    
+    @MockBean
+    private GeofenceService geofenceService;
+    
+    @MockBean
+    private DriverLocationService driverLocationService;
+    
+    private Long riderId;
+    
+    @BeforeEach
+    void setUp() {
+        rideRepository.deleteAll();
+        driverRepository.deleteAll();
+        userRepository.deleteAll();
+        when(activeRideCache.get(anyLong(), any())).thenAnswer(invocation ->
+            invocation.<Supplier<List<RideResponse>>>getArgument(1).get());
+        
+        riderId = createUser("+15550100000", "Rider").getId();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < RIDES; i++) {
+            User driverUser = createUser("+1555020" + String.format("%04d", i), "Driver " + i);
+            Driver driver = driverRepository.save(Driver.builder()
+                .userId(driverUser.getId())
+                .vehicleType("CAR")
+                .vehicleNumber("COUNT-" + i)
+                .licenseNumber("LIC-COUNT-" + i)
+                .build());
+            rideRepository.save(Ride.builder()
+                .userId(riderId)
+                .driverId(driver.getId())
+                .pickupLatitude(new BigDecimal("9.010000"))
+                .pickupLongitude(new BigDecimal("38.760000"))
+                .pickupAddress("Pickup")
+                .destinationLatitude(new BigDecimal("9.030000"))
+                .destinationLongitude(new BigDecimal("38.790000"))
+                .destinationAddress("Destination")
+                .rideType(Ride.RideType.CAR)
+                .status(i % 2 == 0 ? Ride.RideStatus.DRIVER_ASSIGNED : Ride.RideStatus.IN_PROGRESS)
+                .price(new BigDecimal("12.50"))
+                .scheduledDateTime(now.plusDays(1).plusMinutes(i))
+                .build());
+        }
+    }
+    
+    @Test
+    void historyPagesCostTheSameStatementsAtAnySize() {
+        long small = statementsFor(() -> assertDriversHydrated(
+            rideService.getRideHistory(riderId, PageRequest.of(0, 5), null), 5));
+        long large = statementsFor(() -> assertDriversHydrated(
+            rideService.getRideHistory(riderId, PageRequest.of(0, 20), null), 20));
+        
+        // Page of rides, total count, drivers, driver users
+        assertEquals(4, small);
+        assertEquals(small, large);
+    }
+    
+    @Test
+    void ongoingAndScheduledRidesLoadDriversInBatches() {
+        // Rides, drivers, driver users; ongoing rides add one for positions no ping has reached this node with
+        assertEquals(4, statementsFor(() -> assertDriversHydrated(rideService.getOngoingRides(riderId), RIDES)));
+        assertEquals(3, statementsFor(() -> assertDriversHydrated(rideService.getScheduledRides(riderId), RIDES)));
+    }
+    
+    private long statementsFor(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+    
+    private static void assertDriversHydrated(List<RideResponse> rides, int expected) {
+        assertEquals(expected, rides.size());
+        for (RideResponse ride : rides) {
+            assertNotNull(ride.getDriver());
+            assertNotNull(ride.getDriver().getPhoneNumber());
+        }
+    }
+    
+    private User createUser(String phoneNumber, String fullName) {
+        return userRepository.save(User.builder()
+            .phoneNumber(phoneNumber)
+            .fullName(fullName)
+            .password("x")
+            .authProvider(User.AuthProvider.PHONE)
+            .build());
+    }
+}
@@ -0,0 +1,51 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.repository.RideRepository;
+import com.ourride.service.push.RideUpdateNotifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchDispatcherTest {
+    
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final BatchDispatcher batchDispatcher = new BatchDispatcher(rideRepository,
+        mock(DriverSpatialIndex.class), mock(DriverReservationService.class), mock(RematchQueue.class),
+        mock(RideUpdateNotifier.class));
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchDispatcher, "maxBatchSize", 200);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+    
+    @Test
+    void ridesOfARolledBackWindowAreQueuedAgain() {
+        for (long rideId = 1; rideId <= 3; rideId++) {
+            batchDispatcher.enqueue(rideId);
+        }
+        when(rideRepository.findAllByIdForUpdate(any())).thenThrow(new RuntimeException("lock timeout"));
+        
+        assertThrows(RuntimeException.class, batchDispatcher::dispatchWindow);
+        assertEquals(0, batchDispatcher.getQueueDepth());
+        
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertEquals(3, batchDispatcher.getQueueDepth());
+    }
+}
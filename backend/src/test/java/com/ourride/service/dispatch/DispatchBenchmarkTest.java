@@ -0,0 +1,130 @@
+package com.ourride.service.dispatch;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the two dispatch modes on synthetic windows: rides and drivers
+ * scattered over a 10 x 10 km area, pickup cost in km, pairs further than
+ * the search radius infeasible. GREEDY serves rides in arrival order, each
+ * taking the nearest free driver; BATCH solves the window as a whole.
+ * Left out of the default run; use {@code mvn -B test -Pload-tests}.
+ */
+@Tag("load")
+class DispatchBenchmarkTest {
+    
+    private static final int WINDOWS = 50;
+    private static final int RIDES_PER_WINDOW = 200;
+    private static final int DRIVERS_PER_WINDOW = 250;
+    private static final double AREA_KM = 10;
+    private static final double SEARCH_RADIUS_KM = 10;
+    
+    @Test
+    void batchModeShortensPickupsWithoutMatchingFewerRides() {
+        Random random = new Random(42);
+        double[][][] windows = new double[WINDOWS][][];
+        for (int w = 0; w < WINDOWS; w++) {
+            windows[w] = window(random);
+        }
+        
+        Result greedy = run(windows, DispatchBenchmarkTest::greedy);
+        Result batch = run(windows, HungarianAssignment::solve);
+        
+        System.out.printf("GREEDY: %d matched, avg pickup %.3f km, %.0f rides/s%n",
+            greedy.matched, greedy.averageKm(), greedy.ridesPerSecond());
+        System.out.printf("BATCH:  %d matched, avg pickup %.3f km, %.0f rides/s%n",
+            batch.matched, batch.averageKm(), batch.ridesPerSecond());
+        
+        assertEquals(greedy.matched, batch.matched);
+        assertTrue(batch.averageKm() < greedy.averageKm());
+    }
+    
+    /**
+     * Nearest free driver per ride, in arrival order
+     */
+    static int[] greedy(double[][] cost) {
+        int[] assignment = new int[cost.length];
+        Arrays.fill(assignment, -1);
+        boolean[] taken = new boolean[cost.length == 0 ? 0 : cost[0].length];
+        for (int i = 0; i < cost.length; i++) {
+            int best = -1;
+            for (int j = 0; j < taken.length; j++) {
+                if (!taken[j] && cost[i][j] < HungarianAssignment.INFEASIBLE
+                        && (best < 0 || cost[i][j] < cost[i][best])) {
+                    best = j;
+                }
+            }
+            if (best >= 0) {
+                taken[best] = true;
+                assignment[i] = best;
+            }
+        }
+        return assignment;
+    }
+    
+    private static double[][] window(Random random) {
+        double[][] cost = new double[RIDES_PER_WINDOW][DRIVERS_PER_WINDOW];
+        double[] driverX = new double[DRIVERS_PER_WINDOW];
+        double[] driverY = new double[DRIVERS_PER_WINDOW];
+        for (int j = 0; j < DRIVERS_PER_WINDOW; j++) {
+            driverX[j] = random.nextDouble() * AREA_KM;
+            driverY[j] = random.nextDouble() * AREA_KM;
+        }
+        for (int i = 0; i < RIDES_PER_WINDOW; i++) {
+            double x = random.nextDouble() * AREA_KM;
+            double y = random.nextDouble() * AREA_KM;
+            for (int j = 0; j < DRIVERS_PER_WINDOW; j++) {
+                double km = Math.hypot(x - driverX[j], y - driverY[j]);
+                cost[i][j] = km <= SEARCH_RADIUS_KM ? km : HungarianAssignment.INFEASIBLE;
+            }
+        }
+        return cost;
+    }
+    
+    private static Result run(double[][][] windows, Matcher matcher) {
+        // Warm up so both modes are measured compiled
+        for (double[][] window : windows) {
+            matcher.match(window);
+        }
+        
+        Result result = new Result();
+        long started = System.nanoTime();
+        for (double[][] window : windows) {
+            int[] assignment = matcher.match(window);
+            for (int i = 0; i < assignment.length; i++) {
+                if (assignment[i] >= 0) {
+                    result.matched++;
+                    result.totalKm += window[i][assignment[i]];
+                }
+            }
+        }
+        result.nanos = System.nanoTime() - started;
+        result.rides = windows.length * RIDES_PER_WINDOW;
+        return result;
+    }
+    
+    private interface Matcher {
+        int[] match(double[][] cost);
+    }
+    
+    private static final class Result {
+        private int matched;
+        private double totalKm;
+        private long nanos;
+        private int rides;
+        
+        double averageKm() {
+            return totalKm / matched;
+        }
+        
+        double ridesPerSecond() {
+            return rides * 1e9 / nanos;
+        }
+    }
+}
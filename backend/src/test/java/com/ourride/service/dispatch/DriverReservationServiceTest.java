@@ -0,0 +1,39 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.repository.DriverRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DriverReservationServiceTest {
+    
+    private final DriverRepository driverRepository = mock(DriverRepository.class);
+    private final DriverSpatialIndex driverSpatialIndex = new DriverSpatialIndex(driverRepository);
+    private final DriverReservationService reservationService =
+        new DriverReservationService(driverRepository, driverSpatialIndex);
+    
+    @Test
+    void failedUpdateReopensTheSlot() {
+        driverSpatialIndex.upsert(7L, "CAR", 9.01, 38.76, true);
+        when(driverRepository.reserveIfAvailable(7L)).thenThrow(new QueryTimeoutException("lock timeout"));
+        
+        assertThrows(QueryTimeoutException.class, () -> reservationService.tryReserve(7L));
+        
+        assertTrue(driverSpatialIndex.isAvailable(7L));
+    }
+    
+    @Test
+    void lostDatabaseRaceKeepsTheSlotClosed() {
+        driverSpatialIndex.upsert(8L, "CAR", 9.01, 38.76, true);
+        when(driverRepository.reserveIfAvailable(8L)).thenReturn(0);
+        
+        assertFalse(reservationService.tryReserve(8L));
+        
+        assertFalse(driverSpatialIndex.isAvailable(8L));
+    }
+}
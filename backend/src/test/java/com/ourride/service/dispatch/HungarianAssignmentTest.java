@@ -0,0 +1,88 @@
+package com.ourride.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HungarianAssignmentTest {
+    
+    @Test
+    void matchesBruteForceOnSmallMatrices() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(6);
+            int cols = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][cols];
+            for (double[] row : cost) {
+                for (int j = 0; j < cols; j++) {
+                    row[j] = random.nextInt(100);
+                }
+            }
+            
+            int[] assignment = HungarianAssignment.solve(cost);
+            
+            assertEquals(Math.min(rows, cols), Arrays.stream(assignment).filter(c -> c >= 0).count());
+            assertEquals(bruteForce(cost, 0, new boolean[cols]), total(cost, assignment), 1e-9);
+        }
+    }
+    
+    @Test
+    void leavesInfeasiblePairsUnassigned() {
+        double[][] cost = {
+            { 1, HungarianAssignment.INFEASIBLE },
+            { HungarianAssignment.INFEASIBLE, HungarianAssignment.INFEASIBLE }
+        };
+        
+        assertArrayEquals(new int[] { 0, -1 }, HungarianAssignment.solve(cost));
+    }
+    
+    @Test
+    void beatsGreedyWhereFirstComerTakesTheSharedDriver() {
+        // Ride 0 is slightly closer to driver 0, but ride 1 has no other nearby driver
+        double[][] cost = {
+            { 1, 2 },
+            { 1.5, 9 }
+        };
+        
+        int[] assignment = HungarianAssignment.solve(cost);
+        
+        assertArrayEquals(new int[] { 1, 0 }, assignment);
+        assertTrue(total(cost, assignment) < total(cost, DispatchBenchmarkTest.greedy(cost)));
+    }
+    
+    private static double total(double[][] cost, int[] assignment) {
+        double sum = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                sum += cost[i][assignment[i]];
+            }
+        }
+        return sum;
+    }
+    
+    private static double bruteForce(double[][] cost, int row, boolean[] usedCols) {
+        if (row == cost.length) {
+            return 0;
+        }
+        int remainingRows = cost.length - row;
+        int freeCols = 0;
+        for (boolean used : usedCols) {
+            freeCols += used ? 0 : 1;
+        }
+        // A row may stay unmatched only when there are more rows than columns left
+        double best = remainingRows > freeCols ? bruteForce(cost, row + 1, usedCols) : Double.MAX_VALUE;
+        for (int j = 0; j < usedCols.length; j++) {
+            if (!usedCols[j]) {
+                usedCols[j] = true;
+                best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, usedCols));
+                usedCols[j] = false;
+            }
+        }
+        return best;
+    }
+}
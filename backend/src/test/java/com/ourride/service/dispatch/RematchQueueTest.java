@@ -0,0 +1,90 @@
+package com.ourride.service.dispatch;
+
+import com.ourride.model.entity.Ride;
+import com.ourride.repository.RideRepository;
+import com.ourride.service.push.RideUpdateNotifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RematchQueueTest {
+    
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final DriverSpatialIndex driverSpatialIndex = mock(DriverSpatialIndex.class);
+    private final RideUpdateNotifier rideUpdateNotifier = mock(RideUpdateNotifier.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RematchQueue rematchQueue = new RematchQueue(rideRepository, driverSpatialIndex,
+        mock(DriverReservationService.class), mock(PlatformTransactionManager.class), meterRegistry,
+        rideUpdateNotifier);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rematchQueue, "initialDelayMillis", 0L);
+        ReflectionTestUtils.setField(rematchQueue, "maxDelayMillis", 0L);
+        ReflectionTestUtils.setField(rematchQueue, "maxAttempts", 2);
+        ReflectionTestUtils.setField(rematchQueue, "radiusGrowth", 1.5);
+        ReflectionTestUtils.setField(rematchQueue, "maxRadiusKm", 25.0);
+        ReflectionTestUtils.setField(rematchQueue, "searchRadiusKm", 10.0);
+        rematchQueue.init();
+        when(driverSpatialIndex.findWithinRadius(anyDouble(), anyDouble(), any(), anyDouble())).thenReturn(List.of());
+    }
+    
+    @Test
+    void unmatchedRideIsCancelledAfterTheLastAttempt() {
+        Ride ride = pendingRide();
+        when(rideRepository.findByIdForUpdate(ride.getId())).thenReturn(Optional.of(ride));
+        rematchQueue.enqueue(ride);
+        
+        rematchQueue.processDue();
+        verify(rideUpdateNotifier, never()).rideChanged(any());
+        assertEquals(1, rematchQueue.getQueueDepth());
+        
+        rematchQueue.processDue();
+        
+        assertEquals(Ride.RideStatus.CANCELLED, ride.getStatus());
+        assertEquals(RematchQueue.NO_DRIVER_REASON, ride.getCancellationReason());
+        verify(rideUpdateNotifier).rideChanged(ride);
+        assertEquals(0, rematchQueue.getQueueDepth());
+        assertEquals(1.0, meterRegistry.counter("dispatch.rematch.cancelled").count());
+    }
+    
+    @Test
+    void rideHandledElsewhereIsLeftAlone() {
+        Ride ride = pendingRide();
+        when(rideRepository.findByIdForUpdate(ride.getId())).thenReturn(Optional.of(ride));
+        rematchQueue.enqueue(ride);
+        rematchQueue.processDue();
+        
+        // The rider cancelled while the last attempt was waiting
+        ride.setStatus(Ride.RideStatus.CANCELLED);
+        rematchQueue.processDue();
+        
+        verify(rideUpdateNotifier, never()).rideChanged(any());
+        assertEquals(0, rematchQueue.getQueueDepth());
+    }
+    
+    private static Ride pendingRide() {
+        return Ride.builder()
+            .id(42L)
+            .userId(7L)
+            .pickupLatitude(new BigDecimal("9.01"))
+            .pickupLongitude(new BigDecimal("38.76"))
+            .rideType(Ride.RideType.CAR)
+            .status(Ride.RideStatus.PENDING)
+            .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.ourride.service.geofence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups against a city covered by about 5k irregular 24-vertex
+ * zones (roughly 60 km across, a tenth with a hole), at random points
+ * over the whole area, most of which miss every zone. Not part of the
+ * test run; launch it with
+ *
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main GeofenceIndexBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeofenceIndexBenchmark {
+    
+    private static final double ORIGIN_LAT = 8.8;
+    private static final double ORIGIN_LNG = 38.5;
+    private static final double CELL = 0.0075;
+    private static final int VERTICES = 24;
+    
+    @Param({"71"})
+    public int side;
+    
+    private GeofenceIndex index;
+    
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        SplittableRandom random = new SplittableRandom(17);
+        Geofence.Kind[] kinds = Geofence.Kind.values();
+        List<GeofencePolygon> polygons = new ArrayList<>(side * side);
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                Geofence geofence = new Geofence(row * side + col, "Zone", kinds[random.nextInt(kinds.length)]);
+                double centerLat = ORIGIN_LAT + (row + 0.5) * CELL;
+                double centerLng = ORIGIN_LNG + (col + 0.5) * CELL;
+                double radius = CELL * (0.2 + random.nextDouble() * 0.25);
+                List<double[][]> rings = new ArrayList<>();
+                rings.add(ring(random, centerLat, centerLng, radius));
+                if (random.nextInt(10) == 0) {
+                    rings.add(ring(random, centerLat, centerLng, radius * 0.3));
+                }
+                polygons.add(GeofenceIndexTest.polygon(geofence, rings.toArray(new double[0][][])));
+            }
+        }
+        index = GeofenceIndex.build(polygons);
+    }
+    
+    @State(Scope.Thread)
+    public static class Points {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+    
+    @Benchmark
+    public Geofence firstOfAnyKind(Points points) {
+        double extent = side * CELL;
+        return index.first(ORIGIN_LAT + points.random.nextDouble() * extent,
+            ORIGIN_LNG + points.random.nextDouble() * extent, null);
+    }
+    
+    @Benchmark
+    public Geofence firstAirport(Points points) {
+        double extent = side * CELL;
+        return index.first(ORIGIN_LAT + points.random.nextDouble() * extent,
+            ORIGIN_LNG + points.random.nextDouble() * extent, Geofence.Kind.AIRPORT);
+    }
+    
+    private static double[][] ring(SplittableRandom random, double centerLat, double centerLng, double radius) {
+        double[] lats = new double[VERTICES];
+        double[] lngs = new double[VERTICES];
+        for (int v = 0; v < VERTICES; v++) {
+            double angle = 2 * Math.PI * v / VERTICES;
+            double r = radius * (0.8 + random.nextDouble() * 0.4);
+            lats[v] = centerLat + r * Math.sin(angle);
+            lngs[v] = centerLng + r * Math.cos(angle);
+        }
+        return new double[][] {lats, lngs};
+    }
+}
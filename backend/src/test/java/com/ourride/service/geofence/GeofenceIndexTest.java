@@ -0,0 +1,141 @@
+package com.ourride.service.geofence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GeofenceIndexTest {
+    
+    // 40 x 40 cells: 1600 polygons pack into 100 leaves under 7 inner nodes under the root
+    private static final int SIDE = 40;
+    private static final double CELL = 0.01;
+    private static final double ORIGIN_LAT = 9.0;
+    private static final double ORIGIN_LNG = 38.7;
+    
+    @Test
+    void gridOfSquaresWithHolesMatchesTheGeometry() {
+        List<GeofencePolygon> polygons = new ArrayList<>();
+        Geofence[] cells = new Geofence[SIDE * SIDE];
+        for (int row = 0; row < SIDE; row++) {
+            for (int col = 0; col < SIDE; col++) {
+                int id = row * SIDE + col;
+                cells[id] = new Geofence(id, "Cell " + id,
+                    (row + col) % 2 == 0 ? Geofence.Kind.NO_PICKUP : Geofence.Kind.RESTRICTED);
+                double lat = ORIGIN_LAT + row * CELL;
+                double lng = ORIGIN_LNG + col * CELL;
+                List<double[][]> rings = new ArrayList<>();
+                rings.add(rectangle(lat + 0.001, lng + 0.001, lat + 0.009, lng + 0.009));
+                if (hasHole(row, col)) {
+                    rings.add(rectangle(lat + 0.004, lng + 0.004, lat + 0.006, lng + 0.006));
+                }
+                polygons.add(polygon(cells[id], rings.toArray(new double[0][][])));
+            }
+        }
+        GeofenceIndex index = GeofenceIndex.build(polygons);
+        assertEquals(SIDE * SIDE, index.polygonCount());
+        assertEquals(SIDE * SIDE, index.geofenceCount());
+        
+        Random random = new Random(9);
+        for (int i = 0; i < 50_000; i++) {
+            double latitude = ORIGIN_LAT - 0.01 + random.nextDouble() * (SIDE + 2) * CELL;
+            double longitude = ORIGIN_LNG - 0.01 + random.nextDouble() * (SIDE + 2) * CELL;
+            Geofence expected = expectedCell(cells, latitude, longitude);
+            
+            assertSame(expected, index.first(latitude, longitude, null), latitude + "," + longitude);
+            if (expected != null) {
+                Geofence.Kind other = expected.kind() == Geofence.Kind.NO_PICKUP
+                    ? Geofence.Kind.RESTRICTED : Geofence.Kind.NO_PICKUP;
+                assertSame(expected, index.first(latitude, longitude, expected.kind()));
+                assertNull(index.first(latitude, longitude, other));
+            }
+        }
+    }
+    
+    @Test
+    void kindFilterFindsTheOverlappingZoneOfThatKind() {
+        Geofence airport = new Geofence(1, "Airport", Geofence.Kind.AIRPORT);
+        Geofence terminal = new Geofence(2, "Terminal", Geofence.Kind.NO_PICKUP);
+        GeofenceIndex index = GeofenceIndex.build(List.of(
+            polygon(terminal, rectangle(9.02, 38.72, 9.03, 38.73)),
+            polygon(airport, rectangle(9.0, 38.7, 9.05, 38.75))));
+        
+        assertSame(airport, index.first(9.025, 38.725, Geofence.Kind.AIRPORT));
+        assertSame(terminal, index.first(9.025, 38.725, Geofence.Kind.NO_PICKUP));
+        assertNull(index.first(9.025, 38.725, Geofence.Kind.RESTRICTED));
+        assertSame(airport, index.first(9.01, 38.71, null));
+        
+        List<Geofence> containing = new ArrayList<>();
+        index.forEachContaining(9.025, 38.725, containing::add);
+        assertEquals(2, containing.size());
+    }
+    
+    @Test
+    void concaveAndMultiPolygonZones() {
+        // An L shape: the notch at the top right is outside
+        Geofence shape = new Geofence(1, "L", Geofence.Kind.RESTRICTED);
+        double[] lLat = {9.0, 9.0, 9.01, 9.01, 9.02, 9.02};
+        double[] lLng = {38.7, 38.72, 38.72, 38.71, 38.71, 38.7};
+        // Two islands of one zone
+        Geofence islands = new Geofence(2, "Islands", Geofence.Kind.NO_PICKUP);
+        GeofenceIndex index = GeofenceIndex.build(List.of(
+            new GeofencePolygon(shape, new double[][] {lLat}, new double[][] {lLng}),
+            polygon(islands, rectangle(9.1, 38.8, 9.11, 38.81)),
+            polygon(islands, rectangle(9.2, 38.9, 9.21, 38.91)),
+            // Degenerate, skipped
+            new GeofencePolygon(islands, new double[][] {{9.3, 9.31}}, new double[][] {{39.0, 39.01}})));
+        
+        assertEquals(3, index.polygonCount());
+        assertEquals(2, index.geofenceCount());
+        assertSame(shape, index.first(9.005, 38.715, null));
+        assertSame(shape, index.first(9.015, 38.705, null));
+        assertNull(index.first(9.015, 38.715, null));
+        assertSame(islands, index.first(9.105, 38.805, null));
+        assertSame(islands, index.first(9.205, 38.905, null));
+        assertNull(index.first(9.15, 38.85, null));
+        assertNull(index.first(9.305, 39.005, null));
+        assertNull(GeofenceIndex.EMPTY.first(9.0, 38.7, null));
+    }
+    
+    private static boolean hasHole(int row, int col) {
+        return (row * 7 + col) % 3 == 0;
+    }
+    
+    private static Geofence expectedCell(Geofence[] cells, double latitude, double longitude) {
+        int row = (int) Math.floor((latitude - ORIGIN_LAT) / CELL);
+        int col = (int) Math.floor((longitude - ORIGIN_LNG) / CELL);
+        if (row < 0 || row >= SIDE || col < 0 || col >= SIDE) {
+            return null;
+        }
+        double dLat = latitude - (ORIGIN_LAT + row * CELL);
+        double dLng = longitude - (ORIGIN_LNG + col * CELL);
+        boolean inSquare = dLat > 0.001 && dLat < 0.009 && dLng > 0.001 && dLng < 0.009;
+        boolean inHole = hasHole(row, col) && dLat > 0.004 && dLat < 0.006 && dLng > 0.004 && dLng < 0.006;
+        return inSquare && !inHole ? cells[row * SIDE + col] : null;
+    }
+    
+    /**
+     * Latitudes and longitudes of an open rectangular ring
+     */
+    static double[][] rectangle(double minLat, double minLng, double maxLat, double maxLng) {
+        return new double[][] {
+            {minLat, minLat, maxLat, maxLat},
+            {minLng, maxLng, maxLng, minLng}
+        };
+    }
+    
+    static GeofencePolygon polygon(Geofence geofence, double[][]... rings) {
+        double[][] latitudes = new double[rings.length][];
+        double[][] longitudes = new double[rings.length][];
+        for (int r = 0; r < rings.length; r++) {
+            latitudes[r] = rings[r][0];
+            longitudes[r] = rings[r][1];
+        }
+        return new GeofencePolygon(geofence, latitudes, longitudes);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ourride.service.pricing;
+
+import com.ourride.model.entity.Ride;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FareTariffTest {
+    
+    private final FareTariff fareTariff = new FareTariff();
+    
+    @Test
+    void everyBookableRideTypeHasATariff() {
+        for (Ride.RideType rideType : Ride.RideType.values()) {
+            assertTrue(fareTariff.supports(rideType.name().toLowerCase()));
+        }
+        assertEquals(new BigDecimal("20.00"), fareTariff.price(new BigDecimal("10"), "car_xl", 1.0));
+    }
+    
+    @Test
+    void unknownRideTypeIsRejectedNotPricedAsCar() {
+        assertFalse(fareTariff.supports("LIMO"));
+        assertFalse(fareTariff.supports(null));
+        assertThrows(RuntimeException.class, () -> fareTariff.price(new BigDecimal("10"), "LIMO", 1.0));
+    }
+}
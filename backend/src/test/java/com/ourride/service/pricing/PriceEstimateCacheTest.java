@@ -0,0 +1,116 @@
+package com.ourride.service.pricing;
+
+import com.ourride.dto.response.PriceEstimateResponse;
+import com.ourride.util.GeoMath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceEstimateCacheTest {
+    
+    private static final double SURGE_CELL = 0.02;
+    
+    private final PriceEstimateCache cache = new PriceEstimateCache(new SimpleMeterRegistry(), 100, 60, 0.001);
+    
+    @Test
+    void surgeElsewhereKeepsThePickupCellsKey() {
+        SurgeSnapshot before = new SurgeSnapshot(1, SURGE_CELL, Map.of());
+        SurgeSnapshot after = new SurgeSnapshot(2, SURGE_CELL,
+            Map.of(SurgeSnapshot.cellKey(9.10, 38.90, SURGE_CELL), 1.8));
+        
+        assertEquals(key(before), key(after));
+    }
+    
+    @Test
+    void surgeAtThePickupCellChangesTheKey() {
+        SurgeSnapshot before = new SurgeSnapshot(1, SURGE_CELL, Map.of());
+        SurgeSnapshot after = new SurgeSnapshot(2, SURGE_CELL,
+            Map.of(SurgeSnapshot.cellKey(9.0105, 38.7605, SURGE_CELL), 1.8));
+        
+        assertNotEquals(key(before), key(after));
+        assertEquals(1.8, key(after).surgeMultiplier());
+    }
+    
+    @Test
+    void mapDragReplayIsMostlyServedFromTheCache() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PriceEstimateCache dragCache = new PriceEstimateCache(meterRegistry, 100_000, 60, 0.001);
+        SurgeSnapshot surge = new SurgeSnapshot(1, SURGE_CELL,
+            Map.of(SurgeSnapshot.cellKey(9.02, 38.75, SURGE_CELL), 1.4));
+        AtomicInteger computed = new AtomicInteger();
+        long[] computeNanos = new long[1];
+        Random random = new Random(11);
+        
+        long cachedNanos = 0;
+        int requests = 0;
+        // 200 riders each drag one pin 40 times, 3-15 m per event in a steady direction
+        for (int session = 0; session < 200; session++) {
+            double[] pins = {
+                9.0 + random.nextDouble() * 0.05, 38.72 + random.nextDouble() * 0.08,
+                9.0 + random.nextDouble() * 0.05, 38.72 + random.nextDouble() * 0.08};
+            int dragged = random.nextBoolean() ? 0 : 2;
+            double heading = random.nextDouble() * 2 * Math.PI;
+            for (int event = 0; event <= 40; event++) {
+                if (event > 0) {
+                    double metres = 3 + random.nextDouble() * 12;
+                    heading += (random.nextDouble() - 0.5) * 0.3;
+                    pins[dragged] += metres * Math.cos(heading) / 111_000;
+                    pins[dragged + 1] += metres * Math.sin(heading) / 111_000;
+                }
+                long start = System.nanoTime();
+                PriceEstimateCache.EstimateKey key = dragCache.keyFor(pins[0], pins[1], pins[2], pins[3], "car", surge);
+                dragCache.get(key, k -> {
+                    computed.incrementAndGet();
+                    long computeStart = System.nanoTime();
+                    PriceEstimateResponse estimate = estimate(k, dragCache);
+                    computeNanos[0] += System.nanoTime() - computeStart;
+                    return estimate;
+                });
+                cachedNanos += System.nanoTime() - start;
+                requests++;
+            }
+        }
+        
+        double hits = meterRegistry.get("cache.gets").tag("cache", "price-estimates").tag("result", "hit")
+            .functionCounter().count();
+        double hitRate = hits / requests;
+        double uncachedMicros = computeNanos[0] / 1_000.0 / computed.get();
+        double cachedMicros = cachedNanos / 1_000.0 / requests;
+        System.out.printf("Map-drag replay: %d requests, hit rate %.1f%%, %.1f us per request uncached, "
+            + "%.1f us cached (%.1fx)%n", requests, hitRate * 100, uncachedMicros, cachedMicros,
+            uncachedMicros / cachedMicros);
+        
+        assertEquals(requests - computed.get(), (int) hits);
+        assertTrue(hitRate >= 0.8, "hit rate " + hitRate);
+    }
+    
+    // Stands in for the routed estimate: the length of a 2,000-leg path between the cell centres
+    private static PriceEstimateResponse estimate(PriceEstimateCache.EstimateKey key, PriceEstimateCache cache) {
+        double fromLat = cache.cellCenter(key.pickupLat());
+        double fromLng = cache.cellCenter(key.pickupLng());
+        double stepLat = (cache.cellCenter(key.destinationLat()) - fromLat) / 2_000;
+        double stepLng = (cache.cellCenter(key.destinationLng()) - fromLng) / 2_000;
+        double distanceKm = 0;
+        for (int i = 0; i < 2_000; i++) {
+            distanceKm += GeoMath.haversineKm(fromLat + i * stepLat, fromLng + i * stepLng,
+                fromLat + (i + 1) * stepLat, fromLng + (i + 1) * stepLng);
+        }
+        return PriceEstimateResponse.builder()
+            .distanceKm(BigDecimal.valueOf(distanceKm))
+            .price(BigDecimal.valueOf(50 + distanceKm * 15 * key.surgeMultiplier()))
+            .surgeMultiplier(BigDecimal.valueOf(key.surgeMultiplier()))
+            .build();
+    }
+    
+    private PriceEstimateCache.EstimateKey key(SurgeSnapshot surge) {
+        return cache.keyFor(9.0103, 38.7602, 9.0301, 38.7901, "car", surge);
+    }
+}
@@ -0,0 +1,40 @@
+package com.ourride.service.pricing;
+
+import com.ourride.model.entity.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuoteTokenServiceTest {
+    
+    private static final String JWT_SECRET = "jwt-secret-jwt-secret-jwt-secret-jwt-secret";
+    
+    @Test
+    void startupFailsWithoutASeparateSecretOutsideDev() {
+        assertThrows(IllegalStateException.class, () -> QuoteTokenService.signingKey("", JWT_SECRET, false));
+        assertThrows(IllegalStateException.class, () -> QuoteTokenService.signingKey(JWT_SECRET, JWT_SECRET, false));
+        assertArrayEquals("quote-secret".getBytes(StandardCharsets.UTF_8),
+            QuoteTokenService.signingKey("quote-secret", JWT_SECRET, false));
+    }
+    
+    @Test
+    void devDerivesAKeyDistinctFromTheJwtSecret() {
+        byte[] derived = QuoteTokenService.signingKey("", JWT_SECRET, true);
+        
+        assertEquals(32, derived.length);
+        assertArrayEquals(derived, QuoteTokenService.signingKey(null, JWT_SECRET, true));
+        
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        QuoteTokenService service = new QuoteTokenService("", JWT_SECRET, 300, dev);
+        String token = service.issue(9.01, 38.76, 9.03, 38.79, Ride.RideType.CAR,
+            new BigDecimal("12.50"), new BigDecimal("4.20"), 12, 3, BigDecimal.ONE);
+        assertEquals(new BigDecimal("12.50"), service.verify(token).price());
+    }
+}
@@ -0,0 +1,138 @@
+package com.ourride.service.push;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ourride.dto.response.RideResponse;
+import com.ourride.service.tracking.DriverLocation;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Several relays on one in-memory bus, standing in for nodes on one Redis
+ */
+class RideEventRelayTest {
+    
+    private static final long TICK_MS = 50;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final InMemoryRideEventTransport.Bus bus = new InMemoryRideEventTransport.Bus();
+    
+    @Test
+    void eventsReachOnlyTheNodesServingTheRide() {
+        Node a = new Node();
+        Node b = new Node();
+        Node c = new Node();
+        a.relay.subscribeRide(1);
+        b.relay.subscribeRide(1);
+        b.relay.subscribeDriver(7);
+        c.relay.subscribeRide(2);
+        
+        for (int i = 0; i < 3; i++) {
+            a.relay.publishRide(ride(1, "STATUS_" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            a.relay.publishPosition(new DriverLocation(7, 9.0 + i * 0.001, 38.7, 0f, 0f, 5f, 1000 + i));
+        }
+        a.relay.flush();
+        
+        // Every update in order, the newest position only, no echo and nothing for other rides
+        assertEquals(List.of("STATUS_0", "STATUS_1", "STATUS_2"),
+            b.rides.stream().map(RideResponse::getStatus).toList());
+        assertEquals(1, b.positions.size());
+        assertEquals(1009, b.positions.get(0).timestamp());
+        assertTrue(a.rides.isEmpty());
+        assertTrue(c.rides.isEmpty());
+        assertTrue(c.positions.isEmpty());
+        
+        b.relay.unsubscribeRide(1);
+        a.relay.publishRide(ride(1, "COMPLETED"));
+        a.relay.flush();
+        assertEquals(3, b.rides.size());
+    }
+    
+    @Test
+    void crossNodeLatencyStaysWithinAFewTicks() throws Exception {
+        int events = 200;
+        Node a = new Node();
+        Node b = new Node();
+        for (long rideId = 0; rideId < events; rideId++) {
+            b.relay.subscribeRide(rideId);
+        }
+        CountDownLatch delivered = new CountDownLatch(events);
+        Map<Long, Long> publishedAt = new ConcurrentHashMap<>();
+        Map<Long, Long> latencyNanos = new ConcurrentHashMap<>();
+        b.onRide = ride -> {
+            latencyNanos.put(ride.getId(), System.nanoTime() - publishedAt.get(ride.getId()));
+            delivered.countDown();
+        };
+        
+        // The publishing node flushes on a fixed tick, as its scheduler does in production
+        ScheduledExecutorService ticks = Executors.newSingleThreadScheduledExecutor();
+        ticks.scheduleWithFixedDelay(a.relay::flush, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        try {
+            for (long rideId = 0; rideId < events; rideId++) {
+                publishedAt.put(rideId, System.nanoTime());
+                a.relay.publishRide(ride(rideId, "DRIVER_ASSIGNED"));
+                Thread.sleep(rideId % 10 == 0 ? 7 : 0);
+            }
+            assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        } finally {
+            ticks.shutdownNow();
+        }
+        
+        List<Long> sorted = latencyNanos.values().stream().sorted().toList();
+        double p50 = sorted.get(sorted.size() / 2) / 1e6;
+        double p99 = sorted.get(sorted.size() * 99 / 100) / 1e6;
+        double max = sorted.get(sorted.size() - 1) / 1e6;
+        Timer relayTimer = b.meterRegistry.get("push.relay.latency").timer();
+        System.out.printf("Relay latency over %d events, %d ms tick: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+            events, TICK_MS, p50, p99, max);
+        
+        assertEquals(events, latencyNanos.size());
+        assertEquals(events, relayTimer.count());
+        // A queued event waits for the next tick; the first ticks also pay for JIT warm-up
+        assertTrue(p50 < TICK_MS * 2, "p50 " + p50 + " ms");
+        assertTrue(max < 1000, "max " + max + " ms");
+    }
+    
+    private static RideResponse ride(long rideId, String status) {
+        return RideResponse.builder().id(rideId).status(status).build();
+    }
+    
+    private final class Node {
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final RideEventRelay relay =
+            new RideEventRelay(new InMemoryRideEventTransport(bus), objectMapper, meterRegistry);
+        private final List<RideResponse> rides = new CopyOnWriteArrayList<>();
+        private final List<DriverLocation> positions = new CopyOnWriteArrayList<>();
+        private volatile Consumer<RideResponse> onRide = rides::add;
+        
+        private Node() {
+            relay.setDelivery(new RideEventRelay.Delivery() {
+                @Override
+                public void deliverRide(RideResponse ride) {
+                    onRide.accept(ride);
+                }
+                
+                @Override
+                public void deliverPosition(DriverLocation location) {
+                    positions.add(location);
+                }
+            });
+        }
+    }
+}
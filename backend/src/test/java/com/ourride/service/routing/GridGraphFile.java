@@ -0,0 +1,91 @@
+package com.ourride.service.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Synthetic road graph for tests and benchmarks: a square street grid with
+ * two-way roads about 100 m long and random travel times, written in the
+ * {@link RoadGraph} file format.
+ */
+final class GridGraphFile {
+    
+    static final double ORIGIN_LAT = 9.0;
+    static final double ORIGIN_LNG = 38.7;
+    static final double SPACING_DEGREES = 0.0009;
+    
+    private GridGraphFile() {
+    }
+    
+    static double latitude(int row) {
+        return ORIGIN_LAT + row * SPACING_DEGREES;
+    }
+    
+    static double longitude(int column) {
+        return ORIGIN_LNG + column * SPACING_DEGREES;
+    }
+    
+    /**
+     * Write a side x side grid; edge times are 5-30 s, drawn from the seed
+     */
+    static Path write(Path file, int side, long seed) throws IOException {
+        int nodeCount = side * side;
+        int[] latitudeE6 = new int[nodeCount];
+        int[] longitudeE6 = new int[nodeCount];
+        int[] firstEdge = new int[nodeCount + 1];
+        int[] edgeTarget = new int[4 * nodeCount];
+        int[] edgeLength = new int[4 * nodeCount];
+        int[] edgeTime = new int[4 * nodeCount];
+        
+        Random random = new Random(seed);
+        int edges = 0;
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int node = row * side + column;
+                latitudeE6[node] = (int) Math.round(latitude(row) * 1_000_000);
+                longitudeE6[node] = (int) Math.round(longitude(column) * 1_000_000);
+                firstEdge[node] = edges;
+                int[][] neighbours = {{row - 1, column}, {row + 1, column}, {row, column - 1}, {row, column + 1}};
+                for (int[] neighbour : neighbours) {
+                    if (neighbour[0] < 0 || neighbour[0] >= side || neighbour[1] < 0 || neighbour[1] >= side) {
+                        continue;
+                    }
+                    edgeTarget[edges] = neighbour[0] * side + neighbour[1];
+                    edgeLength[edges] = 100;
+                    edgeTime[edges] = 50 + random.nextInt(251);
+                    edges++;
+                }
+            }
+        }
+        firstEdge[nodeCount] = edges;
+        
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (4 + 3 * nodeCount + 1 + 3 * edges))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(RoadGraph.MAGIC).putInt(RoadGraph.VERSION).putInt(nodeCount).putInt(edges);
+        put(buffer, latitudeE6, nodeCount);
+        put(buffer, longitudeE6, nodeCount);
+        put(buffer, firstEdge, nodeCount + 1);
+        put(buffer, edgeTarget, edges);
+        put(buffer, edgeLength, edges);
+        put(buffer, edgeTime, edges);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return file;
+    }
+    
+    private static void put(ByteBuffer buffer, int[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(values[i]);
+        }
+    }
+}
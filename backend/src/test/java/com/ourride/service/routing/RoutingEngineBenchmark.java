@@ -0,0 +1,103 @@
+package com.ourride.service.routing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing queries per second on a city-sized synthetic grid (640 x 640
+ * nodes, about 58 km across). Point-to-point routes are up to 5 km apart,
+ * like a pickup plus a short trip; one-to-many ranks 20 drivers within
+ * 3 km of a pickup. Not part of the test run; launch it with
+ *
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RoutingEngineBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class RoutingEngineBenchmark {
+    
+    private static final int SIDE = 640;
+    private static final int TRIP_NODES = 55;
+    private static final int PICKUP_NODES = 33;
+    private static final int DRIVERS = 20;
+    
+    @Param({"4"})
+    public int searchStates;
+    
+    private Path file;
+    private RoutingEngine routingEngine;
+    
+    @Setup(Level.Trial)
+    public void loadGraph() throws Exception {
+        file = GridGraphFile.write(Files.createTempFile("routing-benchmark", ".graph"), SIDE, 42);
+        routingEngine = new RoutingEngine();
+        ReflectionTestUtils.setField(routingEngine, "graphFile", file.toString());
+        ReflectionTestUtils.setField(routingEngine, "landmarkCount", 8);
+        ReflectionTestUtils.setField(routingEngine, "snapRadiusKm", 1.0);
+        ReflectionTestUtils.setField(routingEngine, "maxSearchStates", searchStates);
+        routingEngine.loadGraph();
+    }
+    
+    @TearDown(Level.Trial)
+    public void deleteGraph() throws Exception {
+        Files.deleteIfExists(file);
+    }
+    
+    @State(Scope.Thread)
+    public static class Queries {
+        private final SplittableRandom random = new SplittableRandom();
+        
+        int node(int center, int spread) {
+            int offset = random.nextInt(-spread, spread + 1);
+            return Math.max(0, Math.min(SIDE - 1, center + offset));
+        }
+    }
+    
+    @Benchmark
+    public RoutingEngine.Route route(Queries queries) {
+        int row = queries.random.nextInt(SIDE);
+        int column = queries.random.nextInt(SIDE);
+        return routingEngine.route(
+            GridGraphFile.latitude(row), GridGraphFile.longitude(column),
+            GridGraphFile.latitude(queries.node(row, TRIP_NODES)),
+            GridGraphFile.longitude(queries.node(column, TRIP_NODES)));
+    }
+    
+    @Benchmark
+    public double[] travelSecondsTo(Queries queries) {
+        int row = queries.random.nextInt(SIDE);
+        int column = queries.random.nextInt(SIDE);
+        double[] lat = new double[DRIVERS];
+        double[] lng = new double[DRIVERS];
+        for (int i = 0; i < DRIVERS; i++) {
+            lat[i] = GridGraphFile.latitude(queries.node(row, PICKUP_NODES));
+            lng[i] = GridGraphFile.longitude(queries.node(column, PICKUP_NODES));
+        }
+        return routingEngine.travelSecondsTo(GridGraphFile.latitude(row), GridGraphFile.longitude(column), lat, lng);
+    }
+}
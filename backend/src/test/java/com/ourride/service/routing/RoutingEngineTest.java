@@ -0,0 +1,142 @@
+package com.ourride.service.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingEngineTest {
+    
+    private static final int SIDE = 60;
+    private static final int SEARCH_STATES = 2;
+    
+    @TempDir
+    Path dir;
+    
+    private RoutingEngine routingEngine;
+    private RoadGraph graph;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = GridGraphFile.write(dir.resolve("grid.graph"), SIDE, 42);
+        graph = RoadGraph.load(file);
+        routingEngine = new RoutingEngine();
+        ReflectionTestUtils.setField(routingEngine, "graphFile", file.toString());
+        ReflectionTestUtils.setField(routingEngine, "landmarkCount", 4);
+        ReflectionTestUtils.setField(routingEngine, "snapRadiusKm", 1.0);
+        ReflectionTestUtils.setField(routingEngine, "maxSearchStates", SEARCH_STATES);
+        routingEngine.loadGraph();
+        assertTrue(routingEngine.isAvailable());
+    }
+    
+    @Test
+    void routeMatchesPlainDijkstra() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            int from = random.nextInt(SIDE * SIDE);
+            int to = random.nextInt(SIDE * SIDE);
+            
+            RoutingEngine.Route route = route(from, to);
+            
+            assertNotNull(route);
+            assertEquals(dijkstra(from)[to] / 10.0, route.durationSeconds(), 1e-6);
+        }
+    }
+    
+    @Test
+    void oneToManyMatchesPlainDijkstraAcrossRepeatedSearches() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            int to = random.nextInt(SIDE * SIDE);
+            int[] from = new int[12];
+            for (int j = 0; j < from.length; j++) {
+                from[j] = random.nextInt(SIDE * SIDE);
+            }
+            // The same origin twice, and one far off the network
+            from[1] = from[0];
+            double[] lat = new double[from.length + 1];
+            double[] lng = new double[from.length + 1];
+            for (int j = 0; j < from.length; j++) {
+                lat[j] = GridGraphFile.latitude(from[j] / SIDE);
+                lng[j] = GridGraphFile.longitude(from[j] % SIDE);
+            }
+            lat[from.length] = 20.0;
+            lng[from.length] = 20.0;
+            
+            double[] seconds = routingEngine.travelSecondsTo(
+                GridGraphFile.latitude(to / SIDE), GridGraphFile.longitude(to % SIDE), lat, lng);
+            
+            for (int j = 0; j < from.length; j++) {
+                assertEquals(dijkstra(from[j])[to] / 10.0, seconds[j], 1e-6);
+            }
+            assertTrue(Double.isNaN(seconds[from.length]));
+        }
+    }
+    
+    @Test
+    void concurrentQueriesShareABoundedSetOfSearchStates() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> queries = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            Random random = new Random(c);
+            queries.add(callers.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    int from = random.nextInt(SIDE * SIDE);
+                    int to = random.nextInt(SIDE * SIDE);
+                    assertEquals(dijkstra(from)[to] / 10.0, route(from, to).durationSeconds(), 1e-6);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> query : queries) {
+            query.get(60, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+        
+        assertTrue(routingEngine.createdSearchStates() <= SEARCH_STATES);
+    }
+    
+    private RoutingEngine.Route route(int from, int to) {
+        return routingEngine.route(
+            GridGraphFile.latitude(from / SIDE), GridGraphFile.longitude(from % SIDE),
+            GridGraphFile.latitude(to / SIDE), GridGraphFile.longitude(to % SIDE));
+    }
+    
+    private int[] dijkstra(int source) {
+        int[] time = new int[graph.nodeCount];
+        Arrays.fill(time, Integer.MAX_VALUE);
+        time[source] = 0;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        queue.add(new int[]{0, source});
+        while (!queue.isEmpty()) {
+            int[] head = queue.poll();
+            int node = head[1];
+            if (head[0] > time[node]) {
+                continue;
+            }
+            for (int e = graph.firstEdge[node]; e < graph.firstEdge[node + 1]; e++) {
+                int next = graph.edgeTarget[e];
+                if (time[node] + graph.edgeTime[e] < time[next]) {
+                    time[next] = time[node] + graph.edgeTime[e];
+                    queue.add(new int[]{time[next], next});
+                }
+            }
+        }
+        return time;
+    }
+}
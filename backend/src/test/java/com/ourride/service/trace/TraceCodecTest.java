@@ -0,0 +1,75 @@
+package com.ourride.service.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceCodecTest {
+    
+    private static final int CHUNK_POINTS = 512;
+    
+    @Test
+    void oneHertzDriveRoundTripsExactlyInUnderFourBytesPerSample() {
+        // A 2-hour drive: cruising, turns, speed changes, stops with GPS wander, timestamp jitter
+        Random random = new Random(5);
+        int samples = 7_200;
+        long[] lat = new long[samples];
+        long[] lng = new long[samples];
+        long[] ts = new long[samples];
+        double latitude = 9_000_000;
+        double longitude = 38_700_000;
+        double heading = 0;
+        double speed = 0;
+        double targetSpeed = 12;
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < samples; i++) {
+            if (i % 180 == 0) {
+                // Every 3 minutes a turn, and one time in four a stop at a light or in traffic
+                heading += (random.nextBoolean() ? 1 : -1) * Math.PI / 2;
+                targetSpeed = random.nextInt(4) == 0 ? 0 : 5 + random.nextDouble() * 15;
+            }
+            speed += Math.max(-2, Math.min(2, targetSpeed - speed));
+            heading += random.nextGaussian() * 0.01;
+            // Microdegrees per second; one microdegree of latitude is about 0.11 m
+            latitude += speed * Math.cos(heading) * 9;
+            longitude += speed * Math.sin(heading) * 9;
+            time += 1_000 + random.nextInt(41) - 20;
+            lat[i] = Math.round(latitude) + (speed == 0 ? random.nextInt(11) - 5 : 0);
+            lng[i] = Math.round(longitude) + (speed == 0 ? random.nextInt(11) - 5 : 0);
+            ts[i] = time;
+        }
+        
+        List<long[]> decoded = new ArrayList<>();
+        long encodedBytes = 0;
+        for (int from = 0; from < samples; from += CHUNK_POINTS) {
+            TraceCodec.ChunkWriter writer = new TraceCodec.ChunkWriter();
+            int to = Math.min(samples, from + CHUNK_POINTS);
+            for (int i = from; i < to; i++) {
+                writer.append(lat[i] / 1_000_000.0, lng[i] / 1_000_000.0, ts[i]);
+            }
+            assertEquals(ts[from], writer.firstTimestamp());
+            assertEquals(ts[to - 1], writer.lastTimestamp());
+            encodedBytes += writer.sizeBytes();
+            TraceCodec.decode(writer.toByteArray(), writer.count(), (decodedLat, decodedLng, timestamp) ->
+                decoded.add(new long[] {
+                    TraceCodec.toMicrodegrees(decodedLat), TraceCodec.toMicrodegrees(decodedLng), timestamp
+                }));
+        }
+        
+        assertEquals(samples, decoded.size());
+        for (int i = 0; i < samples; i++) {
+            assertEquals(lat[i], decoded.get(i)[0], "latitude " + i);
+            assertEquals(lng[i], decoded.get(i)[1], "longitude " + i);
+            assertEquals(ts[i], decoded.get(i)[2], "timestamp " + i);
+        }
+        double bytesPerSample = (double) encodedBytes / samples;
+        System.out.printf("Trace codec: %d samples in %d bytes, %.2f bytes per sample%n",
+            samples, encodedBytes, bytesPerSample);
+        assertTrue(bytesPerSample < 4, "bytes per sample " + bytesPerSample);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ourride.service.trace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latency distribution of measuring a 2-hour trip sampled at 1 Hz (7200
+ * points with spikes and jumps); the budget is p99 under 20 ms. The largest
+ * segment size reduces the whole trace serially. Not part of the test run;
+ * launch it with
+ *
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TraceDistanceReducerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraceDistanceReducerBenchmark {
+    
+    private static final int TRIP_POINTS = 7_200;
+    
+    @Param({"512", "2048", "8192"})
+    public int segmentPoints;
+    
+    private ForkJoinPool pricingPool;
+    private TraceDistanceReducer reducer;
+    private TraceDistanceReducerTest.Trace trace;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        pricingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        reducer = new TraceDistanceReducer(mock(TripTraceStore.class), pricingPool, 55, segmentPoints);
+        trace = TraceDistanceReducerTest.Trace.synthetic(TRIP_POINTS, 3);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pricingPool.shutdown();
+    }
+    
+    @Benchmark
+    public TraceDistanceReducer.Measurement measureTwoHourTrip() {
+        return reducer.measure(trace.lat(), trace.lng(), trace.ts(), trace.size());
+    }
+}
@@ -0,0 +1,138 @@
+package com.ourride.service.trace;
+
+import com.ourride.util.GeoMath;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class TraceDistanceReducerTest {
+    
+    private static final double MAX_SPEED_MPS = 55;
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    
+    @AfterAll
+    static void shutDownPool() {
+        POOL.shutdown();
+    }
+    
+    @Test
+    void spikeIsDroppedOnlyWhenBothLegsAreTooFast() {
+        // 10 m/s north, with a 5 km spike at the third sample
+        double[] lat = {9.0, 9.00009, 9.045, 9.00027, 9.00036};
+        double[] lng = {38.7, 38.7, 38.7, 38.7, 38.7};
+        long[] ts = {0, 1_000, 2_000, 3_000, 4_000};
+        
+        TraceDistanceReducer.Measurement measurement = reducer(2048).measure(lat, lng, ts, lat.length);
+        
+        assertEquals(4, measurement.keptPoints());
+        assertEquals(1, measurement.droppedPoints());
+        assertEquals(GeoMath.haversineKm(9.0, 38.7, 9.00036, 38.7), measurement.distanceKm(), 1e-9);
+        assertEquals(4, measurement.durationSeconds());
+    }
+    
+    @Test
+    void teleportJumpKeepsBothSidesButAddsNoDistance() {
+        // The third sample jumps 5 km and the trace carries on from there: only the way in is too fast
+        double[] lat = {9.0, 9.00009, 9.045, 9.04509};
+        double[] lng = {38.7, 38.7, 38.7, 38.7};
+        long[] ts = {0, 1_000, 2_000, 3_000};
+        
+        TraceDistanceReducer.Measurement measurement = reducer(2048).measure(lat, lng, ts, lat.length);
+        
+        assertEquals(4, measurement.keptPoints());
+        assertEquals(0, measurement.droppedPoints());
+        assertEquals(GeoMath.haversineKm(9.0, 38.7, 9.00009, 38.7)
+            + GeoMath.haversineKm(9.045, 38.7, 9.04509, 38.7), measurement.distanceKm(), 1e-9);
+    }
+    
+    @Test
+    void parallelSegmentsMatchASerialPass() {
+        Trace trace = Trace.synthetic(7_200, 3);
+        Expected expected = serial(trace);
+        
+        for (int segmentPoints : new int[] {16, 37, 500, 2_048, 10_000}) {
+            TraceDistanceReducer.Measurement measurement =
+                reducer(segmentPoints).measure(trace.lat, trace.lng, trace.ts, trace.size);
+            
+            assertEquals(expected.kept, measurement.keptPoints(), "kept at " + segmentPoints);
+            assertEquals(trace.size - expected.kept, measurement.droppedPoints(), "dropped at " + segmentPoints);
+            assertEquals(expected.distanceKm, measurement.distanceKm(), 1e-9, "distance at " + segmentPoints);
+        }
+    }
+    
+    static TraceDistanceReducer reducer(int segmentPoints) {
+        return new TraceDistanceReducer(mock(TripTraceStore.class), POOL, MAX_SPEED_MPS, segmentPoints);
+    }
+    
+    /**
+     * The documented rules applied in one straightforward pass
+     */
+    private static Expected serial(Trace trace) {
+        double distanceKm = 0;
+        int kept = 0;
+        int previous = -1;
+        for (int i = 0; i < trace.size; i++) {
+            if (i > 0 && i < trace.size - 1 && tooFast(trace, i - 1, i) && tooFast(trace, i, i + 1)) {
+                continue;
+            }
+            if (previous >= 0 && !tooFast(trace, previous, i)) {
+                distanceKm += GeoMath.haversineKm(trace.lat[previous], trace.lng[previous], trace.lat[i], trace.lng[i]);
+            }
+            previous = i;
+            kept++;
+        }
+        return new Expected(distanceKm, kept);
+    }
+    
+    private static boolean tooFast(Trace trace, int a, int b) {
+        double metres = GeoMath.haversineKm(trace.lat[a], trace.lng[a], trace.lat[b], trace.lng[b]) * 1000;
+        long millis = trace.ts[b] - trace.ts[a];
+        return millis <= 0 ? metres > 0 : metres * 1000 / millis > MAX_SPEED_MPS;
+    }
+    
+    private record Expected(double distanceKm, int kept) {
+    }
+    
+    /**
+     * A 1 Hz drive with turns and stops, plus injected single-sample spikes
+     * and the occasional teleport jump
+     */
+    record Trace(double[] lat, double[] lng, long[] ts, int size) {
+        
+        static Trace synthetic(int size, long seed) {
+            Random random = new Random(seed);
+            double[] lat = new double[size];
+            double[] lng = new double[size];
+            long[] ts = new long[size];
+            double latitude = 9.0;
+            double longitude = 38.7;
+            double heading = 0;
+            double speed = 10;
+            long time = 1_700_000_000_000L;
+            for (int i = 0; i < size; i++) {
+                if (i % 300 == 0) {
+                    heading = random.nextDouble() * 2 * Math.PI;
+                    speed = random.nextInt(4) == 0 ? 0 : 5 + random.nextDouble() * 15;
+                }
+                latitude += speed * Math.cos(heading) / 111_320.0;
+                longitude += speed * Math.sin(heading) / 110_000.0;
+                time += 900 + random.nextInt(200);
+                lat[i] = latitude;
+                lng[i] = longitude;
+                ts[i] = time;
+                if (random.nextInt(50) == 0) {
+                    lat[i] += 0.02 + random.nextDouble() * 0.05;
+                }
+                if (random.nextInt(2_000) == 0) {
+                    latitude += 0.05;
+                }
+            }
+            return new Trace(lat, lng, ts, size);
+        }
+    }
+}
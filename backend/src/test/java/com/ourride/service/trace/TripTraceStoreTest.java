@@ -0,0 +1,68 @@
+package com.ourride.service.trace;
+
+import com.ourride.service.tracking.DriverLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripTraceStoreTest {
+    
+    private static final long DRIVER_ID = 7;
+    private static final long RIDE_ID = 42;
+    
+    @Test
+    void samplesFromASkewedDeviceLandOnTheServerClock() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any())).thenReturn(List.of(RIDE_ID));
+        TripTraceStore store = new TripTraceStore(jdbcTemplate, new SimpleMeterRegistry(), 512, 120_000, 30_000);
+        
+        // The device clock runs an hour behind; a later ping with less delay tightens the estimate
+        long skew = -3_600_000;
+        long start = System.currentTimeMillis();
+        store.append(new DriverLocation(DRIVER_ID, 9.0, 38.7, 0f, 10f, 5f, start + skew - 2_000));
+        for (int i = 1; i <= 5; i++) {
+            store.append(new DriverLocation(DRIVER_ID, 9.0 + i * 0.0001, 38.7, 0f, 10f, 5f, start + skew + i * 1_000));
+        }
+        long end = System.currentTimeMillis();
+        
+        List<Long> timestamps = new ArrayList<>();
+        store.read(RIDE_ID, (latitude, longitude, timestamp) -> timestamps.add(timestamp));
+        
+        assertEquals(6, timestamps.size());
+        // Stamped within the call's window of server time, device spacing kept
+        assertTrue(timestamps.get(0) >= start && timestamps.get(0) <= end + 2_000, "first " + timestamps.get(0));
+        assertEquals(3_000, timestamps.get(1) - timestamps.get(0));
+        assertEquals(1_000, timestamps.get(5) - timestamps.get(4));
+    }
+    
+    @Test
+    void quietTraceIsDroppedAfterItsLastChunkIsSealed() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any())).thenReturn(List.of(RIDE_ID));
+        TripTraceStore store = new TripTraceStore(jdbcTemplate, new SimpleMeterRegistry(), 512, 20, 30_000);
+        long now = System.currentTimeMillis();
+        store.append(new DriverLocation(DRIVER_ID, 9.0, 38.7, 0f, 10f, 5f, now));
+        store.flush();
+        assertEquals(1, store.openTraceCount());
+        
+        // No ride-end event reaches this node; the trace goes quiet past the chunk age
+        Thread.sleep(50);
+        store.flush();
+        
+        assertEquals(0, store.openTraceCount());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,46 @@
+package com.ourride.service.tracking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GpsFilterTest {
+    
+    private final GpsFilter gpsFilter = new GpsFilter(new SimpleMeterRegistry(), 4, 50, 10, 3, 2.5, 55, 30_000, 5, 120_000);
+    private final double[] out = new double[2];
+    
+    @Test
+    void futureDatedPingDoesNotFreezeTheDriver() {
+        long now = System.currentTimeMillis();
+        assertTrue(ping(now - 2_000));
+        
+        assertFalse(ping(now + 3_600_000));
+        assertTrue(ping(now - 1_000));
+        assertTrue(ping(now));
+    }
+    
+    @Test
+    void trackRestartsWhenAFastDeviceClockIsSetBack() {
+        long now = System.currentTimeMillis();
+        assertTrue(ping(now + 100_000));
+        assertTrue(ping(now + 101_000));
+        
+        // Corrected by NTP: far behind the track, which sits ahead of server time
+        assertTrue(ping(now + 1_000));
+        assertTrue(ping(now + 2_000));
+    }
+    
+    @Test
+    void oldPingReplayedBehindAnOnTimeTrackIsStale() {
+        long now = System.currentTimeMillis();
+        assertTrue(ping(now - 1_000));
+        
+        assertFalse(ping(now - 60_000));
+    }
+    
+    private boolean ping(long timestamp) {
+        return gpsFilter.filter(1, 9.0, 38.7, 5, timestamp, out);
+    }
+}
@@ -0,0 +1,226 @@
+package com.ourride.service.tracking;
+
+import com.ourride.controller.DriverController;
+import com.ourride.security.JwtAuthenticationFilter;
+import com.ourride.security.JwtTokenProvider;
+import com.ourride.service.DriverRideService;
+import com.ourride.service.geofence.AirportQueueService;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.servletapi.SecurityContextHolderAwareRequestFilter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Load generator for driver pings: single-record pings through the
+ * telemetry channel (real TCP on loopback) and through
+ * POST /api/drivers/location (MockMvc with the JWT filter, no network).
+ * Location recording is stubbed in both, so the numbers compare transport,
+ * authentication and parsing cost. Pings per CPU-second is process CPU time
+ * including the load clients, which favours the in-process HTTP path.
+ * Left out of the default run; use {@code mvn -B test -Pload-tests}.
+ */
+@Tag("load")
+class TelemetryLoadTest {
+    
+    private static final String SECRET = "load-test-secret-load-test-secret-load-test-secret-0123456789";
+    private static final int CLIENTS = 8;
+    private static final int TELEMETRY_PINGS_PER_CLIENT = 4000;
+    private static final int HTTP_PINGS_PER_CLIENT = 400;
+    private static final long USER_OFFSET = 1000;
+    
+    private final JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+    private final DriverLocationService driverLocationService =
+        mock(DriverLocationService.class, withSettings().stubOnly());
+    private final AtomicLong recorded = new AtomicLong();
+    
+    @Test
+    void telemetryChannelSustainsMorePingsPerCpuSecondThanHttp() throws Exception {
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "accessTokenExpiration", 3_600_000L);
+        when(driverLocationService.resolveDriverId(anyLong()))
+            .thenAnswer(invocation -> invocation.<Long>getArgument(0) - USER_OFFSET);
+        doAnswer(invocation -> recorded.addAndGet(invocation.<List<?>>getArgument(0).size()))
+            .when(driverLocationService).recordAll(anyList());
+        doAnswer(invocation -> recorded.incrementAndGet())
+            .when(driverLocationService).record(any(DriverLocation.class));
+        
+        // Warm up both paths, then measure
+        runTelemetry(CLIENTS, TELEMETRY_PINGS_PER_CLIENT / 4);
+        runHttp(CLIENTS, HTTP_PINGS_PER_CLIENT / 4);
+        Result telemetry = runTelemetry(CLIENTS, TELEMETRY_PINGS_PER_CLIENT);
+        Result http = runHttp(CLIENTS, HTTP_PINGS_PER_CLIENT);
+        
+        System.out.printf("TELEMETRY: %d pings, %.0f pings/s, %.0f pings per CPU-second%n",
+            telemetry.pings, telemetry.pingsPerSecond(), telemetry.pingsPerCpuSecond());
+        System.out.printf("HTTP:      %d pings, %.0f pings/s, %.0f pings per CPU-second%n",
+            http.pings, http.pingsPerSecond(), http.pingsPerCpuSecond());
+        
+        assertTrue(telemetry.pingsPerCpuSecond() > http.pingsPerCpuSecond());
+    }
+    
+    private Result runTelemetry(int clients, int pingsPerClient) throws Exception {
+        TelemetryServer server = new TelemetryServer(jwtTokenProvider, driverLocationService);
+        ReflectionTestUtils.setField(server, "port", 0);
+        ReflectionTestUtils.setField(server, "workerThreads", 0);
+        ReflectionTestUtils.setField(server, "idleTimeoutSeconds", 60);
+        ReflectionTestUtils.setField(server, "handlerThreads", 4);
+        ReflectionTestUtils.setField(server, "handlerQueueCapacity", 10000);
+        ReflectionTestUtils.setField(server, "maxPendingFrames", 8);
+        server.start();
+        try {
+            return measure(clients, pingsPerClient, driverId -> {
+                try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+                    socket.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    
+                    byte[] token = jwtTokenProvider.generateToken(String.valueOf(driverId + USER_OFFSET))
+                        .getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(1 + token.length);
+                    out.writeByte(TelemetryProtocol.TYPE_AUTH);
+                    out.write(token);
+                    out.flush();
+                    in.readInt();
+                    assertEquals(TelemetryProtocol.TYPE_AUTH_OK, in.readByte());
+                    in.readLong();
+                    
+                    // Acks are read on the side so pings stream like a device would send them
+                    Thread acks = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < pingsPerClient; i++) {
+                                in.readInt();
+                                in.readByte();
+                                in.readInt();
+                            }
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    acks.start();
+                    
+                    ByteBuf record = Unpooled.buffer(TelemetryProtocol.RECORD_SIZE);
+                    for (int i = 0; i < pingsPerClient; i++) {
+                        record.clear();
+                        TelemetryProtocol.writeRecord(record, ping(driverId, i));
+                        out.writeInt(1 + TelemetryProtocol.RECORD_SIZE);
+                        out.writeByte(TelemetryProtocol.TYPE_LOCATIONS);
+                        record.readBytes(out, TelemetryProtocol.RECORD_SIZE);
+                        out.flush();
+                    }
+                    acks.join();
+                }
+            });
+        } finally {
+            server.stop();
+        }
+    }
+    
+    private Result runHttp(int clients, int pingsPerClient) throws Exception {
+        return measure(clients, pingsPerClient, driverId -> {
+            SecurityContextHolderAwareRequestFilter principalFilter = new SecurityContextHolderAwareRequestFilter();
+            principalFilter.afterPropertiesSet();
+            MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new DriverController(driverLocationService,
+                    mock(DriverRideService.class), mock(AirportQueueService.class)))
+                .addFilters(new JwtAuthenticationFilter(jwtTokenProvider), principalFilter)
+                .build();
+            String authorization = "Bearer " + jwtTokenProvider.generateToken(String.valueOf(driverId + USER_OFFSET));
+            
+            for (int i = 0; i < pingsPerClient; i++) {
+                DriverLocation ping = ping(driverId, i);
+                mockMvc.perform(post("/api/drivers/location")
+                        .header("Authorization", authorization)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"latitude\":%.6f,\"longitude\":%.6f,\"heading\":%.1f,"
+                                + "\"speed\":%.2f,\"timestamp\":%d}",
+                            ping.latitude(), ping.longitude(), ping.heading(), ping.speed(), ping.timestamp())))
+                    .andExpect(status().isAccepted());
+            }
+        });
+    }
+    
+    private Result measure(int clients, int pingsPerClient, Client client) throws Exception {
+        long before = recorded.get();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long cpuStarted = processCpuNanos();
+        long started = System.nanoTime();
+        
+        List<Future<?>> runs = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            long driverId = c + 1;
+            runs.add(pool.submit(() -> {
+                client.run(driverId);
+                return null;
+            }));
+        }
+        for (Future<?> run : runs) {
+            run.get(120, TimeUnit.SECONDS);
+        }
+        
+        Result result = new Result();
+        result.nanos = System.nanoTime() - started;
+        result.cpuNanos = processCpuNanos() - cpuStarted;
+        result.pings = recorded.get() - before;
+        pool.shutdown();
+        assertEquals((long) clients * pingsPerClient, result.pings);
+        return result;
+    }
+    
+    private static DriverLocation ping(long driverId, int i) {
+        return new DriverLocation(driverId, 9.01 + i * 1e-5, 38.76, 90f, 8f, 0f, System.currentTimeMillis());
+    }
+    
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+            .getProcessCpuTime();
+    }
+    
+    private interface Client {
+        void run(long driverId) throws Exception;
+    }
+    
+    private static final class Result {
+        private long pings;
+        private long nanos;
+        private long cpuNanos;
+        
+        double pingsPerSecond() {
+            return pings * 1e9 / nanos;
+        }
+        
+        double pingsPerCpuSecond() {
+            return pings * 1e9 / cpuNanos;
+        }
+    }
+}
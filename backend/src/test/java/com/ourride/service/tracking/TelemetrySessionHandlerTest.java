@@ -0,0 +1,122 @@
+package com.ourride.service.tracking;
+
+import com.ourride.security.JwtTokenProvider;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelemetrySessionHandlerTest {
+    
+    private static final long USER_ID = 41L;
+    private static final long DRIVER_ID = 7L;
+    private static final int MAX_PENDING_FRAMES = 4;
+    
+    private final JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+    private final DriverLocationService driverLocationService = mock(DriverLocationService.class);
+    private final DefaultEventExecutor worker = new DefaultEventExecutor();
+    
+    @AfterEach
+    void tearDown() {
+        worker.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    void blockingWorkRunsOffTheEventLoopAndPausesReads() throws Exception {
+        AtomicReference<Thread> authThread = new AtomicReference<>();
+        when(jwtTokenProvider.validateToken("token")).thenReturn(true);
+        when(jwtTokenProvider.getUserIdFromToken("token")).thenReturn(String.valueOf(USER_ID));
+        when(driverLocationService.resolveDriverId(USER_ID)).thenAnswer(invocation -> {
+            authThread.set(Thread.currentThread());
+            return DRIVER_ID;
+        });
+        CountDownLatch databaseStalled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            databaseStalled.await();
+            return null;
+        }).when(driverLocationService).recordAll(anyList());
+        
+        EmbeddedChannel channel = new EmbeddedChannel(
+            new TelemetrySessionHandler(jwtTokenProvider, driverLocationService, worker, MAX_PENDING_FRAMES));
+        
+        channel.writeInbound(authFrame("token"));
+        ByteBuf authReply = awaitOutbound(channel);
+        assertEquals(TelemetryProtocol.TYPE_AUTH_OK, authReply.getByte(4));
+        assertEquals(DRIVER_ID, authReply.getLong(5));
+        assertTrue(worker.inEventLoop(authThread.get()));
+        
+        // The database stalls: reads stop once the session has too many frames waiting
+        for (int i = 0; i < MAX_PENDING_FRAMES; i++) {
+            channel.writeInbound(locationsFrame(DRIVER_ID));
+        }
+        assertFalse(channel.config().isAutoRead());
+        assertNull(channel.readOutbound());
+        
+        databaseStalled.countDown();
+        for (int i = 0; i < MAX_PENDING_FRAMES; i++) {
+            ByteBuf ack = awaitOutbound(channel);
+            assertEquals(TelemetryProtocol.TYPE_ACK, ack.getByte(4));
+            assertEquals(1, ack.getInt(5));
+        }
+        assertTrue(channel.config().isAutoRead());
+    }
+    
+    @Test
+    void invalidTokenIsRejected() throws Exception {
+        when(jwtTokenProvider.validateToken("bad")).thenReturn(false);
+        EmbeddedChannel channel = new EmbeddedChannel(
+            new TelemetrySessionHandler(jwtTokenProvider, driverLocationService, worker, MAX_PENDING_FRAMES));
+        
+        channel.writeInbound(authFrame("bad"));
+        
+        assertEquals(TelemetryProtocol.TYPE_AUTH_FAILED, awaitOutbound(channel).getByte(4));
+        channel.runPendingTasks();
+        assertFalse(channel.isActive());
+    }
+    
+    private static ByteBuf awaitOutbound(EmbeddedChannel channel) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            // Completions hop back onto the channel's loop, which the embedded channel runs on demand
+            channel.runPendingTasks();
+            ByteBuf reply = channel.readOutbound();
+            if (reply != null) {
+                return reply;
+            }
+            Thread.sleep(5);
+        }
+        return fail("No reply within 5 s");
+    }
+    
+    private static ByteBuf authFrame(String token) {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeByte(TelemetryProtocol.TYPE_AUTH);
+        frame.writeBytes(token.getBytes(StandardCharsets.UTF_8));
+        return frame;
+    }
+    
+    private static ByteBuf locationsFrame(long driverId) {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeByte(TelemetryProtocol.TYPE_LOCATIONS);
+        TelemetryProtocol.writeRecord(frame, new DriverLocation(driverId, 9.01, 38.76, 90f, 8f, 0f,
+            System.currentTimeMillis()));
+        return frame;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ourride.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distances from one pickup to 10k candidates: the BigDecimal path the
+ * ride service used before {@link GeoMath} (BigDecimal coordinates in, a
+ * scaled BigDecimal out per candidate) against the batch kernel over
+ * struct-of-arrays doubles. Not part of the test run; launch it with
+ *
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main GeoMathBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeoMathBenchmark {
+    
+    private static final double PICKUP_LAT = 9.01;
+    private static final double PICKUP_LNG = 38.76;
+    
+    @Param({"10000"})
+    public int candidates;
+    
+    private BigDecimal pickupLat;
+    private BigDecimal pickupLng;
+    private BigDecimal[] decimalLats;
+    private BigDecimal[] decimalLngs;
+    private double[] lats;
+    private double[] lngs;
+    private double[] out;
+    
+    @Setup(Level.Trial)
+    public void generateCandidates() {
+        SplittableRandom random = new SplittableRandom(21);
+        pickupLat = new BigDecimal("9.01000000");
+        pickupLng = new BigDecimal("38.76000000");
+        decimalLats = new BigDecimal[candidates];
+        decimalLngs = new BigDecimal[candidates];
+        lats = new double[candidates];
+        lngs = new double[candidates];
+        out = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            // Within about 10 km, stored like the DECIMAL(10,8) columns
+            decimalLats[i] = BigDecimal.valueOf(PICKUP_LAT + random.nextDouble(-0.09, 0.09))
+                .setScale(8, RoundingMode.HALF_UP);
+            decimalLngs[i] = BigDecimal.valueOf(PICKUP_LNG + random.nextDouble(-0.09, 0.09))
+                .setScale(8, RoundingMode.HALF_UP);
+            lats[i] = decimalLats[i].doubleValue();
+            lngs[i] = decimalLngs[i].doubleValue();
+        }
+    }
+    
+    @Benchmark
+    public void bigDecimalPath(Blackhole blackhole) {
+        for (int i = 0; i < candidates; i++) {
+            blackhole.consume(calculateDistance(pickupLat, pickupLng, decimalLats[i], decimalLngs[i]));
+        }
+    }
+    
+    @Benchmark
+    public double[] batchKernel() {
+        GeoMath.haversineKm(PICKUP_LAT, PICKUP_LNG, lats, lngs, candidates, out);
+        return out;
+    }
+    
+    /**
+     * The ride service's distance before GeoMath, kept verbatim as the baseline
+     */
+    private static BigDecimal calculateDistance(BigDecimal lat1, BigDecimal lng1, BigDecimal lat2, BigDecimal lng2) {
+        final int EARTH_RADIUS_KM = 6371;
+        
+        double lat1Rad = Math.toRadians(lat1.doubleValue());
+        double lat2Rad = Math.toRadians(lat2.doubleValue());
+        double deltaLat = Math.toRadians(lat2.doubleValue() - lat1.doubleValue());
+        double deltaLng = Math.toRadians(lng2.doubleValue() - lng1.doubleValue());
+        
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
+                   Math.cos(lat1Rad) * Math.cos(lat2Rad) *
+                   Math.sin(deltaLng / 2) * Math.sin(deltaLng / 2);
+        
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        double distance = EARTH_RADIUS_KM * c;
+        
+        return BigDecimal.valueOf(distance).setScale(2, RoundingMode.HALF_UP);
+    }
+}
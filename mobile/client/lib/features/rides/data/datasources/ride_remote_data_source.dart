@@ -20,7 +20,7 @@ abstract class RideRemoteDataSource {
     required double destinationLongitude,
     required String destinationAddress,
     required String rideType,
-    required double price,
+    required String quoteToken,
     DateTime? scheduledDateTime,
   });
 
@@ -70,7 +70,7 @@ class RideRemoteDataSourceImpl implements RideRemoteDataSource {
     required double destinationLongitude,
     required String destinationAddress,
     required String rideType,
-    required double price,
+    required String quoteToken,
     DateTime? scheduledDateTime,
   }) async {
     try {
@@ -84,7 +84,7 @@ class RideRemoteDataSourceImpl implements RideRemoteDataSource {
           'destinationLongitude': destinationLongitude,
           'destinationAddress': destinationAddress,
           'rideType': rideType,
-          'price': price,
+          'quoteToken': quoteToken,
           if (scheduledDateTime != null)
             'scheduledDateTime': scheduledDateTime.toIso8601String(),
         },
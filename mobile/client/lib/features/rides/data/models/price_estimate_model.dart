@@ -6,6 +6,7 @@ class PriceEstimateModel extends PriceEstimate {
     required super.distanceKm,
     required super.estimatedDurationMinutes,
     required super.rideType,
+    required super.quoteToken,
   });
 
   factory PriceEstimateModel.fromJson(Map<String, dynamic> json) {
@@ -14,6 +15,7 @@ class PriceEstimateModel extends PriceEstimate {
       distanceKm: (json['distanceKm'] as num?)?.toDouble() ?? 0.0,
       estimatedDurationMinutes: (json['estimatedDurationMinutes'] as num?)?.toInt() ?? 0,
       rideType: json['rideType'] as String? ?? '',
+      quoteToken: json['quoteToken'] as String? ?? '',
     );
   }
 
@@ -23,6 +25,7 @@ class PriceEstimateModel extends PriceEstimate {
       'distanceKm': distanceKm,
       'estimatedDurationMinutes': estimatedDurationMinutes,
       'rideType': rideType,
+      'quoteToken': quoteToken,
     };
   }
 }
@@ -55,7 +55,7 @@ class RideRepositoryImpl implements RideRepository {
     required double destinationLongitude,
     required String destinationAddress,
     required String rideType,
-    required double price,
+    required String quoteToken,
     DateTime? scheduledDateTime,
   }) async {
     if (await networkInfo.isConnected) {
@@ -68,7 +68,7 @@ class RideRepositoryImpl implements RideRepository {
           destinationLongitude: destinationLongitude,
           destinationAddress: destinationAddress,
           rideType: rideType,
-          price: price,
+          quoteToken: quoteToken,
           scheduledDateTime: scheduledDateTime,
         );
         return Right(ride);
@@ -5,15 +5,17 @@ class PriceEstimate extends Equatable {
   final double distanceKm;
   final int estimatedDurationMinutes;
   final String rideType;
+  final String quoteToken;
 
   const PriceEstimate({
     required this.price,
     required this.distanceKm,
     required this.estimatedDurationMinutes,
     required this.rideType,
+    required this.quoteToken,
   });
 
   @override
-  List<Object> get props => [price, distanceKm, estimatedDurationMinutes, rideType];
+  List<Object> get props => [price, distanceKm, estimatedDurationMinutes, rideType, quoteToken];
 }
 
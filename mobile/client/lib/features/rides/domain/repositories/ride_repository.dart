@@ -20,7 +20,7 @@ abstract class RideRepository {
     required double destinationLongitude,
     required String destinationAddress,
     required String rideType,
-    required double price,
+    required String quoteToken,
     DateTime? scheduledDateTime,
   });
 
@@ -19,7 +19,7 @@ class BookRide implements UseCase<Ride, BookRideParams> {
       destinationLongitude: params.destinationLongitude,
       destinationAddress: params.destinationAddress,
       rideType: params.rideType,
-      price: params.price,
+      quoteToken: params.quoteToken,
       scheduledDateTime: params.scheduledDateTime,
     );
   }
@@ -33,7 +33,7 @@ class BookRideParams extends Params {
   final double destinationLongitude;
   final String destinationAddress;
   final String rideType;
-  final double price;
+  final String quoteToken;
   final DateTime? scheduledDateTime;
 
   BookRideParams({
@@ -44,7 +44,7 @@ class BookRideParams extends Params {
     required this.destinationLongitude,
     required this.destinationAddress,
     required this.rideType,
-    required this.price,
+    required this.quoteToken,
     this.scheduledDateTime,
   });
 
@@ -57,7 +57,7 @@ class BookRideParams extends Params {
         destinationLongitude,
         destinationAddress,
         rideType,
-        price,
+        quoteToken,
         scheduledDateTime,
       ];
 }
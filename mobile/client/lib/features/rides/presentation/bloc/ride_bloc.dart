@@ -63,7 +63,7 @@ class RideBloc extends Bloc<RideEvent, RideState> {
         destinationLongitude: event.destinationLongitude,
         destinationAddress: event.destinationAddress,
         rideType: event.rideType,
-        price: event.price,
+        quoteToken: event.quoteToken,
         scheduledDateTime: event.scheduledDateTime,
       ),
     );
@@ -40,7 +40,7 @@ class BookRideEvent extends RideEvent {
   final double destinationLongitude;
   final String destinationAddress;
   final String rideType;
-  final double price;
+  final String quoteToken;
   final DateTime? scheduledDateTime;
 
   const BookRideEvent({
@@ -51,7 +51,7 @@ class BookRideEvent extends RideEvent {
     required this.destinationLongitude,
     required this.destinationAddress,
     required this.rideType,
-    required this.price,
+    required this.quoteToken,
     this.scheduledDateTime,
   });
 
@@ -64,7 +64,7 @@ class BookRideEvent extends RideEvent {
         destinationLongitude,
         destinationAddress,
         rideType,
-        price,
+        quoteToken,
         scheduledDateTime?.toString() ?? '',
       ];
 }
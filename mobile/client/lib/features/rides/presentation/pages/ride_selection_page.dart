@@ -98,7 +98,7 @@ class _RideSelectionPageState extends State<RideSelectionPage> {
               destinationLongitude: (widget.destination['longitude'] as num?)?.toDouble() ?? 0.0,
               destinationAddress: widget.destination['address'] as String? ?? '',
               rideType: selectedRide['rideType'] as String,
-              price: state.estimate.price,
+              quoteToken: state.estimate.quoteToken,
               scheduledDateTime: _scheduledDateTime,
             ),
           );